@@ -0,0 +1,85 @@
+package nl.bioinf.bench;
+
+import nl.bioinf.io.DatasetGenerator;
+import nl.bioinf.io.ReadFiles;
+import nl.bioinf.logic.Dataset;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.models.Interaction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Synthetic DGIdb-shaped files for the benchmarks, written by {@link DatasetGenerator}
+ * into a temporary directory at a multiple of the DGIdb size.
+ */
+final class BenchmarkData {
+    final DatasetGenerator.Settings settings;
+    final Path directory;
+    final ReadFiles files;
+
+    private BenchmarkData(DatasetGenerator.Settings settings, Path directory) {
+        this.settings = settings;
+        this.directory = directory;
+        this.files = new ReadFiles(directory.resolve("interactions.tsv").toFile(), directory.resolve("drugs.tsv").toFile());
+    }
+
+    /**
+     * The files for {@code scale} times the DGIdb size in a directory under the system's
+     * temporary directory that is kept between runs. They are written the first time and
+     * reused after that, by every parameter combination and every fork: the generator always
+     * gives the same files for the same settings. A file marks a complete set, so files of
+     * an interrupted run are written again.
+     */
+    static BenchmarkData cached(double scale) throws IOException {
+        DatasetGenerator.Settings settings = DatasetGenerator.Settings.DGIDB.scaled(scale);
+        Path directory = Path.of(System.getProperty("java.io.tmpdir"), "drug-interactions-bench",
+                "dgidb-" + settings.interactions() + "-" + settings.seed());
+        Path complete = directory.resolve("complete");
+        if (!Files.exists(complete)) {
+            Files.createDirectories(directory);
+            new DatasetGenerator(settings).write(directory);
+            Files.createFile(complete);
+        }
+        return new BenchmarkData(settings, directory);
+    }
+
+    /** Writes the files for {@code scale} times the DGIdb size, always with the same seed. */
+    static BenchmarkData generate(double scale) throws IOException {
+        DatasetGenerator.Settings settings = DatasetGenerator.Settings.DGIDB.scaled(scale);
+        Path directory = Files.createTempDirectory("bench-data");
+        new DatasetGenerator(settings).write(directory);
+        return new BenchmarkData(settings, directory);
+    }
+
+    InteractionEngine engine(List<Interaction> interactions) {
+        return new InteractionEngine(Dataset.of(interactions, files.processDrugs(), files.processCombinations()));
+    }
+
+    /**
+     * Two drugs to query: {@code largest} are the two drugs with the most genes,
+     * {@code median} two drugs with the median number of genes.
+     */
+    String[] pair(InteractionEngine engine, String which) {
+        List<Integer> bySize = IntStream.range(0, settings.drugs()).boxed()
+                .sorted(Comparator.comparingInt((Integer drug) ->
+                        engine.geneSet(DatasetGenerator.conceptId(drug)).size()).reversed())
+                .toList();
+        int first = switch (which) {
+            case "largest" -> 0;
+            case "median" -> bySize.size() / 2;
+            default -> throw new IllegalArgumentException("Unknown pair: " + which);
+        };
+        return new String[]{DatasetGenerator.drugName(bySize.get(first)), DatasetGenerator.drugName(bySize.get(first + 1))};
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(directory.resolve("interactions.tsv"));
+        Files.deleteIfExists(directory.resolve("drugs.tsv"));
+        Files.deleteIfExists(directory);
+    }
+}
@@ -0,0 +1,57 @@
+package nl.bioinf.bench;
+
+import nl.bioinf.io.ReadFiles;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the interactions and drugs files, single-threaded and memory-mapped in parallel,
+ * at 1, 10 and 100 times the DGIdb size. The files of each scale are generated once and
+ * kept, see {@link BenchmarkData#cached}; the 100× interactions file is close to 1 GB.
+ * Only {@code processInteractions} depends on the number of threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class DataFiles {
+        @Param({"1", "10", "100"})
+        double scale;
+
+        ReadFiles files;
+
+        @Setup
+        public void findFiles() throws IOException {
+            files = BenchmarkData.cached(scale).files;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Threads {
+        @Param({"1", "4"})
+        int threads;
+    }
+
+    @Benchmark
+    public List<Interaction> processInteractions(DataFiles files, Threads threads) {
+        return files.files.processInteractions(threads.threads);
+    }
+
+    @Benchmark
+    public List<Drug> processDrugs(DataFiles files) {
+        return files.files.processDrugs();
+    }
+}
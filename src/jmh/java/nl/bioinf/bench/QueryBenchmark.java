@@ -0,0 +1,133 @@
+package nl.bioinf.bench;
+
+import nl.bioinf.io.CombinationScoreEffect;
+import nl.bioinf.io.TextReportRenderer;
+import nl.bioinf.logic.GeneSet;
+import nl.bioinf.logic.InteractionChecker.GeneScore;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.PairAnalysis;
+import nl.bioinf.logic.PartnerIndex;
+import nl.bioinf.models.Interaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The steps of one pair query on a loaded engine, each measured on its own. The steps
+ * are the ones {@link nl.bioinf.logic.InteractionChecker} runs: gene overlap
+ * ({@code geneOverlap}), scores per gene ({@code getInteractionScorePerGene}) and the
+ * combined scores ({@code compareInteractionScore}: the combined score of every gene under
+ * the pair's effect and their total, without any output). {@code renderCombinedSection} is
+ * writing those scores into the text report. {@code geneOverlapStringSets} is the overlap as
+ * it was computed before the gene dictionary, on {@code Set<String>}.
+ * {@code topPartners} asks the {@link PartnerIndex} for the ten best partners of the first drug.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryBenchmark {
+
+    @Param({"1", "10"})
+    double scale;
+
+    /** See {@link BenchmarkData#pair}. */
+    @Param({"median", "largest"})
+    String pair;
+
+    private InteractionEngine engine;
+    private final TextReportRenderer renderer = new TextReportRenderer();
+    private String firstDrug;
+    private String secondDrug;
+    private String firstConceptId;
+    private String secondConceptId;
+    private GeneSet firstGenes;
+    private GeneSet secondGenes;
+    private Set<String> firstGeneNames;
+    private Set<String> secondGeneNames;
+    private Set<String> overlap;
+    private List<GeneScore> geneScores;
+    private CombinationScoreEffect effect;
+    private PairAnalysis analysis;
+    private PartnerIndex partners;
+
+    @Setup
+    public void buildEngine() throws IOException {
+        BenchmarkData data = BenchmarkData.generate(scale);
+        List<Interaction> interactions = data.files.processInteractions();
+        engine = data.engine(interactions);
+        data.delete();
+        String[] drugs = data.pair(engine, pair);
+        firstDrug = drugs[0];
+        secondDrug = drugs[1];
+        firstConceptId = engine.conceptId(firstDrug);
+        secondConceptId = engine.conceptId(secondDrug);
+        firstGenes = engine.geneSet(firstConceptId);
+        secondGenes = engine.geneSet(secondConceptId);
+
+        Map<String, Set<String>> names = new HashMap<>();
+        for (Interaction interaction : interactions) {
+            names.computeIfAbsent(interaction.drugConceptId(), id -> new HashSet<>()).add(interaction.geneClaimName());
+        }
+        firstGeneNames = names.get(firstConceptId);
+        secondGeneNames = names.get(secondConceptId);
+
+        analysis = engine.analyze(firstDrug, secondDrug);
+        overlap = analysis.overlap();
+        geneScores = analysis.geneScores();
+        effect = analysis.effect();
+        partners = new PartnerIndex(engine);
+    }
+
+    @Benchmark
+    public Set<String> geneOverlap() {
+        return engine.overlap(firstGenes, secondGenes);
+    }
+
+    @Benchmark
+    public Set<String> geneOverlapStringSets() {
+        Set<String> shared = new HashSet<>(firstGeneNames);
+        shared.retainAll(secondGeneNames);
+        return shared;
+    }
+
+    @Benchmark
+    public List<GeneScore> getInteractionScorePerGene() {
+        return engine.geneScores(overlap, firstConceptId, secondConceptId);
+    }
+
+    @Benchmark
+    public float compareInteractionScore() {
+        return analysis.totalCombinedScore();
+    }
+
+    @Benchmark
+    public StringBuilder renderCombinedSection() throws IOException {
+        StringBuilder out = new StringBuilder();
+        renderer.combinedSection(out, effect, geneScores, !overlap.isEmpty());
+        return out;
+    }
+
+    @Benchmark
+    public List<PartnerIndex.Partner> topPartners() {
+        return partners.topPartners(firstDrug, 10, PartnerIndex.Ranking.COMBINED_SCORE);
+    }
+
+    /** All steps together, from drug names to the structured result. */
+    @Benchmark
+    public PairAnalysis analyze() {
+        return engine.analyze(firstDrug, secondDrug);
+    }
+}
@@ -0,0 +1,67 @@
+package nl.bioinf.bench;
+
+import nl.bioinf.io.ReportWriter;
+import nl.bioinf.io.TextReportRenderer;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.PairAnalysis;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the report of one pair to a file in every output format, for a median pair and
+ * the pair with the most genes of a DGIdb-sized dataset and one ten times as large. The writers are the ones {@link nl.bioinf.io.OutputGenerator}
+ * opens; the generator itself also prints a line per file, which would end up in the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark {
+
+    @Param({"1", "10"})
+    double scale;
+
+    /** See {@link BenchmarkData#pair}. */
+    @Param({"median", "largest"})
+    String pair;
+
+    @Param({"txt", "pdf", "ndjson", "tsv"})
+    String format;
+
+    private final TextReportRenderer renderer = new TextReportRenderer();
+    private PairAnalysis analysis;
+    private Path output;
+
+    @Setup
+    public void analyse() throws IOException {
+        BenchmarkData data = BenchmarkData.generate(scale);
+        InteractionEngine engine = data.engine(data.files.processInteractions());
+        data.delete();
+        String[] drugs = data.pair(engine, pair);
+        analysis = engine.analyze(drugs[0], drugs[1]);
+        output = Files.createTempFile("render-bench", "." + format);
+    }
+
+    @TearDown
+    public void deleteOutput() throws IOException {
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public void writeReport() throws IOException {
+        try (ReportWriter writer = ReportWriter.open(output, renderer, false, false)) {
+            writer.write(analysis);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package nl.bioinf.bench;
+
+import nl.bioinf.io.DatasetGenerator;
+import nl.bioinf.logic.GeneSet;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.SimilarityIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Similar-drug search with the {@link SimilarityIndex} ({@code similarLsh}) against an exact
+ * scan that computes the gene overlap with every other drug ({@code similarExactScan}), for
+ * the first drug of the pair. The setup checks the index against the exact scan for a sample
+ * of drugs and prints the share of similar drugs it found and of estimates within the error.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SimilarityBenchmark {
+    /** Drugs the setup checks against the exact scan. */
+    private static final int CHECKED_DRUGS = 200;
+
+    @Param({"1", "10"})
+    double scale;
+
+    /** See {@link BenchmarkData#pair}. */
+    @Param({"median", "largest"})
+    String pair;
+
+    private InteractionEngine engine;
+    private SimilarityIndex index;
+    private List<String> conceptIds;
+    private String drug;
+
+    @Setup
+    public void buildIndex() throws IOException {
+        BenchmarkData data = BenchmarkData.generate(scale);
+        engine = data.engine(data.files.processInteractions());
+        data.delete();
+        drug = data.pair(engine, pair)[0];
+        conceptIds = new ArrayList<>();
+        for (int i = 0; i < data.settings.drugs(); i++) conceptIds.add(DatasetGenerator.conceptId(i));
+
+        long start = System.nanoTime();
+        index = new SimilarityIndex(engine, SimilarityIndex.Settings.DEFAULT);
+        System.out.printf("%n Index of %s built in %.1f ms%n", index, (System.nanoTime() - start) / 1e6);
+        check();
+    }
+
+    private void check() {
+        SimilarityIndex.Settings settings = index.settings();
+        int step = Math.max(1, conceptIds.size() / CHECKED_DRUGS);
+        long similarPairs = 0;
+        long found = 0;
+        long estimates = 0;
+        long withinError = 0;
+        for (int i = 0; i < conceptIds.size(); i += step) {
+            String name = DatasetGenerator.drugName(i);
+            List<SimilarityIndex.Similar> exact = exactScan(name, Integer.MAX_VALUE);
+            List<SimilarityIndex.Similar> approximate = index.similar(name, conceptIds.size());
+            Set<String> returned = new HashSet<>();
+            for (SimilarityIndex.Similar similar : approximate) {
+                returned.add(similar.conceptId());
+                estimates++;
+                if (Math.abs(similar.estimate() - similar.jaccard()) <= settings.error()) withinError++;
+            }
+            similarPairs += exact.size();
+            for (SimilarityIndex.Similar similar : exact) {
+                if (returned.contains(similar.conceptId())) found++;
+            }
+        }
+        System.out.printf(" Found %d of %d similar pairs (%.1f%%), %d of %d estimates within %.2f (%.1f%%), bound %.1f%%%n",
+                found, similarPairs, percent(found, similarPairs), withinError, estimates, settings.error(),
+                percent(withinError, estimates), 100 * (1 - settings.failureRate()));
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 100 : 100.0 * part / whole;
+    }
+
+    /** The drugs with a Jaccard similarity of at least the threshold, from the overlap with every drug. */
+    private List<SimilarityIndex.Similar> exactScan(String name, int k) {
+        String conceptId = engine.conceptId(name);
+        GeneSet genes = engine.geneSet(conceptId);
+        List<SimilarityIndex.Similar> similar = new ArrayList<>();
+        if (genes.isEmpty()) return similar;
+        for (String other : conceptIds) {
+            if (other.equals(conceptId)) continue;
+            GeneSet otherGenes = engine.geneSet(other);
+            int shared = engine.overlap(genes, otherGenes).size();
+            double jaccard = shared / (double) (genes.size() + otherGenes.size() - shared);
+            if (jaccard >= index.settings().threshold()) similar.add(new SimilarityIndex.Similar(other, null, jaccard, jaccard));
+        }
+        similar.sort(Comparator.comparingDouble(SimilarityIndex.Similar::jaccard).reversed());
+        return similar.size() > k ? similar.subList(0, k) : similar;
+    }
+
+    @Benchmark
+    public List<SimilarityIndex.Similar> similarLsh() {
+        return index.similar(drug, 10);
+    }
+
+    @Benchmark
+    public List<SimilarityIndex.Similar> similarExactScan() {
+        return exactScan(drug, 10);
+    }
+}
@@ -2,7 +2,14 @@ package nl.bioinf;
 
 import nl.bioinf.io.*;
 import nl.bioinf.io.OutputGenerator;
-import nl.bioinf.logic.InteractionChecker;
+import nl.bioinf.logic.Dataset;
+import nl.bioinf.logic.DrugDictionary;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.InteractionIndex;
+import nl.bioinf.logic.InteractionStore;
+import nl.bioinf.logic.PairAnalysis;
+import nl.bioinf.logic.Profiler;
+import nl.bioinf.models.Drug;
 
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -12,15 +19,14 @@ import picocli.CommandLine.Model.CommandSpec;
 
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.Set;
 import java.util.Stack;
 
-import nl.bioinf.models.Interaction;
-import nl.bioinf.models.Drug;
-import nl.bioinf.models.Combination;
-
 /**
  * The {@code ArgumentParser} class defines and handles all command-line arguments
  * for the Drug Interactions program using the Picocli library.
@@ -29,13 +35,17 @@ import nl.bioinf.models.Combination;
  * accepts two drug names from the user, and determines whether they can be
  * safely combined. The results are written to an output file.
  * <p>
+ * Instead of the two TSV files a snapshot compiled with the {@code compile}
+ * subcommand can be given with {@code --snapshot}, which skips parsing.
+ * <p>
  * Note: this program provides indicative analysis only — it does not offer medical advice.
  */
 @Command(
         name = "Drug Interactions",
         mixinStandardHelpOptions = true,
         version = "Drug Interactions 1.0",
-        description = "This program uses two drug inputs and two file inputs (drug.tsv and interaction.tsv) and performs an assessment. The program then assesses whether these can be safely combined. The program does not offer binding medical advice, but rather indicative support to identify potential risks at an earlier stage.\n"
+        description = "This program uses two drug inputs and two file inputs (drug.tsv and interaction.tsv) and performs an assessment. The program then assesses whether these can be safely combined. The program does not offer binding medical advice, but rather indicative support to identify potential risks at an earlier stage.\n",
+        subcommands = { CompileCommand.class, MatrixCommand.class, PartnersCommand.class, SimilarCommand.class, ServeCommand.class, GenerateCommand.class }
 )
 public class ArgumentParser implements Runnable {
 
@@ -66,59 +76,88 @@ public class ArgumentParser implements Runnable {
 
     @Option(names = { "-intF", "--interactionsFile" },
             paramLabel = "interactionsFile",
-            description = "the input file. for example: interactions.tsv",
-            required = true)
+            description = "the input file. for example: interactions.tsv")
     File interactionsFile;
 
     @Option(names = { "-drF", "--drugsFile" },
             paramLabel = "drugsFile",
-            description = "the input file. for example: drugs.tsv",
-            required = true)
+            description = "the input file. for example: drugs.tsv")
     File drugsFile;
 
+    @Option(names = {"--snapshot"},
+            paramLabel = "snapshot",
+            description = "a snapshot made with the compile subcommand, used instead of -intF and -drF")
+    File snapshot;
+
+    @Option(names = {"--pairs"},
+            paramLabel = "pairsFile",
+            description = "a file with one drug pair per line (two tab-separated names), used instead of -d1 and -d2")
+    File pairs;
+
     @Option(names = {"--drug1", "-d1"},
             paramLabel = "firstDrugInput",
             description = "put the first drug you want to compare here",
-            required = true,
             parameterConsumer = MultiWordParameterConsumer.class)
     String firstDrugInput;
 
     @Option(names = {"--drug2", "-d2"},
             paramLabel = "secondDrugInput",
             description = "put the second drug you want to compare here",
-            required = true,
             parameterConsumer = MultiWordParameterConsumer.class)
     String secondDrugInput;
 
     @Option(names = {"--output", "-o"},
             paramLabel = "output",
-            description = "put the path to where you want the output to land",
-            required = true)
+            description = "put the path to where you want the output to land")
     Path output;
 
-    @Override
-    public void run() {
-        try {
-            Validate.validateDifferentDrugs(firstDrugInput, secondDrugInput);
-            Validate.validateOutputPath(output);
+    @Option(names = {"--append"},
+            description = "add the report to the end of an existing .txt, .ndjson or .tsv output file instead of replacing it")
+    boolean append;
+
+    @Option(names = {"--per-gene"},
+            description = "write one .ndjson or .tsv record per overlapping gene instead of one per drug pair")
+    boolean perGene;
 
-            ReadFiles lb = new ReadFiles(interactionsFile, drugsFile);
-            List<Interaction> interactions = lb.processInteractions();
-            List<Drug> drugs = lb.processDrugs();
-            List<Combination> combinations = lb.processCombinations();
+    @Option(names = {"--threads", "-t"},
+            paramLabel = "threads",
+            description = "number of threads used to load the interactions file and to analyse pairs with --pairs (default: ${DEFAULT-VALUE})",
+            defaultValue = "1")
+    int threads;
 
+    @Option(names = {"--profile"},
+            paramLabel = "json",
+            arity = "0..1",
+            fallbackValue = PRINT_PROFILE,
+            description = "measure wall time, CPU time and allocations per phase of the run; prints a table, or writes JSON when a .json file is given")
+    String profile;
 
-            InteractionChecker checker = new InteractionChecker(
-                    interactions, drugs, combinations, firstDrugInput, secondDrugInput);
+    private static final String PRINT_PROFILE = "-";
 
-            Set<String> overlap = checker.geneOverlap();
-            checker.getInteractionTypes();
-            String combinationResult = checker.getCombinationResult(overlap);
-            List<InteractionChecker.GeneScore> geneScores = checker.getInteractionScorePerGene(overlap);
-            checker.compareInteractionScore(combinationResult, geneScores, overlap);
+    @Option(names = {"--result-cache"},
+            paramLabel = "directory",
+            description = "keep the results of -d1/-d2 pairs in this directory; a pair found there is reported without loading the dataset")
+    Path resultCache;
 
-            OutputGenerator generator = new OutputGenerator(output);
-            generator.generateOutput(checker.getOutputSB());
+    @Option(names = {"--result-cache-mb"},
+            paramLabel = "MB",
+            description = "disk space the results of all datasets in the result cache may take, least recently used results are removed first (default: ${DEFAULT-VALUE})",
+            defaultValue = "256")
+    long resultCacheMegabytes;
+
+    @Override
+    public void run() {
+        Profiler profiler = profile != null ? new Profiler() : Profiler.OFF;
+        try {
+            if (profile != null && !PRINT_PROFILE.equals(profile)) {
+                Validate.validateOutputPath(Path.of(profile), ".json");
+            }
+            if (pairs != null) {
+                runBatch(profiler);
+            } else {
+                runPair(profiler);
+            }
+            if (profiler.isEnabled()) reportProfile(profiler);
 
         } catch (IllegalArgumentException e) {
             System.err.println(e.getMessage());
@@ -127,4 +166,202 @@ public class ArgumentParser implements Runnable {
             System.err.println("ERROR: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Analyses the {@code -d1}/{@code -d2} pair and writes the report.
+     */
+    private void runPair(Profiler profiler) {
+        Profiler.Phase phase = profiler.begin("validate");
+        requireOption(firstDrugInput, "--drug1");
+        requireOption(secondDrugInput, "--drug2");
+        requireOption(output, "--output");
+        Validate.validateDifferentDrugs(firstDrugInput, secondDrugInput);
+        Validate.validateOutputPath(output);
+        if (append) Validate.validateAppend(output);
+        phase.end();
+
+        ResultCache cache = null;
+        PairAnalysis analysis = null;
+        if (resultCache != null) {
+            phase = profiler.begin("result cache lookup");
+            cache = openResultCache();
+            analysis = cache.get(firstDrugInput, secondDrugInput);
+            phase.end();
+        }
+        if (analysis == null) {
+            InteractionEngine engine = loadEngine(profiler);
+            analysis = engine.analyze(firstDrugInput, secondDrugInput, profiler);
+            if (cache != null) {
+                phase = profiler.begin("result cache store");
+                cache.put(analysis);
+                phase.end();
+            }
+        }
+
+        phase = profiler.begin("write output");
+        OutputGenerator generator = new OutputGenerator(output, new TextReportRenderer(), append, perGene);
+        generator.generateOutput(analysis);
+        phase.end();
+    }
+
+    /**
+     * Analyses every pair of the {@code --pairs} file against one loaded dataset. The pairs
+     * are analysed on several threads at once, so the profile has one phase for all of them.
+     */
+    private void runBatch(Profiler profiler) {
+        Profiler.Phase phase = profiler.begin("validate");
+        if (firstDrugInput != null || secondDrugInput != null) {
+            throw new IllegalArgumentException("ERROR: Use either --pairs or -d1/-d2, not both.");
+        }
+        requireOption(output, "--output");
+        Validate.validateBatchOutput(output);
+        if (append) Validate.validateAppend(output);
+        fileNotEmptyCheck("Pairs file", pairs.getPath());
+        phase.end();
+
+        InteractionEngine engine = loadEngine(profiler);
+        phase = profiler.begin("analyse and write pairs");
+        long start = System.nanoTime();
+        long count = new BatchRunner(engine, threads).run(pairs, output, append, perGene);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        phase.end(count);
+        System.out.printf(" %d pairs analysed in %.1f s (%.0f pairs/s), written to: %s%n",
+                count, seconds, count / Math.max(seconds, 1e-9), output);
+    }
+
+    /**
+     * Opens the {@code --result-cache} for the dataset given on the command line. Its
+     * fingerprint is a checksum of the data files, so they are read once but not parsed.
+     */
+    private ResultCache openResultCache() {
+        if (snapshot != null) {
+            if (interactionsFile != null || drugsFile != null) {
+                throw new IllegalArgumentException("ERROR: Use either --snapshot or -intF/-drF, not both.");
+            }
+            fileNotEmptyCheck("Snapshot file", snapshot.getPath());
+            return ResultCache.open(resultCache, resultCacheMegabytes << 20, snapshot);
+        }
+        requireOption(interactionsFile, "-intF/--interactionsFile");
+        requireOption(drugsFile, "-drF/--drugsFile");
+        fileNotEmptyCheck("Interactions file", interactionsFile.getPath());
+        fileNotEmptyCheck("Drugs file", drugsFile.getPath());
+        return ResultCache.open(resultCache, resultCacheMegabytes << 20, interactionsFile, drugsFile);
+    }
+
+    /** Prints the profile, or writes it as JSON when {@code --profile} names a file. */
+    private void reportProfile(Profiler profiler) throws IOException {
+        if (PRINT_PROFILE.equals(profile)) {
+            profiler.print(System.out);
+            return;
+        }
+        Path json = Path.of(profile);
+        try (Writer out = Files.newBufferedWriter(json, StandardCharsets.UTF_8)) {
+            JsonFormat.writeProfile(out, profiler.results());
+            out.write('\n');
+        }
+        System.out.println(" Profile written to: " + json);
+    }
+
+    /**
+     * Loads the dataset and builds the query engine on top of it.
+     *
+     * @return an engine that can be shared by all queries of this run
+     */
+    InteractionEngine loadEngine() {
+        return loadEngine(Profiler.OFF);
+    }
+
+    /** The files the dataset is loaded from: the snapshot, or the interactions and drugs files. */
+    List<Path> datasetFiles() {
+        if (snapshot != null) return List.of(snapshot.toPath());
+        requireOption(interactionsFile, "-intF/--interactionsFile");
+        requireOption(drugsFile, "-drF/--drugsFile");
+        return List.of(interactionsFile.toPath(), drugsFile.toPath());
+    }
+
+    /** Loads the engine and records the loading phases in {@code profiler}. */
+    InteractionEngine loadEngine(Profiler profiler) {
+        Dataset dataset = loadDataset(profiler);
+        Profiler.Phase phase = profiler.begin("build engine");
+        InteractionEngine engine = new InteractionEngine(dataset);
+        phase.end();
+        return engine;
+    }
+
+    /**
+     * Loads the dataset from the snapshot when {@code --snapshot} is given,
+     * otherwise reads and indexes the interactions and drugs TSV files.
+     *
+     * @return the loaded dataset
+     * @throws IllegalArgumentException if the inputs are missing, invalid or out of date
+     */
+    Dataset loadDataset() {
+        return loadDataset(Profiler.OFF);
+    }
+
+    private Dataset loadDataset(Profiler profiler) {
+        Validate.validateThreads(threads);
+        if (snapshot != null) {
+            if (interactionsFile != null || drugsFile != null) {
+                throw new IllegalArgumentException("ERROR: Use either --snapshot or -intF/-drF, not both.");
+            }
+            fileNotEmptyCheck("Snapshot file", snapshot.getPath());
+            Profiler.Phase phase = profiler.begin("read snapshot");
+            DatasetSnapshot.Contents contents = DatasetSnapshot.read(snapshot.toPath());
+            phase.end(contents.interactions().size());
+
+            phase = profiler.begin("index");
+            Dataset dataset = new Dataset(new InteractionIndex(contents.interactions()),
+                    new DrugDictionary(contents.drugs()), contents.combinations());
+            phase.end();
+            return dataset;
+        }
+
+        requireOption(interactionsFile, "-intF/--interactionsFile");
+        requireOption(drugsFile, "-drF/--drugsFile");
+        ReadFiles lb = new ReadFiles(interactionsFile, drugsFile);
+        Profiler.Phase phase = profiler.begin("read interactions");
+        InteractionStore interactions = lb.processInteractionStore(threads);
+        phase.end(interactions.size());
+
+        phase = profiler.begin("read drugs");
+        List<Drug> drugs = lb.processDrugs();
+        phase.end(drugs.size());
+
+        phase = profiler.begin("index");
+        Dataset dataset = new Dataset(new InteractionIndex(interactions), new DrugDictionary(drugs),
+                lb.processCombinations());
+        phase.end(interactions.size());
+        return dataset;
+    }
+
+    /**
+     * Checks that a path given on the command line points to an existing, non-empty file.
+     *
+     * @param label a descriptive label (used in error messages)
+     * @param path  the path to check
+     * @throws IllegalArgumentException if the file does not exist, is not a file or is empty
+     */
+    void fileNotEmptyCheck(String label, String path) {
+        File file = new File(path);
+        if (!file.exists()) {
+            throw new IllegalArgumentException("ERROR: " + label + " does not exist: " + path);
+        }
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("ERROR: " + label + " is not a file: " + path);
+        }
+        if (file.length() == 0) {
+            throw new IllegalArgumentException("ERROR: " + label + " is empty: " + path);
+        }
+    }
+
+    /**
+     * Options are only required by some modes (a pair run needs drugs and an output,
+     * {@code compile} does not), so they are checked here instead of by Picocli.
+     */
+    static void requireOption(Object value, String name) {
+        if (value == null) {
+            throw new IllegalArgumentException("ERROR: Missing required option: " + name);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package nl.bioinf;
+
+import nl.bioinf.io.PairsReader;
+import nl.bioinf.io.ReportRenderer;
+import nl.bioinf.io.ReportWriter;
+import nl.bioinf.io.TextReportRenderer;
+import nl.bioinf.io.TextReportWriter;
+import nl.bioinf.io.Validate;
+import nl.bioinf.logic.BatchPipeline;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.PairAnalysis;
+import nl.bioinf.models.DrugPair;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs the analysis for every pair in a pairs file against one shared {@link InteractionEngine}.
+ * Pairs are streamed through a {@link BatchPipeline}: one thread reads the pairs file,
+ * {@code workers} threads analyse the pairs and render their reports, and the calling thread
+ * only appends the rendered reports to the output in the order of the pairs file. Only a few
+ * reports are held in memory at a time.
+ * <p>
+ * The reports go to one text, PDF, NDJSON or TSV file, or to one text file per pair when the output is a directory.
+ * The workers write the files of a directory themselves. PDF pages can only be laid out in
+ * order, so for a PDF the workers only analyse and the calling thread renders the reports.
+ * A pair that cannot be analysed (for example an unknown drug, or a line without a tab) gets
+ * the error as its report; the rest of the batch continues.
+ */
+public class BatchRunner {
+    private static final int IN_FLIGHT_PER_WORKER = 4;
+
+    private final InteractionEngine engine;
+    private final int workers;
+    private final ReportRenderer renderer;
+
+    public BatchRunner(InteractionEngine engine, int workers) {
+        this(engine, workers, new TextReportRenderer());
+    }
+
+    /** With another renderer for the text reports, for tests. */
+    BatchRunner(InteractionEngine engine, int workers, ReportRenderer renderer) {
+        this.engine = engine;
+        this.workers = workers;
+        this.renderer = renderer;
+    }
+
+    /** The analysis of one pair, or the error message when it could not be analysed. */
+    private record PairReport(DrugPair pair, PairAnalysis analysis, String error) {}
+
+    /**
+     * What the workers hand to the calling thread: the rendered report, or for a PDF the
+     * report itself; neither when the worker already wrote the pair's own file.
+     */
+    private record Rendered(DrugPair pair, String text, PairReport report) {}
+
+    private PairReport analyse(DrugPair pair) {
+        if (pair.error() != null) return new PairReport(pair, null, pair.error());
+        try {
+            Validate.validateDifferentDrugs(pair.firstDrug(), pair.secondDrug());
+            return new PairReport(pair, engine.analyze(pair.firstDrug(), pair.secondDrug()), null);
+        } catch (IllegalArgumentException e) {
+            return new PairReport(pair, null, e.getMessage());
+        }
+    }
+
+    private static void writeReport(PairReport report, ReportWriter out) throws IOException {
+        if (report.analysis() != null) {
+            out.write(report.analysis());
+        } else {
+            out.error(report.pair().firstDrug(), report.pair().secondDrug(), report.error());
+        }
+    }
+
+    /**
+     * Analyses every pair of the pairs file.
+     *
+     * @param pairsFile the pairs file, two tab-separated drug names per line
+     * @param output    a .txt or .pdf file for one combined report, or a directory for one file per pair
+     * @return the number of pairs analysed
+     */
+    public long run(File pairsFile, Path output) {
+        return run(pairsFile, output, false, false);
+    }
+
+    /**
+     * Analyses every pair of the pairs file.
+     *
+     * @param pairsFile the pairs file, two tab-separated drug names per line
+     * @param output    a .txt, .pdf, .ndjson or .tsv file for all pairs, or a directory for one text file per pair
+     * @param append    add the reports to the end of an existing combined .txt, .ndjson or .tsv file
+     * @param perGene   write one .ndjson or .tsv record per overlapping gene instead of one per pair
+     * @return the number of pairs analysed
+     */
+    public long run(File pairsFile, Path output, boolean append, boolean perGene) {
+        boolean perPair = Files.isDirectory(output);
+        BatchPipeline<DrugPair, Rendered> pipeline = new BatchPipeline<>(workers, workers * IN_FLIGHT_PER_WORKER);
+
+        try (PairsReader pairs = new PairsReader(pairsFile);
+             ReportWriter combined = perPair ? null : ReportWriter.open(output, renderer, append, perGene)) {
+            return pipeline.run(pairs, pair -> {
+                PairReport report = analyse(pair);
+                try {
+                    if (perPair) {
+                        writePairFile(output, report);
+                        return new Rendered(pair, null, null);
+                    }
+                    return render(report, output, perGene);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error writing batch output to: " + output, e);
+                }
+            }, rendered -> {
+                if (perPair) return;
+                try {
+                    combined.heading(heading(rendered.pair()));
+                    if (rendered.report() != null) {
+                        writeReport(rendered.report(), combined);
+                    } else {
+                        combined.writeRendered(rendered.text());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error writing batch output to: " + output, e);
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing batch output to: " + output, e);
+        }
+    }
+
+    /** Renders a report for the combined output, on the worker; a PDF report is passed on as is. */
+    private Rendered render(PairReport report, Path output, boolean perGene) throws IOException {
+        StringWriter text = new StringWriter();
+        try (ReportWriter writer = ReportWriter.render(text, output, renderer, perGene)) {
+            if (writer == null) return new Rendered(report.pair(), null, report);
+            writeReport(report, writer);
+        }
+        return new Rendered(report.pair(), text.toString(), null);
+    }
+
+    private void writePairFile(Path directory, PairReport report) throws IOException {
+        DrugPair pair = report.pair();
+        String name = pair.line() + "_" + safeName(pair.firstDrug()) + "_" + safeName(pair.secondDrug()) + ".txt";
+        try (TextReportWriter writer = new TextReportWriter(directory.resolve(name), false, renderer)) {
+            writeReport(report, writer);
+        }
+    }
+
+    private static String heading(DrugPair pair) {
+        return "Line " + pair.line() + ": " + pair.firstDrug() + " + " + pair.secondDrug();
+    }
+
+    private static String safeName(String drug) {
+        return drug.replaceAll("[^A-Za-z0-9._-]+", "_");
+    }
+}
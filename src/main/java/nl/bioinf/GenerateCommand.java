@@ -0,0 +1,117 @@
+package nl.bioinf;
+
+import nl.bioinf.io.DatasetGenerator;
+import nl.bioinf.io.DatasetGenerator.Settings;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The {@code generate} subcommand writes a synthetic, DGIdb-shaped interactions.tsv and
+ * drugs.tsv for scale tests and benchmarks. The defaults are roughly the size of DGIdb;
+ * {@code --scale} multiplies the numbers of rows, drugs and genes and the other options
+ * override single settings.
+ * <p>
+ * Example: {@code generate --scale 10 --seed 7 -o data/synthetic}
+ */
+@Command(
+        name = "generate",
+        mixinStandardHelpOptions = true,
+        description = "Writes a synthetic interactions.tsv and drugs.tsv with the shape of DGIdb."
+)
+public class GenerateCommand implements Runnable {
+
+    @Option(names = {"--output", "-o"},
+            paramLabel = "directory",
+            description = "existing directory to write interactions.tsv and drugs.tsv to",
+            required = true)
+    Path output;
+
+    @Option(names = {"--scale"},
+            description = "multiplies the numbers of interactions, drugs and genes of the DGIdb defaults (default: ${DEFAULT-VALUE})",
+            defaultValue = "1")
+    double scale;
+
+    @Option(names = {"--seed"},
+            description = "seed; the same seed and options give the same files (default: ${DEFAULT-VALUE})",
+            defaultValue = "42")
+    long seed;
+
+    @Option(names = {"--interactions"}, description = "number of interaction rows")
+    Integer interactions;
+
+    @Option(names = {"--drugs"}, description = "number of drug concepts")
+    Integer drugs;
+
+    @Option(names = {"--genes"}, description = "number of genes to choose from")
+    Integer genes;
+
+    @Option(names = {"--drug-skew"}, description = "skew of the genes per drug, 0 gives every drug as many")
+    Double drugSkew;
+
+    @Option(names = {"--gene-skew"}, description = "skew of the gene popularity, 0 picks every gene equally often")
+    Double geneSkew;
+
+    @Option(names = {"--aliases"}, description = "average number of extra claim names per drug")
+    Double aliases;
+
+    @Option(names = {"--duplicate-rate"}, description = "share of rows that repeat a gene of the same drug")
+    Double duplicateRate;
+
+    @Option(names = {"--missing-score-rate"}, description = "share of rows without a usable score")
+    Double missingScoreRate;
+
+    @Option(names = {"--blank-line-rate"}, description = "blank lines per interaction row")
+    Double blankLineRate;
+
+    @Option(names = {"--malformed-row-rate"},
+            description = "rows with too few columns per interaction row; the files then fail to load, to test that path")
+    Double malformedRowRate;
+
+    @Override
+    public void run() {
+        try {
+            if (!Files.isDirectory(output)) {
+                throw new IllegalArgumentException("ERROR: Output directory does not exist → " + output);
+            }
+            if (scale <= 0) {
+                throw new IllegalArgumentException("ERROR: --scale must be larger than 0, got " + scale + ".");
+            }
+            Settings settings = settings();
+
+            long start = System.nanoTime();
+            DatasetGenerator.Written written = new DatasetGenerator(settings).write(output);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf(" %d interactions of %d drugs and %d drug names written to %s in %.1f s%n",
+                    written.interactions(), settings.drugs(), written.drugNames(), output, seconds);
+            if (written.malformedRows() > 0) {
+                System.out.printf(" %d malformed rows written, the first at line %d of interactions.tsv%n",
+                        written.malformedRows(), written.firstMalformedLine());
+            }
+
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+
+        } catch (Exception e) {
+            System.err.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    Settings settings() {
+        Settings base = Settings.DGIDB.scaled(scale).withSeed(seed);
+        return new Settings(seed,
+                interactions != null ? interactions : base.interactions(),
+                drugs != null ? drugs : base.drugs(),
+                genes != null ? genes : base.genes(),
+                drugSkew != null ? drugSkew : base.drugSkew(),
+                geneSkew != null ? geneSkew : base.geneSkew(),
+                aliases != null ? aliases : base.aliasesPerDrug(),
+                duplicateRate != null ? duplicateRate : base.duplicateGeneRate(),
+                missingScoreRate != null ? missingScoreRate : base.missingScoreRate(),
+                blankLineRate != null ? blankLineRate : base.blankLineRate(),
+                malformedRowRate != null ? malformedRowRate : base.malformedRowRate());
+    }
+}
@@ -0,0 +1,113 @@
+package nl.bioinf;
+
+import nl.bioinf.io.MatrixWriter;
+import nl.bioinf.io.Validate;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.InteractionMatrix;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The {@code matrix} subcommand analyses every unordered pair of a list of drugs
+ * and writes one TSV row per pair with the overlap size, combination effect and
+ * combined score.
+ * <p>
+ * Example: {@code --snapshot dgidb.snapshot -t 16 matrix --drugs formulary.txt -o matrix.tsv}
+ */
+@Command(
+        name = "matrix",
+        mixinStandardHelpOptions = true,
+        description = "Analyses every pair of a list of drugs and writes a compact matrix (.tsv)."
+)
+public class MatrixCommand implements Runnable {
+
+    @ParentCommand
+    ArgumentParser parent;
+
+    @Option(names = {"--drugs"},
+            paramLabel = "drugList",
+            description = "a file with one drug name per line",
+            required = true)
+    File drugList;
+
+    @Option(names = {"--output", "-o"},
+            paramLabel = "output",
+            description = "path of the matrix file to write (.tsv)",
+            required = true)
+    Path output;
+
+    @Override
+    public void run() {
+        try {
+            parent.fileNotEmptyCheck("Drug list", drugList.getPath());
+            Validate.validateOutputPath(output, ".tsv");
+
+            InteractionEngine engine = parent.loadEngine();
+            List<String> drugs = readDrugList(engine);
+
+            InteractionMatrix matrix = new InteractionMatrix(engine, drugs);
+            ForkJoinPool pool = new ForkJoinPool(parent.threads);
+            long start = System.nanoTime();
+            try {
+                matrix.compute(pool);
+            } finally {
+                pool.shutdown();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long pairs = (long) drugs.size() * (drugs.size() - 1) / 2;
+            System.out.printf(" %d pairs of %d drugs computed in %.1f s%n", pairs, drugs.size(), seconds);
+
+            new MatrixWriter(output).write(matrix);
+
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+
+        } catch (Exception e) {
+            System.err.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the drug list. Blank lines and lines starting with '#' are skipped; names that
+     * are not in the dataset are reported and skipped. A name that resolves to the same
+     * concept as an earlier one, such as another alias of that drug, is reported and
+     * skipped too, so every concept gets one row per partner and no row against itself.
+     */
+    private List<String> readDrugList(InteractionEngine engine) throws IOException {
+        List<String> drugs = new ArrayList<>();
+        Map<String, String> seen = new HashMap<>();
+        for (String line : Files.readAllLines(drugList.toPath(), StandardCharsets.UTF_8)) {
+            String drug = line.trim();
+            if (drug.isEmpty() || drug.startsWith("#")) continue;
+            if (!engine.dataset().dictionary().contains(drug)) {
+                System.err.println("Drug not found, skipped: " + drug);
+                continue;
+            }
+            String first = seen.putIfAbsent(engine.conceptId(drug), drug);
+            if (first != null) {
+                if (!first.equalsIgnoreCase(drug)) {
+                    System.err.println("Same drug as " + first + ", skipped: " + drug);
+                }
+                continue;
+            }
+            drugs.add(drug);
+        }
+        if (drugs.size() < 2) {
+            throw new IllegalArgumentException("ERROR: The drug list needs at least two known drugs.");
+        }
+        return drugs;
+    }
+}
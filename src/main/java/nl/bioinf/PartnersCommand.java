@@ -0,0 +1,97 @@
+package nl.bioinf;
+
+import nl.bioinf.io.Validate;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.PartnerIndex;
+import nl.bioinf.logic.Scores;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The {@code partners} subcommand lists the drugs that share the most genes with one drug,
+ * as TSV: one row per partner, best first.
+ * <p>
+ * Example: {@code --snapshot dgidb.snapshot partners --drug imatinib -k 20 --rank combined-score}
+ */
+@Command(
+        name = "partners",
+        mixinStandardHelpOptions = true,
+        description = "Lists the drugs that share the most genes with one drug (.tsv)."
+)
+public class PartnersCommand implements Runnable {
+
+    @ParentCommand
+    ArgumentParser parent;
+
+    @Option(names = {"--drug", "-d"},
+            paramLabel = "drug",
+            description = "the drug to find partners for",
+            required = true)
+    String drug;
+
+    @Option(names = {"-k"},
+            paramLabel = "count",
+            description = "number of partners to list (default: ${DEFAULT-VALUE})",
+            defaultValue = "10")
+    int count;
+
+    @Option(names = {"--rank"},
+            paramLabel = "ranking",
+            description = "shared-genes, score (sum of both interaction scores) or combined-score (under the combination effect) (default: ${DEFAULT-VALUE})",
+            defaultValue = "shared-genes")
+    String rank;
+
+    @Option(names = {"--output", "-o"},
+            paramLabel = "output",
+            description = "path of the .tsv file to write; printed when left out")
+    Path output;
+
+    @Override
+    public void run() {
+        try {
+            PartnerIndex.Ranking ranking = PartnerIndex.Ranking.parse(rank);
+            if (output != null) Validate.validateOutputPath(output, ".tsv");
+
+            InteractionEngine engine = parent.loadEngine();
+            long start = System.nanoTime();
+            PartnerIndex index = new PartnerIndex(engine);
+            long built = System.nanoTime();
+            List<PartnerIndex.Partner> partners = index.topPartners(drug, count, ranking);
+            long done = System.nanoTime();
+
+            QueryOutput.write(output, "Partners", out -> write(out, partners));
+            QueryOutput.printTimes("Index", start, built, done);
+
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+
+        } catch (Exception e) {
+            System.err.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    private static void write(Writer out, List<PartnerIndex.Partner> partners) throws IOException {
+        out.write("concept_id\tname\tshared_genes\tscore\tcombination_effect\tcombined_score\n");
+        for (PartnerIndex.Partner partner : partners) {
+            out.write(partner.conceptId());
+            out.write('\t');
+            out.write(partner.name() == null ? "NA" : partner.name());
+            out.write('\t');
+            out.write(Integer.toString(partner.sharedGenes()));
+            out.write('\t');
+            out.write(Float.toString(partner.score()));
+            out.write('\t');
+            out.write(partner.effect().name());
+            out.write('\t');
+            out.write(Scores.isMissing(partner.combinedScore()) ? "NA" : Float.toString(partner.combinedScore()));
+            out.write('\n');
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package nl.bioinf;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Output of the subcommands that build an index and answer one query from it, such as
+ * {@code partners} and {@code similar}: the rows go to a file or to the screen, and the
+ * time taken goes to stderr, so it does not end up in the printed TSV.
+ */
+final class QueryOutput {
+
+    /** Writes the rows of a query. */
+    interface Rows {
+        void write(Writer out) throws IOException;
+    }
+
+    private QueryOutput() {
+    }
+
+    /**
+     * Writes the rows to {@code output}, or prints them when it is {@code null}.
+     *
+     * @param what what the rows are, for the message that the file was written
+     */
+    static void write(Path output, String what, Rows rows) throws IOException {
+        if (output == null) {
+            PrintWriter out = new PrintWriter(System.out, false, StandardCharsets.UTF_8);
+            rows.write(out);
+            out.flush();
+        } else {
+            try (Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                rows.write(out);
+            }
+            System.out.println(" " + what + " successfully written to: " + output);
+        }
+    }
+
+    /**
+     * Prints how long building the index and answering the query took.
+     *
+     * @param index how to name the index, such as {@code "Index"}
+     * @param start {@link System#nanoTime()} before the index was built
+     * @param built {@link System#nanoTime()} after the index was built
+     * @param done  {@link System#nanoTime()} after the query was answered
+     */
+    static void printTimes(String index, long start, long built, long done) {
+        System.err.printf(" %s built in %.1f ms, query answered in %.2f ms%n",
+                index, (built - start) / 1e6, (done - built) / 1e6);
+    }
+}
@@ -0,0 +1,93 @@
+package nl.bioinf;
+
+import nl.bioinf.io.DatasetReloader;
+import nl.bioinf.io.QueryServer;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@code serve} subcommand loads the dataset once and answers pair queries over HTTP,
+ * with one virtual thread per request. The server listens right away; {@code /ready}
+ * reports ready once loading is done. The dataset can be loaded again without a restart,
+ * with {@code POST /reload} or, with {@code --watch}, when its files change. Stopping the
+ * process (Ctrl+C, SIGTERM) shuts the server down gracefully.
+ * <p>
+ * Example: {@code --snapshot dgidb.snapshot serve --port 8080}, then
+ * {@code GET http://localhost:8080/analyze?drug1=clonidine&drug2=compro}
+ */
+@Command(
+        name = "serve",
+        mixinStandardHelpOptions = true,
+        description = "Loads the dataset once and answers drug pair queries over HTTP (JSON)."
+)
+public class ServeCommand implements Runnable {
+
+    @ParentCommand
+    ArgumentParser parent;
+
+    @Option(names = {"--port", "-p"},
+            paramLabel = "port",
+            description = "port to listen on (default: ${DEFAULT-VALUE})",
+            defaultValue = "8080")
+    int port;
+
+    @Option(names = {"--host"},
+            paramLabel = "host",
+            description = "address to listen on (default: ${DEFAULT-VALUE})",
+            defaultValue = "0.0.0.0")
+    String host;
+
+    @Option(names = {"--cache-mb"},
+            paramLabel = "MB",
+            description = "memory for cached pair analyses, 0 to turn the cache off (default: ${DEFAULT-VALUE})",
+            defaultValue = "64")
+    long cacheMegabytes;
+
+    @Option(names = {"--watch"},
+            description = "load the dataset again when its files change, while the old one keeps answering queries")
+    boolean watch;
+
+    @Override
+    public void run() {
+        QueryServer server = null;
+        try {
+            server = new QueryServer(new InetSocketAddress(host, port), Executors.newVirtualThreadPerTaskExecutor(),
+                    cacheMegabytes << 20);
+            QueryServer running = server;
+            Runtime.getRuntime().addShutdownHook(new Thread(running::close, "server-shutdown"));
+            server.start();
+            System.out.println(" Listening on http://" + host + ":" + server.port() + " (loading dataset)");
+
+            long start = System.nanoTime();
+            server.ready(parent.loadEngine());
+            System.out.printf(" Dataset loaded in %.1f s, ready for queries%n", (System.nanoTime() - start) / 1e9);
+
+            DatasetReloader reloader = new DatasetReloader(parent::loadEngine, server::ready);
+            server.reloadWith(reloader);
+            if (watch) {
+                reloader.watch(parent.datasetFiles());
+                System.out.println(" Watching " + parent.datasetFiles() + " for changes");
+            }
+
+            server.awaitTermination();
+            reloader.close();
+
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            if (server != null) server.close();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.close();
+
+        } catch (Exception e) {
+            System.err.println("ERROR: " + e.getMessage());
+            if (server != null) server.close();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package nl.bioinf;
+
+import nl.bioinf.io.Validate;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.SimilarityIndex;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The {@code similar} subcommand lists the drugs whose set of genes is most like that of one
+ * drug, found with MinHash/LSH, as TSV: one row per drug, most similar first.
+ * <p>
+ * Example: {@code --snapshot dgidb.snapshot similar --drug imatinib --threshold 0.4 --error 0.05}
+ */
+@Command(
+        name = "similar",
+        mixinStandardHelpOptions = true,
+        description = "Lists the drugs with the most similar set of genes to one drug, approximately (.tsv)."
+)
+public class SimilarCommand implements Runnable {
+
+    @ParentCommand
+    ArgumentParser parent;
+
+    @Option(names = {"--drug", "-d"},
+            paramLabel = "drug",
+            description = "the drug to find similar drugs for",
+            required = true)
+    String drug;
+
+    @Option(names = {"-k"},
+            paramLabel = "count",
+            description = "number of drugs to list (default: ${DEFAULT-VALUE})",
+            defaultValue = "10")
+    int count;
+
+    @Option(names = {"--threshold"},
+            paramLabel = "jaccard",
+            description = "Jaccard similarity of the gene sets from which a drug counts as similar (default: ${DEFAULT-VALUE})",
+            defaultValue = "0.5")
+    double threshold;
+
+    @Option(names = {"--error"},
+            paramLabel = "error",
+            description = "largest accepted error of an estimated similarity; smaller needs more hashes (default: ${DEFAULT-VALUE})",
+            defaultValue = "0.1")
+    double error;
+
+    @Option(names = {"--failure-rate"},
+            paramLabel = "rate",
+            description = "chance that an estimate exceeds the error or a similar drug is missed (default: ${DEFAULT-VALUE})",
+            defaultValue = "0.05")
+    double failureRate;
+
+    @Option(names = {"--output", "-o"},
+            paramLabel = "output",
+            description = "path of the .tsv file to write; printed when left out")
+    Path output;
+
+    @Override
+    public void run() {
+        try {
+            SimilarityIndex.Settings settings = new SimilarityIndex.Settings(threshold, error, failureRate,
+                    SimilarityIndex.Settings.DEFAULT.seed());
+            if (output != null) Validate.validateOutputPath(output, ".tsv");
+
+            InteractionEngine engine = parent.loadEngine();
+            long start = System.nanoTime();
+            SimilarityIndex index = new SimilarityIndex(engine, settings);
+            long built = System.nanoTime();
+            List<SimilarityIndex.Similar> similar = index.similar(drug, count);
+            long done = System.nanoTime();
+
+            QueryOutput.write(output, "Similar drugs", out -> write(out, similar));
+            QueryOutput.printTimes("Index of " + index, start, built, done);
+
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+
+        } catch (Exception e) {
+            System.err.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    private static void write(Writer out, List<SimilarityIndex.Similar> similar) throws IOException {
+        out.write("concept_id\tname\testimated_jaccard\tjaccard\n");
+        for (SimilarityIndex.Similar drugLike : similar) {
+            out.write(drugLike.conceptId());
+            out.write('\t');
+            out.write(drugLike.name() == null ? "NA" : drugLike.name());
+            out.write('\t');
+            out.write(Double.toString(drugLike.estimate()));
+            out.write('\t');
+            out.write(Double.toString(drugLike.jaccard()));
+            out.write('\n');
+        }
+    }
+}
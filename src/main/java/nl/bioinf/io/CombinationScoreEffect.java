@@ -18,6 +18,18 @@ public enum CombinationScoreEffect {
         return symbol;
     }
 
+    /**
+     * Combined score of the two drugs for one gene under this effect: the sum for
+     * enhancing and synergetic, the difference for opposing, NaN for unknown.
+     */
+    public float combine(float scoreDrug1, float scoreDrug2) {
+        return switch (this) {
+            case ENHANCING, SYNERGETISCH -> scoreDrug1 + scoreDrug2;
+            case OPPOSING -> scoreDrug1 - scoreDrug2;
+            case UNKNOWN -> Float.NaN;
+        };
+    }
+
     public static CombinationScoreEffect fromResult(String result) {
         if (result == null) return UNKNOWN;
         return switch (result.toLowerCase()) {
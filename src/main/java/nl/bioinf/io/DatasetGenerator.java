@@ -0,0 +1,334 @@
+package nl.bioinf.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Writes a synthetic {@code interactions.tsv} and {@code drugs.tsv} with the columns of a
+ * DGIdb download, for tests and benchmarks that cannot use licensed data. The same
+ * {@link Settings} always produce the same files.
+ *
+ * <p>The shape follows DGIdb:</p>
+ * <ul>
+ *     <li>the number of genes per drug is skewed: a few drugs have many genes, most have
+ *     a few ({@code drugSkew}); popular genes are hit by many drugs ({@code geneSkew})</li>
+ *     <li>a drug mostly has one interaction type, taken from the types of
+ *     {@code drug_combinations.tsv}; some rows have another type or none</li>
+ *     <li>a gene can be listed more than once for a drug, as when several sources report it</li>
+ *     <li>a score can be missing: blank, {@code NULL}, {@code NA} or {@code n/a}</li>
+ *     <li>every drug concept has one or more claim names in drugs.tsv</li>
+ *     <li>blank lines are scattered through the interactions file</li>
+ *     <li>optionally, rows cut off after a few columns; {@link ReadFiles} rejects the whole
+ *     file at the first one, so these test that error path</li>
+ * </ul>
+ * <p>Drug concept {@code i} is called {@link #drugName(int)} and has id {@link #conceptId(int)};
+ * its aliases are that name with a suffix. Without malformed rows both files load with
+ * {@link ReadFiles}: the interactions file has exactly {@code interactions} data rows.</p>
+ */
+public class DatasetGenerator {
+    private static final String INTERACTION_HEADER = "gene_claim_name\tgene_concept_id\tgene_name"
+            + "\tinteraction_source_db_name\tinteraction_source_db_version\tinteraction_type\tinteraction_score"
+            + "\tdrug_claim_name\tdrug_concept_id\tdrug_name\tapproved\tanti_neoplastic\timmunotherapy\n";
+    private static final String DRUG_HEADER = "drug_claim_name\tnomenclature\tconcept_id\tdrug_name\tapproved"
+            + "\timmunotherapy\tanti_neoplastic\tsource_db_name\tsource_db_version\n";
+    private static final String[] TYPES = {"inhibitor", "agonist", "antagonist", "activator", "blocker",
+            "modulator", "antibody", "binder", "inverse agonist", "positive modulator", "negative modulator",
+            "vaccine", "cleavage", "antisense oligonucleotide", "immunotherapy", "Potentiator"};
+    private static final String[] MISSING_SCORES = {"", "NULL", "NA", "n/a"};
+    private static final String[] SOURCES = {"SynDB", "SynChem", "SynTrials"};
+    /** Share of rows whose type differs from the drug's type; half of them have no type. */
+    private static final double OTHER_TYPE_RATE = 0.1;
+
+    /**
+     * What to generate.
+     *
+     * @param seed              seed of the random generator
+     * @param interactions      data rows in interactions.tsv, at least one per drug
+     * @param drugs             drug concepts
+     * @param genes             genes to choose from
+     * @param drugSkew          skew of the genes per drug: 0 gives every drug as many genes, higher
+     *                          values give a few drugs most of the rows
+     * @param geneSkew          skew of the gene popularity, 0 picks every gene equally often
+     * @param aliasesPerDrug    average number of claim names per drug besides its own name
+     * @param duplicateGeneRate share of rows that repeat a gene the drug already has
+     * @param missingScoreRate  share of rows without a usable score
+     * @param blankLineRate     blank lines per data row in the interactions file
+     * @param malformedRowRate  malformed rows (too few columns) per data row in the interactions
+     *                          file, written in addition to the data rows
+     */
+    public record Settings(long seed, int interactions, int drugs, int genes,
+                           double drugSkew, double geneSkew, double aliasesPerDrug,
+                           double duplicateGeneRate, double missingScoreRate, double blankLineRate,
+                           double malformedRowRate) {
+        /** Roughly the size and shape of the DGIdb 5 interactions and drugs files, without malformed rows. */
+        public static final Settings DGIDB = new Settings(42, 90_000, 10_000, 4_000,
+                0.7, 0.8, 3.0, 0.05, 0.25, 0.001, 0);
+
+        public Settings {
+            if (drugs < 1 || genes < 1) {
+                throw new IllegalArgumentException("ERROR: Need at least one drug and one gene.");
+            }
+            if (interactions < drugs) {
+                throw new IllegalArgumentException("ERROR: Need at least one interaction per drug ("
+                        + interactions + " interactions for " + drugs + " drugs).");
+            }
+            if (drugSkew < 0 || geneSkew < 0 || aliasesPerDrug < 0 || blankLineRate < 0) {
+                throw new IllegalArgumentException("ERROR: Skews, aliases and blank lines cannot be negative.");
+            }
+            if (!isRate(duplicateGeneRate) || !isRate(missingScoreRate) || !isRate(malformedRowRate)) {
+                throw new IllegalArgumentException("ERROR: Rates must be between 0 and 1.");
+            }
+        }
+
+        private static boolean isRate(double rate) {
+            return rate >= 0 && rate <= 1;
+        }
+
+        /** These settings with the row, drug and gene counts multiplied by {@code factor}. */
+        public Settings scaled(double factor) {
+            return new Settings(seed, (int) Math.round(interactions * factor), (int) Math.round(drugs * factor),
+                    Math.max(1, (int) Math.round(genes * factor)), drugSkew, geneSkew, aliasesPerDrug,
+                    duplicateGeneRate, missingScoreRate, blankLineRate, malformedRowRate);
+        }
+
+        public Settings withSeed(long seed) {
+            return new Settings(seed, interactions, drugs, genes, drugSkew, geneSkew, aliasesPerDrug,
+                    duplicateGeneRate, missingScoreRate, blankLineRate, malformedRowRate);
+        }
+
+        public Settings withMalformedRowRate(double malformedRowRate) {
+            return new Settings(seed, interactions, drugs, genes, drugSkew, geneSkew, aliasesPerDrug,
+                    duplicateGeneRate, missingScoreRate, blankLineRate, malformedRowRate);
+        }
+    }
+
+    /**
+     * What was written.
+     *
+     * @param interactions       data rows in interactions.tsv, not counting malformed rows
+     * @param drugNames          data rows in drugs.tsv
+     * @param malformedRows      malformed rows in interactions.tsv
+     * @param firstMalformedLine line number, counted from 1 with the header, of the first
+     *                           malformed row, or -1 if there is none
+     */
+    public record Written(long interactions, long drugNames, long malformedRows, long firstMalformedLine) {}
+
+    private final Settings settings;
+
+    public DatasetGenerator(Settings settings) {
+        this.settings = settings;
+    }
+
+    public static String drugName(int drug) {
+        return "drug" + drug;
+    }
+
+    public static String conceptId(int drug) {
+        return "syn:" + drug;
+    }
+
+    static String geneName(int gene) {
+        return "GENE" + gene;
+    }
+
+    /**
+     * Writes {@code interactions.tsv} and {@code drugs.tsv} into a directory, replacing them
+     * if they exist. Rows are generated and written one by one; memory use depends on the
+     * number of drugs and genes, not on the number of rows.
+     *
+     * @param directory an existing directory
+     * @return the number of rows written
+     */
+    public Written write(Path directory) throws IOException {
+        SplittableRandom random = new SplittableRandom(settings.seed());
+        int[] rowsPerDrug = rowsPerDrug(random);
+        double[] genePopularity = cumulativeWeights(settings.genes(), settings.geneSkew());
+        int[] drugOrder = shuffled(settings.drugs(), random);
+
+        long interactionRows = 0;
+        long malformedRows = 0;
+        long firstMalformedLine = -1;
+        long line = 1;
+        try (Writer out = TextReportWriter.open(directory.resolve("interactions.tsv"), false)) {
+            out.write(INTERACTION_HEADER);
+            int[] drugGenes = new int[0];
+            Set<Integer> seen = new HashSet<>();
+            for (int drug : drugOrder) {
+                int rows = rowsPerDrug[drug];
+                if (drugGenes.length < rows) drugGenes = new int[rows];
+                String type = TYPES[random.nextInt(TYPES.length)];
+                String approved = random.nextInt(4) == 0 ? "True" : "False";
+                seen.clear();
+                int distinct = 0;
+                for (int row = 0; row < rows; row++) {
+                    int gene;
+                    if (distinct > 0 && (random.nextDouble() < settings.duplicateGeneRate() || seen.size() >= settings.genes())) {
+                        gene = drugGenes[random.nextInt(distinct)];
+                    } else {
+                        gene = newGene(genePopularity, seen, random);
+                        drugGenes[distinct++] = gene;
+                    }
+                    writeInteraction(out, random, drug, gene, rowType(type, random), approved);
+                    interactionRows++;
+                    line++;
+                    if (random.nextDouble() < settings.blankLineRate()) {
+                        out.write(random.nextBoolean() ? "\n" : " \t \n");
+                        line++;
+                    }
+                    // no draw at rate 0, so files without malformed rows stay as they were
+                    if (settings.malformedRowRate() > 0 && random.nextDouble() < settings.malformedRowRate()) {
+                        writeMalformed(out, random, gene);
+                        malformedRows++;
+                        line++;
+                        if (firstMalformedLine < 0) firstMalformedLine = line;
+                    }
+                }
+            }
+        }
+
+        long drugRows = 0;
+        try (Writer out = TextReportWriter.open(directory.resolve("drugs.tsv"), false)) {
+            out.write(DRUG_HEADER);
+            for (int drug : drugOrder) {
+                writeDrug(out, drugName(drug), "Primary Name", drug);
+                drugRows++;
+                int aliases = (int) settings.aliasesPerDrug();
+                if (random.nextDouble() < settings.aliasesPerDrug() - aliases) aliases++;
+                for (int alias = 1; alias <= aliases; alias++) {
+                    String name = alias % 2 == 0 ? drugName(drug).toUpperCase(Locale.ROOT) + "-" + alias : drugName(drug) + "-" + alias;
+                    writeDrug(out, name, "Synonym", drug);
+                    drugRows++;
+                }
+            }
+        }
+        return new Written(interactionRows, drugRows, malformedRows, firstMalformedLine);
+    }
+
+    /**
+     * Splits the rows over the drugs in proportion to a power law of a random rank, with
+     * at least one row per drug and exactly {@code interactions} rows in total.
+     */
+    private int[] rowsPerDrug(SplittableRandom random) {
+        int drugs = settings.drugs();
+        int[] rank = shuffled(drugs, random);
+        double[] weights = new double[drugs];
+        double total = 0;
+        for (int drug = 0; drug < drugs; drug++) {
+            weights[drug] = Math.pow(rank[drug] + 1, -settings.drugSkew());
+            total += weights[drug];
+        }
+        int spare = settings.interactions() - drugs;
+        int[] rows = new int[drugs];
+        long assigned = 0;
+        for (int drug = 0; drug < drugs; drug++) {
+            rows[drug] = 1 + (int) (spare * weights[drug] / total);
+            assigned += rows[drug];
+        }
+        // rounding left a few rows over, hand them out at random
+        for (long left = settings.interactions() - assigned; left > 0; left--) {
+            rows[random.nextInt(drugs)]++;
+        }
+        return rows;
+    }
+
+    /** Running sums of power-law weights for sampling by binary search; index 0 is the heaviest. */
+    private static double[] cumulativeWeights(int count, double skew) {
+        double[] cumulative = new double[count];
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += Math.pow(i + 1, -skew);
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+
+    /** A gene the drug does not have yet, popular genes first. */
+    private static int newGene(double[] popularity, Set<Integer> seen, SplittableRandom random) {
+        double total = popularity[popularity.length - 1];
+        for (int attempt = 0; attempt < 32; attempt++) {
+            int index = Arrays.binarySearch(popularity, random.nextDouble() * total);
+            int gene = index < 0 ? -index - 1 : index;
+            if (seen.add(gene)) return gene;
+        }
+        // the drug has most of the popular genes, take the next free one
+        int gene = random.nextInt(popularity.length);
+        while (!seen.add(gene)) gene = (gene + 1) % popularity.length;
+        return gene;
+    }
+
+    private static String rowType(String drugType, SplittableRandom random) {
+        if (random.nextDouble() >= OTHER_TYPE_RATE) return drugType;
+        return random.nextBoolean() ? "" : TYPES[random.nextInt(TYPES.length)];
+    }
+
+    private void writeInteraction(Writer out, SplittableRandom random, int drug, int gene, String type,
+                                  String approved) throws IOException {
+        String score = random.nextDouble() < settings.missingScoreRate()
+                ? MISSING_SCORES[random.nextInt(MISSING_SCORES.length)]
+                // DGIdb scores are spread over orders of magnitude, most of them below 1
+                : Float.toString((float) Math.exp(random.nextGaussian() * 1.5 - 1.5));
+        String geneName = geneName(gene);
+        out.write(geneName);
+        out.write("\thgnc:");
+        out.write(Integer.toString(gene));
+        out.write('\t');
+        out.write(geneName);
+        out.write('\t');
+        out.write(SOURCES[random.nextInt(SOURCES.length)]);
+        out.write("\t1\t");
+        out.write(type);
+        out.write('\t');
+        out.write(score);
+        out.write('\t');
+        out.write(drugName(drug));
+        out.write('\t');
+        out.write(conceptId(drug));
+        out.write('\t');
+        out.write(drugName(drug).toUpperCase(Locale.ROOT));
+        out.write('\t');
+        out.write(approved);
+        out.write("\tFalse\tFalse\n");
+    }
+
+    /** A row cut off before the interaction type, as left by a truncated or hand-edited file. */
+    private static void writeMalformed(Writer out, SplittableRandom random, int gene) throws IOException {
+        String geneName = geneName(gene);
+        out.write(geneName);
+        out.write("\thgnc:");
+        out.write(Integer.toString(gene));
+        if (random.nextBoolean()) {
+            out.write('\t');
+            out.write(geneName);
+        }
+        out.write('\n');
+    }
+
+    private static void writeDrug(Writer out, String name, String nomenclature, int drug) throws IOException {
+        out.write(name);
+        out.write('\t');
+        out.write(nomenclature);
+        out.write('\t');
+        out.write(conceptId(drug));
+        out.write('\t');
+        out.write(drugName(drug).toUpperCase(Locale.ROOT));
+        out.write("\tFalse\tFalse\tFalse\tSynDB\t1\n");
+    }
+
+    private static int[] shuffled(int count, SplittableRandom random) {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,191 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionEngine;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Loads the dataset again when its files change, or when asked, and hands the new engine
+ * to the server. Loading runs on its own background thread while the old engine keeps
+ * answering queries; the new engine replaces it in one step, and queries that already
+ * started finish on the old one. Until the old engine is no longer used both datasets are
+ * in memory, so every reload reports the peak heap use.
+ * <p>
+ * Watching waits until the files have been quiet for a moment before loading, because a
+ * large file is written in many steps. A file that is still being written can fail to
+ * load; the old dataset is then kept. Replacing the files by moving finished copies into
+ * place avoids that. A reload that is asked for while another one runs is done after it,
+ * and asking again before that reload started does not add a third.
+ */
+public class DatasetReloader implements AutoCloseable {
+    /** Milliseconds without changes to the watched files before a reload starts. */
+    static final long DEFAULT_QUIET_MILLIS = 2_000;
+
+    private final Supplier<InteractionEngine> loader;
+    private final Consumer<InteractionEngine> target;
+    private final long quietMillis;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "dataset-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** The reload that is queued but has not started yet. Guarded by {@code this}. */
+    private CompletableFuture<Reload> queued;
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * Heap use of one reload.
+     *
+     * @param nanos           time it took to load the new dataset and swap it in
+     * @param heapBeforeBytes heap in use when the reload started, with the old dataset
+     * @param peakHeapBytes   highest heap use during the reload, the sum of the peaks of the heap pools
+     * @param heapAfterBytes  heap in use right after the swap, before the old dataset is collected
+     */
+    public record Reload(long nanos, long heapBeforeBytes, long peakHeapBytes, long heapAfterBytes) {}
+
+    /**
+     * @param loader loads the dataset and builds a new engine, on the reload thread
+     * @param target receives every new engine, for example {@link QueryServer#ready(InteractionEngine)}
+     */
+    public DatasetReloader(Supplier<InteractionEngine> loader, Consumer<InteractionEngine> target) {
+        this(loader, target, DEFAULT_QUIET_MILLIS);
+    }
+
+    DatasetReloader(Supplier<InteractionEngine> loader, Consumer<InteractionEngine> target, long quietMillis) {
+        this.loader = loader;
+        this.target = target;
+        this.quietMillis = quietMillis;
+    }
+
+    /**
+     * Loads the dataset again in the background.
+     *
+     * @return completes when the new engine is in use, or exceptionally if loading failed
+     */
+    public synchronized CompletableFuture<Reload> reload() {
+        if (queued != null) return queued;
+        CompletableFuture<Reload> reload = new CompletableFuture<>();
+        queued = reload;
+        executor.execute(() -> {
+            synchronized (this) {
+                if (queued == reload) queued = null;
+            }
+            try {
+                reload.complete(load());
+            } catch (RuntimeException | OutOfMemoryError e) {
+                System.err.println("ERROR: Reloading the dataset failed, the previous dataset stays in use: "
+                        + e.getMessage());
+                reload.completeExceptionally(e);
+            }
+        });
+        return reload;
+    }
+
+    private Reload load() {
+        List<MemoryPoolMXBean> heap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+                .toList();
+        heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long before = heapUsed();
+        long start = System.nanoTime();
+
+        target.accept(loader.get());
+
+        long nanos = System.nanoTime() - start;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heap) peak += pool.getPeakUsage().getUsed();
+        Reload reload = new Reload(nanos, before, Math.max(peak, before), heapUsed());
+        System.out.printf(" Dataset reloaded in %.1f s; heap %d MB before, peak %d MB, %d MB after the swap%n",
+                nanos / 1e9, megabytes(reload.heapBeforeBytes()), megabytes(reload.peakHeapBytes()),
+                megabytes(reload.heapAfterBytes()));
+        return reload;
+    }
+
+    /**
+     * Starts watching the dataset files and reloads after they change.
+     *
+     * @param files the files the dataset is loaded from
+     */
+    public synchronized void watch(List<Path> files) throws IOException {
+        if (watcher != null) throw new IllegalStateException("Already watching");
+        watchService = FileSystems.getDefault().newWatchService();
+        Set<Path> names = new HashSet<>();
+        Set<Path> directories = new HashSet<>();
+        for (Path file : files) {
+            Path absolute = file.toAbsolutePath();
+            names.add(absolute.getFileName());
+            if (directories.add(absolute.getParent())) {
+                absolute.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        }
+        WatchService service = watchService;
+        watcher = new Thread(() -> watchLoop(service, names), "dataset-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /** Waits for changes to the files and reloads once they have been quiet for {@link #quietMillis}. */
+    private void watchLoop(WatchService service, Set<Path> names) {
+        boolean changed = false;
+        try {
+            while (true) {
+                WatchKey key = changed ? service.poll(quietMillis, TimeUnit.MILLISECONDS) : service.take();
+                if (key == null) {
+                    changed = false;
+                    reload();
+                    continue;
+                }
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || names.contains((Path) event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /** Stops watching; a reload that is running is abandoned. */
+    @Override
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // nothing left to release
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long megabytes(long bytes) {
+        return bytes >> 20;
+    }
+}
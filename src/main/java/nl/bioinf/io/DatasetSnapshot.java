@@ -0,0 +1,336 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionStore;
+import nl.bioinf.models.Combination;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes a compiled, binary snapshot of the DGIdb input files, so later runs
+ * can skip parsing the TSV files.
+ *
+ * <p>Layout of a snapshot file:</p>
+ * <ul>
+ *     <li>header: magic, format version and the fingerprints of the source files
+ *     and of the bundled <code>drug_combinations.tsv</code></li>
+ *     <li>payload: one string dictionary, the interactions grouped by concept id
+ *     (gene and type as dictionary references, the score as a parsed float, NaN when missing),
+ *     the drug aliases and the combination table</li>
+ *     <li>trailer: CRC32 checksum of the payload</li>
+ * </ul>
+ *
+ * <p>Reading maps the file into memory; a snapshot with a different version, a bad
+ * checksum or source files that changed since it was compiled is rejected. The header is
+ * not covered by the checksum, so every length in it is checked against the size of the
+ * file before it is used; a damaged header is rejected as corrupt like a damaged payload.</p>
+ *
+ * <p>A source file counts as changed when its size or modification time differs from
+ * when the snapshot was compiled; its contents are not read again. A tool that rewrites
+ * a file in place with the same size and keeps its modification time is therefore not
+ * noticed. When a source file no longer exists, the snapshot is used with a warning.</p>
+ */
+public class DatasetSnapshot {
+    private static final long MAGIC = 0x4447_4944_4253_4e50L; // "DGIDBSNP"
+    static final int VERSION = 1;
+
+    /** Size, modification time and path of a source file when the snapshot was compiled. */
+    public record SourceFingerprint(String path, long size, long lastModified) {
+        public static SourceFingerprint of(File file) {
+            return new SourceFingerprint(file.getAbsolutePath(), file.length(), file.lastModified());
+        }
+
+        boolean matches(File file) {
+            return file.length() == size && file.lastModified() == lastModified;
+        }
+    }
+
+    /** The contents of a snapshot, with the interactions loaded straight into columns. */
+    public record Contents(
+            InteractionStore interactions,
+            List<Drug> drugs,
+            List<Combination> combinations
+    ) {}
+
+    private DatasetSnapshot() {}
+
+    /**
+     * Writes a snapshot. The file is first written next to the target and then moved
+     * into place, so a failed compile never leaves a half-written snapshot behind.
+     *
+     * @param target           the snapshot file to write
+     * @param interactionsFile the interactions file the data was read from
+     * @param drugsFile        the drugs file the data was read from
+     * @param interactions     the parsed interactions
+     * @param drugs            the parsed drugs
+     * @param combinations     the parsed combination table
+     */
+    public static void write(Path target, File interactionsFile, File drugsFile,
+                             List<Interaction> interactions, List<Drug> drugs, List<Combination> combinations) {
+        write(target, interactionsFile, drugsFile, InteractionStore.of(interactions), drugs, combinations);
+    }
+
+    /**
+     * Writes a snapshot of interactions that are already in columns, see
+     * {@link #write(Path, File, File, List, List, List)}. The store keeps the concepts in
+     * the order they were first seen, so both give the same file.
+     */
+    public static void write(Path target, File interactionsFile, File drugsFile,
+                             InteractionStore interactions, List<Drug> drugs, List<Combination> combinations) {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            StringTable strings = new StringTable();
+
+            try (OutputStream file = Files.newOutputStream(temp)) {
+                DataOutputStream header = new DataOutputStream(file);
+                header.writeLong(MAGIC);
+                header.writeInt(VERSION);
+                writeFingerprint(header, SourceFingerprint.of(interactionsFile));
+                writeFingerprint(header, SourceFingerprint.of(drugsFile));
+                header.writeLong(combinationsChecksum());
+                header.flush();
+
+                CRC32 crc = new CRC32();
+                DataOutputStream payload = new DataOutputStream(
+                        new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+
+                // dictionary first, so the reader can resolve references in one pass
+                for (int concept = 0; concept < interactions.conceptCount(); concept++) {
+                    strings.add(interactions.conceptId(concept));
+                    for (int row = interactions.start(concept); row < interactions.end(concept); row++) {
+                        strings.add(interactions.genes().name(interactions.gene(row)));
+                        strings.add(interactions.typeName(interactions.type(row)));
+                    }
+                }
+                drugs.forEach(drug -> {
+                    strings.add(drug.drugClaimName());
+                    strings.add(drug.conceptId());
+                });
+                combinations.forEach(combination -> {
+                    strings.add(combination.drugType1());
+                    strings.add(combination.drugType2());
+                    strings.add(combination.resultaat());
+                });
+                payload.writeInt(strings.values.size());
+                for (String value : strings.values) writeString(payload, value);
+
+                payload.writeInt(interactions.conceptCount());
+                for (int concept = 0; concept < interactions.conceptCount(); concept++) {
+                    payload.writeInt(strings.ref(interactions.conceptId(concept)));
+                    payload.writeInt(interactions.end(concept) - interactions.start(concept));
+                    for (int row = interactions.start(concept); row < interactions.end(concept); row++) {
+                        payload.writeInt(strings.ref(interactions.genes().name(interactions.gene(row))));
+                        payload.writeInt(strings.ref(interactions.typeName(interactions.type(row))));
+                        payload.writeFloat(interactions.score(row));
+                    }
+                }
+
+                payload.writeInt(drugs.size());
+                for (Drug drug : drugs) {
+                    payload.writeInt(strings.ref(drug.drugClaimName()));
+                    payload.writeInt(strings.ref(drug.conceptId()));
+                }
+
+                payload.writeInt(combinations.size());
+                for (Combination combination : combinations) {
+                    payload.writeInt(strings.ref(combination.drugType1()));
+                    payload.writeInt(strings.ref(combination.drugType2()));
+                    payload.writeInt(strings.ref(combination.resultaat()));
+                }
+                payload.flush();
+
+                DataOutputStream trailer = new DataOutputStream(file);
+                trailer.writeLong(crc.getValue());
+                trailer.flush();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing snapshot: " + target, e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // best effort, the temp file is only left behind if the move already failed
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot by mapping it into memory.
+     *
+     * @param snapshot the snapshot file
+     * @return the dataset stored in the snapshot
+     * @throws IllegalArgumentException if the file is not a snapshot, has another version,
+     *                                  is corrupt, or its source files changed since it was compiled
+     */
+    public static Contents read(Path snapshot) {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Snapshot is too large to map: " + snapshot);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (size < Long.BYTES + Integer.BYTES || buffer.getLong() != MAGIC) {
+                throw new IllegalArgumentException("Not a snapshot file: " + snapshot);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot version " + version
+                        + " (expected " + VERSION + "), please compile it again: " + snapshot);
+            }
+            checkSource(readFingerprint(buffer, snapshot), "Interactions file", snapshot);
+            checkSource(readFingerprint(buffer, snapshot), "Drugs file", snapshot);
+            requireHeader(buffer, Long.BYTES, snapshot);
+            if (buffer.getLong() != combinationsChecksum()) {
+                throw new IllegalArgumentException("Snapshot is out of date, " + ReadFiles.COMBINATIONS_RESOURCE
+                        + " changed since it was compiled: " + snapshot);
+            }
+
+            int payloadStart = buffer.position();
+            int payloadEnd = (int) size - Long.BYTES;
+            if (payloadEnd < payloadStart) {
+                throw new IllegalArgumentException("Snapshot is truncated: " + snapshot);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(payloadStart, payloadEnd - payloadStart));
+            if (crc.getValue() != buffer.getLong(payloadEnd)) {
+                throw new IllegalArgumentException("Snapshot checksum mismatch, the file is corrupt: " + snapshot);
+            }
+
+            String[] strings = new String[buffer.getInt()];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < strings.length; i++) {
+                int length = buffer.getInt();
+                if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+                buffer.get(scratch, 0, length);
+                strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+
+            int conceptCount = buffer.getInt();
+            InteractionStore.Builder interactions = InteractionStore.builder();
+            for (int c = 0; c < conceptCount; c++) {
+                String conceptId = strings[buffer.getInt()];
+                int rows = buffer.getInt();
+                for (int i = 0; i < rows; i++) {
+                    String gene = strings[buffer.getInt()];
+                    String type = strings[buffer.getInt()];
+                    interactions.add(conceptId, gene, type, buffer.getFloat());
+                }
+            }
+
+            Drug[] drugs = new Drug[buffer.getInt()];
+            for (int i = 0; i < drugs.length; i++) {
+                drugs[i] = new Drug(strings[buffer.getInt()], strings[buffer.getInt()]);
+            }
+
+            Combination[] combinations = new Combination[buffer.getInt()];
+            for (int i = 0; i < combinations.length; i++) {
+                combinations[i] = new Combination(strings[buffer.getInt()], strings[buffer.getInt()], strings[buffer.getInt()]);
+            }
+
+            return new Contents(interactions.build(), List.of(drugs), List.of(combinations));
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading snapshot: " + snapshot, e);
+        }
+    }
+
+    /**
+     * A source file that no longer exists cannot be checked, the snapshot is then the only
+     * copy of the data and is used with a warning. A source file that still exists must be
+     * unchanged.
+     */
+    private static void checkSource(SourceFingerprint fingerprint, String label, Path snapshot) {
+        File source = new File(fingerprint.path());
+        if (!source.isFile()) {
+            System.err.println("WARNING: " + label + " of snapshot " + snapshot + " no longer exists, "
+                    + "so it cannot be checked for changes: " + fingerprint.path());
+            return;
+        }
+        if (!fingerprint.matches(source)) {
+            throw new IllegalArgumentException("Snapshot is out of date, " + label.toLowerCase()
+                    + " changed since it was compiled: " + fingerprint.path()
+                    + ". Please compile " + snapshot + " again.");
+        }
+    }
+
+    /** CRC32 of the bundled <code>drug_combinations.tsv</code> resource. */
+    static long combinationsChecksum() {
+        try (InputStream in = Thread.currentThread().getContextClassLoader()
+                .getResourceAsStream(ReadFiles.COMBINATIONS_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Resource not found: " + ReadFiles.COMBINATIONS_RESOURCE);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(in.readAllBytes());
+            return crc.getValue();
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading resource: " + ReadFiles.COMBINATIONS_RESOURCE, e);
+        }
+    }
+
+    private static void writeFingerprint(DataOutputStream out, SourceFingerprint fingerprint) throws IOException {
+        writeString(out, fingerprint.path());
+        out.writeLong(fingerprint.size());
+        out.writeLong(fingerprint.lastModified());
+    }
+
+    private static SourceFingerprint readFingerprint(ByteBuffer buffer, Path snapshot) {
+        requireHeader(buffer, Integer.BYTES, snapshot);
+        int length = buffer.getInt();
+        if (length < 0) throw corruptHeader(snapshot);
+        requireHeader(buffer, (long) length + 2 * Long.BYTES, snapshot);
+        byte[] path = new byte[length];
+        buffer.get(path);
+        return new SourceFingerprint(new String(path, StandardCharsets.UTF_8), buffer.getLong(), buffer.getLong());
+    }
+
+    /** Rejects the snapshot when fewer than {@code bytes} bytes are left to read. */
+    private static void requireHeader(ByteBuffer buffer, long bytes, Path snapshot) {
+        if (bytes > buffer.remaining()) throw corruptHeader(snapshot);
+    }
+
+    private static IllegalArgumentException corruptHeader(Path snapshot) {
+        return new IllegalArgumentException("Snapshot header is corrupt, please compile it again: " + snapshot);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Assigns every distinct string a reference number in insertion order. */
+    private static final class StringTable {
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        void add(String value) {
+            if (refs.putIfAbsent(value, values.size()) == null) values.add(value);
+        }
+
+        int ref(String value) {
+            return refs.get(value);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionChecker;
+import nl.bioinf.logic.PairAnalysis;
+import nl.bioinf.logic.PairCache;
+import nl.bioinf.logic.PartnerIndex;
+import nl.bioinf.logic.Profiler;
+import nl.bioinf.logic.SimilarityIndex;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes analysis results as JSON, straight to an {@link Appendable} so callers can
+ * stream into a response body or a file without building intermediate strings.
+ * Scores that are not a number are written as {@code null}.
+ */
+public final class JsonFormat {
+
+    private JsonFormat() {}
+
+    /**
+     * Writes one pair analysis as a single-line JSON object.
+     *
+     * @param out      where to write
+     * @param analysis the analysis to write
+     */
+    public static void writeAnalysis(Appendable out, PairAnalysis analysis) throws IOException {
+        out.append("{\"drug1\":");
+        string(out, analysis.firstDrug());
+        out.append(",\"drug2\":");
+        string(out, analysis.secondDrug());
+        out.append(",\"conceptId1\":");
+        string(out, analysis.firstConceptId());
+        out.append(",\"conceptId2\":");
+        string(out, analysis.secondConceptId());
+        out.append(",\"genesDrug1\":").append(Integer.toString(analysis.firstGeneCount()));
+        out.append(",\"genesDrug2\":").append(Integer.toString(analysis.secondGeneCount()));
+        out.append(",\"overlap\":[");
+        for (Iterator<String> genes = analysis.overlap().iterator(); genes.hasNext(); ) {
+            string(out, genes.next());
+            if (genes.hasNext()) out.append(',');
+        }
+        out.append("],\"typeDrug1\":");
+        string(out, analysis.firstType());
+        out.append(",\"typeDrug2\":");
+        string(out, analysis.secondType());
+        out.append(",\"combinationResult\":");
+        string(out, analysis.combinationResult());
+        out.append(",\"effect\":");
+        string(out, analysis.effect().name());
+        out.append(",\"totalCombinedScore\":");
+        number(out, analysis.totalCombinedScore());
+        out.append(",\"geneScores\":[");
+        for (Iterator<InteractionChecker.GeneScore> scores = analysis.geneScores().iterator(); scores.hasNext(); ) {
+            InteractionChecker.GeneScore score = scores.next();
+            out.append("{\"gene\":");
+            string(out, score.gene());
+            out.append(",\"scoreDrug1\":");
+            number(out, score.scoreDrug1());
+            out.append(",\"scoreDrug2\":");
+            number(out, score.scoreDrug2());
+            out.append(",\"combinedScore\":");
+            number(out, analysis.combinedScore(score));
+            out.append('}');
+            if (scores.hasNext()) out.append(',');
+        }
+        out.append("]}");
+    }
+
+    /**
+     * Writes the score of one overlapping gene of a pair as a single-line JSON object.
+     *
+     * @param out       where to write
+     * @param analysis  the analysis the gene belongs to
+     * @param geneScore one of the analysis' gene scores
+     */
+    public static void writeGeneScore(Appendable out, PairAnalysis analysis, InteractionChecker.GeneScore geneScore)
+            throws IOException {
+        out.append("{\"drug1\":");
+        string(out, analysis.firstDrug());
+        out.append(",\"drug2\":");
+        string(out, analysis.secondDrug());
+        out.append(",\"conceptId1\":");
+        string(out, analysis.firstConceptId());
+        out.append(",\"conceptId2\":");
+        string(out, analysis.secondConceptId());
+        out.append(",\"gene\":");
+        string(out, geneScore.gene());
+        out.append(",\"scoreDrug1\":");
+        number(out, geneScore.scoreDrug1());
+        out.append(",\"scoreDrug2\":");
+        number(out, geneScore.scoreDrug2());
+        out.append(",\"effect\":");
+        string(out, analysis.effect().name());
+        out.append(",\"combinedScore\":");
+        number(out, analysis.combinedScore(geneScore));
+        out.append('}');
+    }
+
+    /** Writes a pair that could not be analysed as a JSON object with the drugs and the error. */
+    public static void writeError(Appendable out, String firstDrug, String secondDrug, String message)
+            throws IOException {
+        out.append("{\"drug1\":");
+        string(out, firstDrug);
+        out.append(",\"drug2\":");
+        string(out, secondDrug);
+        out.append(",\"error\":");
+        string(out, message);
+        out.append('}');
+    }
+
+    /**
+     * Writes the phases of a {@code --profile} run as a JSON array with one object per phase.
+     * Figures the JVM could not measure, and the rate of a phase without counted items, are {@code null}.
+     *
+     * @param out    where to write
+     * @param phases the phases in the order they ran
+     */
+    public static void writeProfile(Appendable out, List<Profiler.Result> phases) throws IOException {
+        out.append('[');
+        for (Iterator<Profiler.Result> results = phases.iterator(); results.hasNext(); ) {
+            Profiler.Result phase = results.next();
+            out.append("{\"phase\":");
+            string(out, phase.name());
+            out.append(",\"runs\":").append(Integer.toString(phase.count()));
+            out.append(",\"wallMs\":").append(Double.toString(phase.wallNanos() / 1e6));
+            out.append(",\"cpuMs\":").append(phase.cpuNanos() < 0 ? "null" : Double.toString(phase.cpuNanos() / 1e6));
+            out.append(",\"allocatedBytes\":")
+                    .append(phase.allocatedBytes() < 0 ? "null" : Long.toString(phase.allocatedBytes()));
+            out.append(",\"items\":").append(Long.toString(phase.items()));
+            out.append(",\"itemsPerSecond\":")
+                    .append(phase.items() == 0 ? "null" : Double.toString(phase.itemsPerSecond()));
+            out.append('}');
+            if (results.hasNext()) out.append(',');
+        }
+        out.append(']');
+    }
+
+    /**
+     * Writes the top partners of a drug as a JSON object with the drug, the ranking and
+     * an array of partners, best first.
+     */
+    public static void writePartners(Appendable out, String drug, PartnerIndex.Ranking ranking,
+                                     List<PartnerIndex.Partner> partners) throws IOException {
+        out.append("{\"drug\":");
+        string(out, drug);
+        out.append(",\"rank\":");
+        string(out, ranking.name());
+        out.append(",\"partners\":[");
+        for (Iterator<PartnerIndex.Partner> it = partners.iterator(); it.hasNext(); ) {
+            PartnerIndex.Partner partner = it.next();
+            out.append("{\"conceptId\":");
+            string(out, partner.conceptId());
+            out.append(",\"name\":");
+            string(out, partner.name());
+            out.append(",\"sharedGenes\":").append(Integer.toString(partner.sharedGenes()));
+            out.append(",\"score\":");
+            number(out, partner.score());
+            out.append(",\"effect\":");
+            string(out, partner.effect().name());
+            out.append(",\"combinedScore\":");
+            number(out, partner.combinedScore());
+            out.append('}');
+            if (it.hasNext()) out.append(',');
+        }
+        out.append("]}");
+    }
+
+    /** Writes the drugs similar to one drug, with the error bounds of the search, as a JSON object. */
+    public static void writeSimilar(Appendable out, String drug, SimilarityIndex.Settings settings,
+                                    List<SimilarityIndex.Similar> similar) throws IOException {
+        out.append("{\"drug\":");
+        string(out, drug);
+        out.append(",\"threshold\":").append(Double.toString(settings.threshold()));
+        out.append(",\"error\":").append(Double.toString(settings.error()));
+        out.append(",\"failureRate\":").append(Double.toString(settings.failureRate()));
+        out.append(",\"similar\":[");
+        for (Iterator<SimilarityIndex.Similar> it = similar.iterator(); it.hasNext(); ) {
+            SimilarityIndex.Similar drugLike = it.next();
+            out.append("{\"conceptId\":");
+            string(out, drugLike.conceptId());
+            out.append(",\"name\":");
+            string(out, drugLike.name());
+            out.append(",\"estimate\":").append(Double.toString(drugLike.estimate()));
+            out.append(",\"jaccard\":").append(Double.toString(drugLike.jaccard()));
+            out.append('}');
+            if (it.hasNext()) out.append(',');
+        }
+        out.append("]}");
+    }
+
+    /** Writes the counters of a pair cache as a JSON object. */
+    public static void writeCacheStats(Appendable out, PairCache.Stats stats) throws IOException {
+        out.append("{\"hits\":").append(Long.toString(stats.hits()));
+        out.append(",\"misses\":").append(Long.toString(stats.misses()));
+        out.append(",\"coalesced\":").append(Long.toString(stats.coalesced()));
+        out.append(",\"evictions\":").append(Long.toString(stats.evictions()));
+        out.append(",\"entries\":").append(Integer.toString(stats.entries()));
+        out.append(",\"bytes\":").append(Long.toString(stats.bytes()));
+        out.append(",\"maxBytes\":").append(Long.toString(stats.maxBytes()));
+        out.append('}');
+    }
+
+    /** Writes the duration and heap use of a dataset reload as a JSON object. */
+    public static void writeReload(Appendable out, DatasetReloader.Reload reload) throws IOException {
+        out.append("{\"seconds\":").append(Double.toString(reload.nanos() / 1e9));
+        out.append(",\"heapBeforeBytes\":").append(Long.toString(reload.heapBeforeBytes()));
+        out.append(",\"peakHeapBytes\":").append(Long.toString(reload.peakHeapBytes()));
+        out.append(",\"heapAfterBytes\":").append(Long.toString(reload.heapAfterBytes()));
+        out.append('}');
+    }
+
+    /** A JSON object with a single {@code error} field. */
+    public static String error(String message) {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        try {
+            string(sb, message);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringBuilder does not throw
+        }
+        return sb.append('}').toString();
+    }
+
+    static void number(Appendable out, float value) throws IOException {
+        out.append(Float.isFinite(value) ? Float.toString(value) : "null");
+    }
+
+    static void string(Appendable out, String value) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,103 @@
+package nl.bioinf.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of a UTF-8 file. A line ends at {@code \n}, {@code \r} or {@code \r\n},
+ * as with {@link java.io.BufferedReader#readLine()}.
+ *
+ * <p>Unlike a {@code BufferedReader}, every line is decoded on its own: bytes that are not
+ * valid UTF-8 fail the line that holds them, and every line before it is returned first.
+ * A {@code BufferedReader} decodes ahead in blocks and fails up to a block early, so where
+ * it stops depends on its buffer. {@link MappedInteractionLoader} follows the same rules,
+ * so both loaders return the same rows and the same first error for any file.</p>
+ */
+final class LineReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private int position;
+    private int limit;
+    private byte[] line = new byte[256];
+    /** The last line ended with {@code \r}, so a {@code \n} right after it belongs to it. */
+    private boolean skipLineFeed;
+
+    LineReader(Path file) throws IOException {
+        this.in = Files.newInputStream(file);
+    }
+
+    /**
+     * Reads the next line, without its line end.
+     *
+     * @return the line, or {@code null} at the end of the file
+     * @throws CharacterCodingException if the line is not valid UTF-8
+     */
+    String readLine() throws IOException {
+        int length = 0;
+        boolean ascii = true;
+        boolean started = false;
+        while (true) {
+            if (position == limit && !fill()) {
+                return started ? decode(line, 0, length, ascii) : null;
+            }
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (buffer[position] == '\n') {
+                    position++;
+                    continue;
+                }
+            }
+            started = true;
+            byte[] bytes = buffer;
+            int from = position;
+            int end = from;
+            int bytesLimit = limit;
+            byte b = 0;
+            while (end < bytesLimit && (b = bytes[end]) != '\n' && b != '\r') {
+                ascii &= b >= 0;
+                end++;
+            }
+            position = end;
+            if (end < bytesLimit) {
+                position++;
+                skipLineFeed = b == '\r';
+                // most lines lie within the buffer and are decoded from it without a copy
+                if (length == 0) return decode(bytes, from, end - from, ascii);
+            }
+            int count = end - from;
+            if (length + count > line.length) line = Arrays.copyOf(line, Math.max(length + count, line.length * 2));
+            System.arraycopy(bytes, from, line, length, count);
+            length += count;
+            if (end < bytesLimit) return decode(line, 0, length, ascii);
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer);
+        if (read <= 0) return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private String decode(byte[] bytes, int from, int length, boolean ascii) throws CharacterCodingException {
+        if (ascii) return new String(bytes, from, length, StandardCharsets.ISO_8859_1);
+        return decoder.decode(ByteBuffer.wrap(bytes, from, length)).toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,305 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionStore;
+import nl.bioinf.logic.Scores;
+import nl.bioinf.models.Interaction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Loads the interactions TSV file in parallel. The file is memory-mapped with
+ * {@link FileChannel#map}, split into chunks that start and end on a line boundary,
+ * and every chunk is parsed on a {@link ForkJoinPool}.
+ *
+ * <p>The chunks are merged in file order, so the result is identical to
+ * {@link ReadFiles#processInteractions()}: same rows, same order, and the same
+ * "Malformed row ... at line N" message for the first bad row in the file.
+ * {@link #loadStore()} parses into columns instead of records, for the same rows.</p>
+ *
+ * <p>Lines are read by the rules of {@link java.io.BufferedReader#readLine()}, which the
+ * sequential reader uses: a line ends at {@code \n}, {@code \r} or {@code \r\n}. Bytes that
+ * are not valid UTF-8 fail the load with the same error as the sequential reader, at the
+ * first line that holds them, instead of being replaced.</p>
+ */
+class MappedInteractionLoader {
+    /** Chunks are never smaller than this, small files are not worth splitting. */
+    static final long MIN_CHUNK_SIZE = 1 << 20;
+    /** A single mapping must stay below 2 GB. */
+    private static final long MAX_CHUNK_SIZE = 1 << 28;
+    /** More chunks than threads, so a slow chunk does not leave the other threads idle. */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final File file;
+    private final int parallelism;
+    private final long minChunkSize;
+
+    MappedInteractionLoader(File file, int parallelism) {
+        this(file, parallelism, MIN_CHUNK_SIZE);
+    }
+
+    MappedInteractionLoader(File file, int parallelism, long minChunkSize) {
+        this.file = file;
+        this.parallelism = parallelism;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * A parsed chunk: its rows, how many there are, the number of lines it spans and the
+     * first malformed line (or -1). When a line is not valid UTF-8, parsing stops there and
+     * {@code encodingError} is set; the malformed line is then -1.
+     */
+    private record ChunkResult<C>(C rows, int rowCount, long lines, long malformedLine,
+                                  CharacterCodingException encodingError) {}
+
+    /**
+     * Parses the whole file into records.
+     *
+     * @return the interactions in file order
+     * @throws IllegalArgumentException if a header is missing, there are no data rows or a row is malformed
+     */
+    List<Interaction> load() {
+        List<Interaction> merged = new ArrayList<>();
+        load(ArrayList<Interaction>::new,
+                (rows, fields) -> rows.add(new Interaction(fields[0], fields[1], fields[2], fields[3])),
+                merged::addAll);
+        return merged;
+    }
+
+    /**
+     * Parses the whole file straight into columns: every chunk fills its own
+     * {@link InteractionStore.Builder} and the builders are merged in file order, so no
+     * {@link Interaction} records are made.
+     *
+     * @return the interactions, grouped per concept as in every {@link InteractionStore}
+     * @throws IllegalArgumentException if a header is missing, there are no data rows or a row is malformed
+     */
+    InteractionStore loadStore() {
+        InteractionStore.Builder store = InteractionStore.builder();
+        load(InteractionStore::builder,
+                (rows, fields) -> rows.add(fields[3], fields[0], fields[1], Scores.parse(fields[2])),
+                store::addAll);
+        return store.build();
+    }
+
+    /**
+     * Parses the chunks in parallel and hands them to {@code merge} in file order.
+     *
+     * @param newChunk makes the container of the rows of one chunk
+     * @param addRow   adds the fields of one row, in {@link ReadFiles#INTERACTION_COLUMNS} order, to a chunk
+     * @param merge    receives the chunks in file order
+     */
+    private <C> void load(Supplier<C> newChunk, BiConsumer<C, String[]> addRow, Consumer<C> merge) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            // header: first non-blank line
+            long position = 0;
+            long headerLines = 0;
+            String headerLine = null;
+            while (position < size && headerLine == null) {
+                long end = lineEnd(channel, position, size);
+                headerLines++;
+                String line = decode(ByteBuffer.wrap(readRange(channel, position, end)));
+                if (!ReadFiles.isBlankLine(line)) headerLine = line;
+                position = nextLine(channel, end, size);
+            }
+            if (headerLine == null) return;
+
+            String[] headers = ReadFiles.normalizeHeaders(headerLine);
+            int[] columns = new int[ReadFiles.INTERACTION_COLUMNS.length];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = ReadFiles.indexOf(headers, ReadFiles.INTERACTION_COLUMNS[i], file);
+            }
+            int[] slots = ReadFiles.slotsFor(columns);
+
+            List<long[]> chunks = split(channel, position, size);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                List<ForkJoinTask<ChunkResult<C>>> tasks = new ArrayList<>(chunks.size());
+                for (long[] chunk : chunks) {
+                    tasks.add(pool.submit(() -> parseChunk(channel, chunk[0], chunk[1], slots, newChunk.get(), addRow)));
+                }
+
+                // merge in file order, dropping every chunk once merged; line numbers are
+                // offsets from the end of the header
+                long lineOffset = headerLines;
+                long total = 0;
+                for (int i = 0; i < tasks.size(); i++) {
+                    ChunkResult<C> result = tasks.get(i).join();
+                    tasks.set(i, null);
+                    if (result.encodingError() != null) throw result.encodingError();
+                    if (result.malformedLine() >= 0) {
+                        throw ReadFiles.malformedRow(file, lineOffset + result.malformedLine());
+                    }
+                    lineOffset += result.lines();
+                    total += result.rowCount();
+                    merge.accept(result.rows());
+                }
+                if (total == 0) {
+                    throw new IllegalArgumentException("Interactions file has no data rows after header: " + file.getName());
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Splits {@code [start, size)} into ranges that each end just after a {@code \n} (or at
+     * EOF). A {@code \n} always ends a line, also as part of {@code \r\n}, so every range
+     * starts on a line of its own.
+     */
+    private List<long[]> split(FileChannel channel, long start, long size) throws IOException {
+        long target = (size - start) / ((long) parallelism * CHUNKS_PER_THREAD);
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(minChunkSize, target));
+
+        List<long[]> chunks = new ArrayList<>();
+        long from = start;
+        while (from < size) {
+            long to = from + chunkSize;
+            to = to >= size ? size : Math.min(newline(channel, to, size) + 1, size);
+            chunks.add(new long[]{from, to});
+            from = to;
+        }
+        return chunks;
+    }
+
+    /** Parses the lines of one chunk into {@code rows}. Line numbers in the result are relative to the chunk start. */
+    private static <C> ChunkResult<C> parseChunk(FileChannel channel, long from, long to, int[] slots,
+                                                 C rows, BiConsumer<C, String[]> addRow) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        int limit = buffer.limit();
+        int last = slots.length - 1;
+        String[] fields = new String[ReadFiles.INTERACTION_COLUMNS.length];
+        byte[] scratch = new byte[256];
+        int rowCount = 0;
+        long lines = 0;
+
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            boolean ascii = true;
+            for (byte b; lineEnd < limit && (b = buffer.get(lineEnd)) != '\n' && b != '\r'; lineEnd++) {
+                if (b < 0) ascii = false;
+            }
+            int next = lineEnd + 1;
+            if (lineEnd < limit && buffer.get(lineEnd) == '\r' && next < limit && buffer.get(next) == '\n') next++;
+            lines++;
+
+            if (!ascii) {
+                try {
+                    decoder.decode(buffer.slice(lineStart, lineEnd - lineStart));
+                } catch (CharacterCodingException e) {
+                    return new ChunkResult<>(rows, rowCount, lines, -1, e);
+                }
+            }
+            if (!isBlank(buffer, lineStart, lineEnd)) {
+                int column = 0;
+                int fieldStart = lineStart;
+                boolean complete = false;
+                for (int i = lineStart; i <= lineEnd; i++) {
+                    if (i < lineEnd && buffer.get(i) != '\t') continue;
+                    int slot = slots[column];
+                    if (slot >= 0) {
+                        int length = i - fieldStart;
+                        if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+                        buffer.get(fieldStart, scratch, 0, length);
+                        fields[slot] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                    }
+                    if (column == last) {
+                        complete = true;
+                        break;
+                    }
+                    column++;
+                    fieldStart = i + 1;
+                }
+                if (!complete) return new ChunkResult<>(rows, rowCount, lines, lines, null);
+                addRow.accept(rows, fields);
+                rowCount++;
+            }
+            lineStart = next;
+        }
+        return new ChunkResult<>(rows, rowCount, lines, -1, null);
+    }
+
+    /**
+     * {@link ReadFiles#isBlankLine} on the bytes of a line. ASCII bytes are checked in place;
+     * from the first non-ASCII byte on, the rest of the line is decoded and checked as a string.
+     */
+    private static boolean isBlank(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b < 0) {
+                byte[] rest = new byte[to - i];
+                buffer.get(i, rest);
+                return ReadFiles.isBlankLine(new String(rest, StandardCharsets.UTF_8));
+            }
+            if (!Character.isWhitespace(b)) return false;
+        }
+        return true;
+    }
+
+    /** Position of the first {@code \n} or {@code \r} at or after {@code position}, or {@code size} if there is none. */
+    private static long lineEnd(FileChannel channel, long position, long size) throws IOException {
+        return find(channel, position, size, true);
+    }
+
+    /** Position of the first {@code \n} at or after {@code position}, or {@code size} if there is none. */
+    private static long newline(FileChannel channel, long position, long size) throws IOException {
+        return find(channel, position, size, false);
+    }
+
+    private static long find(FileChannel channel, long position, long size, boolean orCarriageReturn) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        long offset = position;
+        while (offset < size) {
+            window.clear();
+            int read = channel.read(window, offset);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                byte b = window.get(i);
+                if (b == '\n' || (orCarriageReturn && b == '\r')) return offset + i;
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    /** Start of the line after the line ending at {@code end}; a {@code \r\n} counts as one line end. */
+    private static long nextLine(FileChannel channel, long end, long size) throws IOException {
+        if (end >= size) return size;
+        byte[] ending = readRange(channel, end, Math.min(end + 2, size));
+        return end + (ending[0] == '\r' && ending.length == 2 && ending[1] == '\n' ? 2 : 1);
+    }
+
+    private static byte[] readRange(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (to - from));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, from + bytes.position()) < 0) break;
+        }
+        return bytes.array();
+    }
+
+    /** Decodes UTF-8 and fails on invalid bytes, like the reader of the sequential loader. */
+    private static String decode(ByteBuffer bytes) throws CharacterCodingException {
+        return StandardCharsets.UTF_8.newDecoder().decode(bytes).toString();
+    }
+}
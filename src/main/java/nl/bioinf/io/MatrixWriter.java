@@ -0,0 +1,50 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionMatrix;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes an {@link InteractionMatrix} as a TSV file with one row per unordered drug pair:
+ * <pre>
+ * drug_1  drug_2  overlap  combination_effect  combined_score
+ * </pre>
+ * An unknown combined score is written as {@code NA}.
+ */
+public class MatrixWriter {
+    private final Path output;
+
+    public MatrixWriter(Path output) {
+        this.output = output;
+    }
+
+    public void write(InteractionMatrix matrix) {
+        List<String> drugs = matrix.drugs();
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write("drug_1\tdrug_2\toverlap\tcombination_effect\tcombined_score\n");
+            for (int i = 0; i < drugs.size(); i++) {
+                for (int j = i + 1; j < drugs.size(); j++) {
+                    float score = matrix.combinedScore(i, j);
+                    writer.write(drugs.get(i));
+                    writer.write('\t');
+                    writer.write(drugs.get(j));
+                    writer.write('\t');
+                    writer.write(Integer.toString(matrix.overlap(i, j)));
+                    writer.write('\t');
+                    writer.write(matrix.effect(i, j).name());
+                    writer.write('\t');
+                    writer.write(Float.isNaN(score) ? "NA" : Float.toString(score));
+                    writer.write('\n');
+                }
+            }
+            System.out.println(" Matrix successfully written to: " + output);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing matrix output to: " + output, e);
+        }
+    }
+}
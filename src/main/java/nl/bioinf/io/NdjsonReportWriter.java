@@ -0,0 +1,68 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionChecker.GeneScore;
+import nl.bioinf.logic.PairAnalysis;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+
+/**
+ * Streams analyses as newline-delimited JSON: one {@link JsonFormat} object per line, either
+ * one per pair or one per overlapping gene. A pair that could not be analysed becomes an
+ * object with {@code drug1}, {@code drug2} and {@code error}. In per-gene mode a pair
+ * without overlap writes no records.
+ */
+public class NdjsonReportWriter implements ReportWriter {
+    private final Writer writer;
+    private final boolean perGene;
+
+    /**
+     * @param output  the .ndjson file
+     * @param append  add to the end of an existing file instead of replacing it
+     * @param perGene one record per overlapping gene instead of one per pair
+     */
+    public NdjsonReportWriter(Path output, boolean append, boolean perGene) throws IOException {
+        this(TextReportWriter.open(output, append), perGene);
+    }
+
+    /** Writes the records into {@code writer}, see {@link ReportWriter#render}. */
+    NdjsonReportWriter(Writer writer, boolean perGene) {
+        this.writer = writer;
+        this.perGene = perGene;
+    }
+
+    /** Records carry the drug names, so headings are not written. */
+    @Override
+    public void heading(String title) {
+    }
+
+    @Override
+    public void write(PairAnalysis analysis) throws IOException {
+        if (!perGene) {
+            JsonFormat.writeAnalysis(writer, analysis);
+            writer.write('\n');
+            return;
+        }
+        for (GeneScore geneScore : analysis.geneScores()) {
+            JsonFormat.writeGeneScore(writer, analysis, geneScore);
+            writer.write('\n');
+        }
+    }
+
+    @Override
+    public void writeRendered(CharSequence records) throws IOException {
+        writer.append(records);
+    }
+
+    @Override
+    public void error(String firstDrug, String secondDrug, String message) throws IOException {
+        JsonFormat.writeError(writer, firstDrug, secondDrug, message);
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
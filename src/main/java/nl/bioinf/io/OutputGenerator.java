@@ -2,9 +2,9 @@ package nl.bioinf.io;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
+
+import nl.bioinf.logic.PairAnalysis;
 
 import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
@@ -13,41 +13,91 @@ import com.itextpdf.text.pdf.PdfWriter;
 
 /**
  * The {@code OutputGenerator} class is responsible for writing the program output
- * to a specified file. It supports both plain text (.txt) and PDF (.pdf) formats.
+ * to a specified file. It supports plain text (.txt) and PDF (.pdf) reports and
+ * machine-readable records (.ndjson and .tsv).
+ * A {@link PairAnalysis} is turned into text by a {@link ReportRenderer} only here,
+ * when the output is written.
  */
 
 public class OutputGenerator {
     private final Path output;
+    private final ReportRenderer renderer;
+    private final boolean append;
+    private final boolean perGene;
 
     public OutputGenerator(Path output) {
+        this(output, new TextReportRenderer());
+    }
+
+    public OutputGenerator(Path output, ReportRenderer renderer) {
+        this(output, renderer, false);
+    }
+
+    /**
+     * @param append add the report to the end of an existing .txt file instead of replacing it
+     */
+    public OutputGenerator(Path output, ReportRenderer renderer, boolean append) {
+        this(output, renderer, append, false);
+    }
+
+    /**
+     * @param append  add the report to the end of an existing .txt, .ndjson or .tsv file instead of replacing it
+     * @param perGene write one .ndjson or .tsv record per overlapping gene instead of one for the pair
+     */
+    public OutputGenerator(Path output, ReportRenderer renderer, boolean append, boolean perGene) {
         this.output = output;
+        this.renderer = renderer;
+        this.append = append;
+        this.perGene = perGene;
     }
 
+    /**
+     * Writes one analysis to the output file in the format of its extension, see
+     * {@link ReportWriter#open}. Text is rendered straight into the file through a
+     * fixed-size buffer, a PDF gets the section-by-section layout of {@link PdfReportWriter}
+     * and .ndjson and .tsv get records written from the analysis without any text report.
+     *
+     * @param analysis the structured result of one pair
+     */
+    public void generateOutput(PairAnalysis analysis) {
+        try (ReportWriter writer = ReportWriter.open(output, renderer, append, perGene)) {
+            writer.write(analysis);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing output to: " + output, e);
+        }
+        System.out.println(" Output successfully written to: " + output);
+    }
 
     public void generateOutput(StringBuilder stringBuilder) {
         String fileName = output.getFileName().toString().toLowerCase();
 
         if (fileName.endsWith(".txt")) {
-            generateTxt(stringBuilder);
+            writeTxt(writer -> writer.write(stringBuilder));
         } else if (fileName.endsWith(".pdf")) {
+            requireNoAppend();
             generatePdf(stringBuilder);
         } else {
             throw new IllegalArgumentException("Unsupported output format: " + fileName);
         }
     }
 
-    private void generateTxt(StringBuilder strBuilder) {
-        try {
-            List<String> lines;
-            try (var reader = new java.io.BufferedReader(new java.io.StringReader(strBuilder.toString()))) {
-                lines = reader.lines().toList();
-            }
+    private void requireNoAppend() {
+        if (append) {
+            throw new IllegalArgumentException("ERROR: Appending is not supported for .pdf output → " + output);
+        }
+    }
+
+    private interface TextOutput {
+        void writeTo(TextReportWriter writer) throws IOException;
+    }
 
-            Files.write(output, lines);
-            System.out.println(" Text file successfully written to: " + output);
+    private void writeTxt(TextOutput text) {
+        try (TextReportWriter writer = new TextReportWriter(output, append, renderer)) {
+            text.writeTo(writer);
         } catch (IOException e) {
             throw new RuntimeException("Error writing text output to: " + output, e);
         }
+        System.out.println(" Text file successfully written to: " + output);
     }
 
     private void generatePdf(StringBuilder stringBuilder) {
@@ -0,0 +1,85 @@
+package nl.bioinf.io;
+
+import nl.bioinf.models.DrugPair;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams drug pairs from a pairs file, one pair per line: the two drug names
+ * separated by a tab. Blank lines and lines starting with {@code #} are skipped.
+ * A line without a tab is returned as a pair with an {@link DrugPair#error() error}
+ * and the line as first drug, so one bad line does not stop a batch.
+ * Only the current line is held in memory.
+ *
+ * <pre>{@code
+ * try (PairsReader pairs = new PairsReader(new File("pairs.tsv"))) {
+ *     while (pairs.hasNext()) {
+ *         DrugPair pair = pairs.next();
+ *     }
+ * }
+ * }</pre>
+ */
+public class PairsReader implements Iterator<DrugPair>, Closeable {
+    private final File file;
+    private final BufferedReader reader;
+    private long lineNumber;
+    private DrugPair next;
+
+    public PairsReader(File file) {
+        if (file == null || !file.isFile()) {
+            throw new IllegalArgumentException("Pairs file not found: " + (file == null ? null : file.getAbsolutePath()));
+        }
+        this.file = file;
+        try {
+            this.reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) return true;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) continue;
+
+                int tab = line.indexOf('\t');
+                if (tab < 0) {
+                    next = new DrugPair(lineNumber, line.trim(), "", ReadFiles.malformedRow(file, lineNumber).getMessage());
+                    return true;
+                }
+                int end = line.indexOf('\t', tab + 1);
+                next = new DrugPair(lineNumber, line.substring(0, tab).trim(),
+                        line.substring(tab + 1, end < 0 ? line.length() : end).trim());
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading file: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    @Override
+    public DrugPair next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        DrugPair pair = next;
+        next = null;
+        return pair;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
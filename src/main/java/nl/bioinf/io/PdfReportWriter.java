@@ -0,0 +1,195 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionChecker.GeneScore;
+import nl.bioinf.logic.PairAnalysis;
+import nl.bioinf.logic.Scores;
+
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Streams pair reports into one PDF. Every pair gets a title, a few lines on the overlap
+ * and the combination result, and a table with the scores per overlapping gene.
+ * <p>
+ * Content is handed to iText element by element and iText writes each page to the file
+ * as soon as it is full, so memory use does not grow with the number of pairs. Large
+ * score tables are added in blocks of {@link #ROWS_PER_BLOCK} rows for the same reason.
+ * The fonts are created once and shared by all pages.
+ */
+public class PdfReportWriter implements ReportWriter {
+    /** Rows of a score table that are laid out and written at a time. */
+    static final int ROWS_PER_BLOCK = 200;
+
+    private static final Font TITLE = new Font(Font.FontFamily.HELVETICA, 13, Font.BOLD);
+    private static final Font SECTION = new Font(Font.FontFamily.HELVETICA, 10, Font.BOLD);
+    private static final Font TEXT = new Font(Font.FontFamily.HELVETICA, 9, Font.NORMAL);
+    private static final Font NOTE = new Font(Font.FontFamily.HELVETICA, 9, Font.ITALIC, BaseColor.GRAY);
+    private static final Font HEADER = new Font(Font.FontFamily.HELVETICA, 9, Font.BOLD);
+    private static final float[] SCORE_COLUMNS = {3, 2, 2, 3};
+
+    private final Path output;
+    private final Document document = new Document(PageSize.A4);
+    private final PdfWriter writer;
+    private boolean empty = true;
+    /** Whether the current entry already has a title, set by {@link #heading(String)}. */
+    private boolean titled;
+
+    /**
+     * Creates the PDF and opens it for writing.
+     *
+     * @param output the PDF file, replaced if it exists
+     */
+    public PdfReportWriter(Path output) throws IOException {
+        this.output = output;
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(output));
+        try {
+            this.writer = PdfWriter.getInstance(document, out);
+        } catch (DocumentException e) {
+            out.close();
+            throw new IOException("Cannot create PDF: " + output, e);
+        }
+        writer.setFullCompression();
+        document.open();
+    }
+
+    @Override
+    public void heading(String title) throws IOException {
+        add(title(title));
+        titled = true;
+    }
+
+    @Override
+    public void write(PairAnalysis analysis) throws IOException {
+        if (!titled) add(title(analysis.firstDrug() + " + " + analysis.secondDrug()));
+        titled = false;
+
+        ambiguityNote(analysis.firstDrug(), analysis.firstCandidates(), analysis.firstConceptId());
+        ambiguityNote(analysis.secondDrug(), analysis.secondCandidates(), analysis.secondConceptId());
+        add(new Paragraph("Genes influenced by " + analysis.firstDrug() + ": " + analysis.firstGeneCount()
+                + ", by " + analysis.secondDrug() + ": " + analysis.secondGeneCount(), TEXT));
+
+        if (!analysis.hasOverlap()) {
+            add(new Paragraph("No overlap found.", TEXT));
+            return;
+        }
+        add(new Paragraph(analysis.firstDrug() + " type: " + analysis.firstType()
+                + ", " + analysis.secondDrug() + " type: " + analysis.secondType(), TEXT));
+        add(new Paragraph(analysis.combinationInTable()
+                ? "Combination result: " + analysis.combinationResult()
+                : "Combination result is unknown", TEXT));
+
+        Paragraph scores = new Paragraph("Overlapping genes: " + analysis.overlap().size(), SECTION);
+        scores.setSpacingBefore(4);
+        add(scores);
+        scoreTable(analysis);
+        add(new Paragraph("Total combined score: " + Scores.format(analysis.totalCombinedScore()), TEXT));
+    }
+
+    /** PDF pages are laid out as they are written, so there is no text rendered beforehand to add. */
+    @Override
+    public void writeRendered(CharSequence report) {
+        throw new UnsupportedOperationException("PDF reports cannot be rendered ahead of writing.");
+    }
+
+    @Override
+    public void error(String firstDrug, String secondDrug, String message) throws IOException {
+        if (!titled) add(title(firstDrug + " + " + secondDrug));
+        titled = false;
+        add(new Paragraph(message, TEXT));
+    }
+
+    private void ambiguityNote(String drug, List<String> candidates, String used) throws IOException {
+        if (candidates.size() > 1) {
+            add(new Paragraph("Note: " + drug + " matches several drugs " + candidates + "; using " + used, NOTE));
+        }
+    }
+
+    /**
+     * One row per overlapping gene. The table is marked incomplete so that iText lays out
+     * and writes the rows of every block, instead of keeping the whole table until the end.
+     */
+    private void scoreTable(PairAnalysis analysis) throws IOException {
+        PdfPTable table = new PdfPTable(SCORE_COLUMNS);
+        table.setWidthPercentage(100);
+        table.setHeaderRows(1);
+        table.setSpacingBefore(4);
+        table.setSpacingAfter(4);
+        table.setComplete(false);
+        headerCell(table, "Gene");
+        headerCell(table, analysis.firstDrug());
+        headerCell(table, analysis.secondDrug());
+        headerCell(table, "Combined (" + analysis.effect().GetSymbol() + ")");
+
+        int rows = 0;
+        for (GeneScore geneScore : analysis.geneScores()) {
+            cell(table, geneScore.gene(), Element.ALIGN_LEFT);
+            cell(table, Scores.format(geneScore.scoreDrug1()), Element.ALIGN_RIGHT);
+            cell(table, Scores.format(geneScore.scoreDrug2()), Element.ALIGN_RIGHT);
+            cell(table, combined(analysis, geneScore), Element.ALIGN_RIGHT);
+            if (++rows % ROWS_PER_BLOCK == 0) add(table);
+        }
+        table.setComplete(true);
+        add(table);
+    }
+
+    /** The combined score; both the sum and the difference when the effect is unknown, like the text report. */
+    private static String combined(PairAnalysis analysis, GeneScore geneScore) {
+        float first = geneScore.scoreDrug1();
+        float second = geneScore.scoreDrug2();
+        if (analysis.effect() == CombinationScoreEffect.UNKNOWN && !Scores.isMissing(first) && !Scores.isMissing(second)) {
+            return (first + second) + " / " + (first - second);
+        }
+        return Scores.format(analysis.combinedScore(geneScore));
+    }
+
+    private static void headerCell(PdfPTable table, String text) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, HEADER));
+        cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+        table.addCell(cell);
+    }
+
+    private static void cell(PdfPTable table, String text, int alignment) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, TEXT));
+        cell.setHorizontalAlignment(alignment);
+        table.addCell(cell);
+    }
+
+    private static Paragraph title(String text) {
+        Paragraph title = new Paragraph(text, TITLE);
+        title.setSpacingBefore(14);
+        title.setSpacingAfter(4);
+        return title;
+    }
+
+    private void add(Element element) throws IOException {
+        try {
+            document.add(element);
+            empty = false;
+        } catch (DocumentException e) {
+            throw new IOException("Error writing PDF output to: " + output, e);
+        }
+    }
+
+    /** Writes the last page and closes the file. A PDF without reports gets one blank page. */
+    @Override
+    public void close() {
+        if (empty) writer.setPageEmpty(false); // iText refuses to close a document without pages
+        document.close();
+    }
+}
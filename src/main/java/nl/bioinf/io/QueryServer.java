@@ -0,0 +1,342 @@
+package nl.bioinf.io;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.PairAnalysis;
+import nl.bioinf.logic.PairCache;
+import nl.bioinf.logic.PartnerIndex;
+import nl.bioinf.logic.SimilarityIndex;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Long-running HTTP server for pair queries, on the JDK's built-in
+ * {@code com.sun.net.httpserver}. The server starts listening before the dataset is
+ * loaded; {@code /ready} only answers 200 once {@link #ready(InteractionEngine)} was called.
+ * Analyses go through a {@link PairCache}, so a pair that is asked again, in either order
+ * or under another alias, is answered without analysing it again. The similarity index for
+ * {@code /similar} is built on the first such request after each load, so a server that is
+ * never asked for similar drugs does not pay for it.
+ *
+ * <ul>
+ *     <li>{@code GET /analyze?drug1=...&drug2=...} — the analysis as JSON</li>
+ *     <li>{@code GET /ready} — 200 when the dataset is loaded, 503 before</li>
+ *     <li>{@code GET /health} — 200 while the server is running</li>
+ *     <li>{@code GET /partners?drug=...&k=10&rank=shared-genes} — the drugs that share the
+ *     most genes with one drug, as JSON</li>
+ *     <li>{@code GET /similar?drug=...&k=10} — the drugs with the most similar genes, as JSON</li>
+ *     <li>{@code GET /stats} — the counters of the pair cache</li>
+ *     <li>{@code POST /reload} — loads the dataset again in the background, when a
+ *     {@link DatasetReloader} was given; with {@code ?wait=true} it answers once the new
+ *     dataset is in use</li>
+ * </ul>
+ */
+public class QueryServer implements AutoCloseable {
+    /** Seconds that running requests get to finish on shutdown. */
+    private static final int SHUTDOWN_GRACE_SECONDS = 5;
+    /** Drugs returned by {@code /partners} and {@code /similar} without {@code k}. */
+    private static final int DEFAULT_PARTNERS = 10;
+    /** Default size of the pair cache, 64 MB. */
+    public static final long DEFAULT_CACHE_BYTES = 64L << 20;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long cacheBytes;
+    private final AtomicReference<Loaded> loaded = new AtomicReference<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile DatasetReloader reloader;
+
+    /** What the server answers queries from; replaced as a whole on reload. */
+    private record Loaded(PairCache cache, PartnerIndex partners, Supplier<SimilarityIndex> similar) {}
+
+    /** Builds the value on the first call and returns the same value after that. */
+    private static final class Lazy<T> implements Supplier<T> {
+        private final Supplier<T> build;
+        private volatile T value;
+
+        Lazy(Supplier<T> build) {
+            this.build = build;
+        }
+
+        @Override
+        public T get() {
+            T result = value;
+            if (result == null) {
+                synchronized (this) {
+                    result = value;
+                    if (result == null) value = result = build.get();
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @param address  the address to listen on, port 0 picks a free port
+     * @param executor runs the request handlers, for example one virtual thread per request
+     */
+    public QueryServer(InetSocketAddress address, ExecutorService executor) throws IOException {
+        this(address, executor, DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * @param address    the address to listen on, port 0 picks a free port
+     * @param executor   runs the request handlers, for example one virtual thread per request
+     * @param cacheBytes estimated memory the cached analyses may take, 0 for no cache
+     */
+    public QueryServer(InetSocketAddress address, ExecutorService executor, long cacheBytes) throws IOException {
+        if (cacheBytes < 0) {
+            throw new IllegalArgumentException("ERROR: Cache size cannot be negative, got " + cacheBytes + ".");
+        }
+        this.executor = executor;
+        this.cacheBytes = cacheBytes;
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/analyze", this::handleAnalyze);
+        server.createContext("/ready", exchange -> {
+            if (!allows(exchange, "GET")) return;
+            boolean ready = loaded.get() != null;
+            send(exchange, ready ? 200 : 503, ready ? "{\"ready\":true}" : "{\"ready\":false}");
+        });
+        server.createContext("/health", exchange -> {
+            if (!allows(exchange, "GET")) return;
+            send(exchange, 200, "{\"status\":\"up\"}");
+        });
+        server.createContext("/partners", this::handlePartners);
+        server.createContext("/similar", this::handleSimilar);
+        server.createContext("/reload", this::handleReload);
+        server.createContext("/stats", exchange -> {
+            if (!allows(exchange, "GET")) return;
+            Loaded current = loaded.get();
+            if (current == null) {
+                send(exchange, 503, JsonFormat.error("Dataset is still loading."));
+                return;
+            }
+            StringBuilder body = new StringBuilder(160);
+            JsonFormat.writeCacheStats(body, current.cache().stats());
+            send(exchange, 200, body.toString());
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Marks the server as ready to answer queries with the given engine, with an empty cache.
+     * Called again, it swaps in a new engine: queries that already started finish on the old one.
+     * The similarity index is not built here but on the first {@code /similar} request.
+     */
+    public void ready(InteractionEngine engine) {
+        loaded.set(new Loaded(new PairCache(engine, cacheBytes), new PartnerIndex(engine),
+                new Lazy<>(() -> new SimilarityIndex(engine, SimilarityIndex.Settings.DEFAULT))));
+    }
+
+    /** Enables {@code POST /reload}. */
+    public void reloadWith(DatasetReloader datasetReloader) {
+        this.reloader = datasetReloader;
+    }
+
+    public boolean isReady() {
+        return loaded.get() != null;
+    }
+
+    /** Counters of the pair cache, or {@code null} before the server is ready. */
+    public PairCache.Stats cacheStats() {
+        Loaded current = loaded.get();
+        return current == null ? null : current.cache().stats();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Blocks until the server has been closed. */
+    public void awaitTermination() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Stops accepting connections, gives running requests a few seconds to finish
+     * and then stops the executor. Calling it again has no effect.
+     */
+    @Override
+    public void close() {
+        if (stopped.getCount() == 0) return;
+        server.stop(SHUTDOWN_GRACE_SECONDS);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stopped.countDown();
+    }
+
+    private void handleAnalyze(HttpExchange exchange) throws IOException {
+        if (!allows(exchange, "GET")) return;
+        Loaded current = loaded.get();
+        if (current == null) {
+            send(exchange, 503, JsonFormat.error("Dataset is still loading."));
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String drug1 = query.get("drug1");
+        String drug2 = query.get("drug2");
+        try {
+            Validate.validateDifferentDrugs(drug1, drug2);
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, JsonFormat.error(e.getMessage()));
+            return;
+        }
+
+        PairAnalysis analysis;
+        try {
+            analysis = current.cache().analyze(drug1, drug2);
+        } catch (IllegalArgumentException e) {
+            send(exchange, 404, JsonFormat.error(e.getMessage()));
+            return;
+        }
+        StringBuilder body = new StringBuilder(512);
+        JsonFormat.writeAnalysis(body, analysis);
+        send(exchange, 200, body.toString());
+    }
+
+    private void handlePartners(HttpExchange exchange) throws IOException {
+        if (!allows(exchange, "GET")) return;
+        Loaded current = loaded.get();
+        if (current == null) {
+            send(exchange, 503, JsonFormat.error("Dataset is still loading."));
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String drug = query.get("drug");
+        int k;
+        PartnerIndex.Ranking ranking;
+        try {
+            if (drug == null || drug.isBlank()) throw new IllegalArgumentException("ERROR: Missing parameter drug.");
+            k = Integer.parseInt(query.getOrDefault("k", Integer.toString(DEFAULT_PARTNERS)));
+            ranking = PartnerIndex.Ranking.parse(query.getOrDefault("rank", "shared-genes"));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, JsonFormat.error(e.getMessage()));
+            return;
+        }
+
+        if (!current.cache().engine().dataset().dictionary().contains(drug)) {
+            send(exchange, 404, JsonFormat.error("Drug not found: " + drug));
+            return;
+        }
+        List<PartnerIndex.Partner> partners;
+        try {
+            partners = current.partners().topPartners(drug, k, ranking);
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, JsonFormat.error(e.getMessage()));
+            return;
+        }
+        StringBuilder body = new StringBuilder(64 + 160 * partners.size());
+        JsonFormat.writePartners(body, drug, ranking, partners);
+        send(exchange, 200, body.toString());
+    }
+
+    private void handleSimilar(HttpExchange exchange) throws IOException {
+        if (!allows(exchange, "GET")) return;
+        Loaded current = loaded.get();
+        if (current == null) {
+            send(exchange, 503, JsonFormat.error("Dataset is still loading."));
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String drug = query.get("drug");
+        int k;
+        try {
+            if (drug == null || drug.isBlank()) throw new IllegalArgumentException("ERROR: Missing parameter drug.");
+            k = Integer.parseInt(query.getOrDefault("k", Integer.toString(DEFAULT_PARTNERS)));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, JsonFormat.error(e.getMessage()));
+            return;
+        }
+
+        if (!current.cache().engine().dataset().dictionary().contains(drug)) {
+            send(exchange, 404, JsonFormat.error("Drug not found: " + drug));
+            return;
+        }
+        SimilarityIndex index = current.similar().get();
+        List<SimilarityIndex.Similar> similar;
+        try {
+            similar = index.similar(drug, k);
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, JsonFormat.error(e.getMessage()));
+            return;
+        }
+        StringBuilder body = new StringBuilder(128 + 96 * similar.size());
+        JsonFormat.writeSimilar(body, drug, index.settings(), similar);
+        send(exchange, 200, body.toString());
+    }
+
+    private void handleReload(HttpExchange exchange) throws IOException {
+        if (!allows(exchange, "POST")) return;
+        DatasetReloader current = reloader;
+        if (current == null) {
+            send(exchange, 404, JsonFormat.error("Reloading is not enabled."));
+            return;
+        }
+        CompletableFuture<DatasetReloader.Reload> reload = current.reload();
+        if (!"true".equals(parseQuery(exchange.getRequestURI().getRawQuery()).get("wait"))) {
+            send(exchange, 202, "{\"reloading\":true}");
+            return;
+        }
+        try {
+            StringBuilder body = new StringBuilder(128);
+            JsonFormat.writeReload(body, reload.join());
+            send(exchange, 200, body.toString());
+        } catch (CompletionException e) {
+            send(exchange, 500, JsonFormat.error("Reload failed: " + e.getCause().getMessage()));
+        }
+    }
+
+    private static boolean allows(HttpExchange exchange, String method) throws IOException {
+        if (method.equals(exchange.getRequestMethod())) return true;
+        exchange.getResponseHeaders().set("Allow", method);
+        send(exchange, 405, JsonFormat.error("Only " + method + " is supported."));
+        return false;
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) return query;
+        for (String part : rawQuery.split("&")) {
+            int eq = part.indexOf('=');
+            if (eq <= 0) continue;
+            query.putIfAbsent(URLDecoder.decode(part.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(part.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+}
@@ -1,5 +1,7 @@
 package nl.bioinf.io;
 
+import nl.bioinf.logic.InteractionStore;
+import nl.bioinf.logic.Scores;
 import nl.bioinf.models.Combination;
 import nl.bioinf.models.Drug;
 import nl.bioinf.models.Interaction;
@@ -10,8 +12,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.BufferedReader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -26,7 +28,8 @@ import java.util.List;
  *
  * <p>Each method validates the input file, trims headers, skips blank lines,
  * and performs basic structural validation to prevent malformed data from being used
- * downstream in the analysis pipeline.</p>
+ * downstream in the analysis pipeline. The data files are streamed in a single pass;
+ * only the columns the analysis needs are copied out of each row.</p>
  *
  * <p><strong>Usage example:</strong></p>
  * <pre>{@code
@@ -44,7 +47,10 @@ import java.util.List;
 public class ReadFiles {
     private final File interactionsFile;
     private final File drugsFile;
-    private static final String COMBINATIONS_RESOURCE = "drug_combinations.tsv";
+    static final String COMBINATIONS_RESOURCE = "drug_combinations.tsv";
+    static final String[] INTERACTION_COLUMNS =
+            {"gene_claim_name", "interaction_type", "interaction_score", "drug_concept_id"};
+    static final String[] DRUG_COLUMNS = {"drug_claim_name", "concept_id"};
 
     public ReadFiles(File interactionsFile, File drugsFile) {
         this.interactionsFile = interactionsFile;
@@ -60,6 +66,41 @@ public class ReadFiles {
         return readInteractions(interactionsFile);
     }
 
+    /**
+     * Reads the interactions file with the given number of threads. With more than one
+     * thread the file is memory-mapped and parsed in chunks by {@link MappedInteractionLoader};
+     * the result is the same as {@link #processInteractions()}.
+     *
+     * @param parallelism the number of threads to parse with
+     * @return a {@link List} of {@link Interaction} objects parsed from the file
+     * @throws IllegalArgumentException if the file is missing, empty, malformed, or has invalid headers
+     */
+    public List<Interaction> processInteractions(int parallelism) {
+        if (parallelism <= 1) return processInteractions();
+        validateInputFile(interactionsFile, "Interactions file");
+        return new MappedInteractionLoader(interactionsFile, parallelism).load();
+    }
+
+    /**
+     * Reads the interactions file straight into a columnar {@link InteractionStore}, without
+     * building a record per row first, so loading never holds more than the columns and the
+     * row being parsed. With more than one thread the file is parsed by
+     * {@link MappedInteractionLoader}. The store has the same rows as
+     * {@link #processInteractions(int)}, and the same errors are thrown.
+     *
+     * @param parallelism the number of threads to parse with
+     * @return the interactions as columns
+     * @throws IllegalArgumentException if the file is missing, empty, malformed, or has invalid headers
+     */
+    public InteractionStore processInteractionStore(int parallelism) {
+        validateInputFile(interactionsFile, "Interactions file");
+        if (parallelism > 1) return new MappedInteractionLoader(interactionsFile, parallelism).loadStore();
+        InteractionStore.Builder store = InteractionStore.builder();
+        streamRows(interactionsFile, "Interactions file", INTERACTION_COLUMNS,
+                fields -> store.add(fields[3], fields[0], fields[1], Scores.parse(fields[2])));
+        return store.build();
+    }
+
     public List<Drug> processDrugs() {
         return readDrugs(drugsFile);
     }
@@ -95,26 +136,124 @@ public class ReadFiles {
         }
     }
 
-    /** Trim alle header-velden zodat stray spaces geen issues geven. */
-    private List<String> readLines(File file) throws IOException {
-        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)
-                .stream()
-                .filter(line -> !line.isBlank())
-                .toList();
+    /**
+     * Callback for one projected data row. {@code fields} holds only the requested
+     * columns, in the order they were requested; the array is reused between rows.
+     */
+    @FunctionalInterface
+    interface RowHandler {
+        void accept(String[] fields);
     }
-    private static String[] normalizeHeaders(String headerLine) {
+
+    /** Trim alle header-velden zodat stray spaces geen issues geven. */
+    static String[] normalizeHeaders(String headerLine) {
         String[] headers = headerLine.split("\t", -1);
         for (int i = 0; i < headers.length; i++) headers[i] = headers[i].trim();
         return headers;
     }
 
-    private int indexOf(String[] headers, String name, File file) {
+    static int indexOf(String[] headers, String name, File file) {
         for (int i = 0; i < headers.length; i++) {
             if (headers[i].equals(name)) return i;
         }
         throw new IllegalArgumentException("Header not found: '" + name + "' in file: " + file.getAbsolutePath());
     }
 
+    /**
+     * Whether a line is skipped as empty: it holds nothing but whitespace as defined by
+     * {@link String#isBlank()}, which includes non-ASCII spaces. {@link MappedInteractionLoader}
+     * follows the same rule, so both loaders skip the same lines.
+     */
+    static boolean isBlankLine(String line) {
+        return line.isBlank();
+    }
+
+    static IllegalArgumentException malformedRow(File file, long lineNumber) {
+        return new IllegalArgumentException(
+                "Malformed row (too few columns) in " + file.getName() + " at line " + lineNumber
+        );
+    }
+
+    /**
+     * Maps every column index up to the highest requested one to its slot in the
+     * projected row, or -1 when the column is not needed.
+     */
+    static int[] slotsFor(int[] columns) {
+        int max = 0;
+        for (int column : columns) max = Math.max(max, column);
+        int[] slots = new int[max + 1];
+        Arrays.fill(slots, -1);
+        for (int i = 0; i < columns.length; i++) slots[columns[i]] = i;
+        return slots;
+    }
+
+    /**
+     * Copies only the requested columns of a tab-separated line into {@code out},
+     * without splitting the whole line.
+     *
+     * @return false if the line has fewer columns than required
+     */
+    static boolean project(String line, int[] slots, String[] out) {
+        int last = slots.length - 1;
+        int start = 0;
+        for (int column = 0; ; column++) {
+            int tab = line.indexOf('\t', start);
+            int end = tab < 0 ? line.length() : tab;
+            int slot = slots[column];
+            if (slot >= 0) out[slot] = line.substring(start, end);
+            if (column == last) return true;
+            if (tab < 0) return false;
+            start = tab + 1;
+        }
+    }
+
+    /**
+     * Streams a TSV file line by line through a fixed-size buffer and hands every
+     * non-blank data row, reduced to the requested columns, to {@code handler}.
+     * Only one line is held in memory at a time. Lines are read by the rules of
+     * {@link LineReader}, which {@link MappedInteractionLoader} shares.
+     *
+     * @param file    the TSV file to read
+     * @param label   a descriptive label (used in error messages)
+     * @param columns the header names of the columns to keep
+     * @param handler receives the projected fields of each data row
+     * @throws IllegalArgumentException if a header is missing, there are no data rows or a row is malformed
+     */
+    private void streamRows(File file, String label, String[] columns, RowHandler handler) {
+        try (LineReader reader = new LineReader(file.toPath())) {
+            String line;
+            long lineNumber = 0;
+            int[] slots = null;
+            String[] fields = new String[columns.length];
+            boolean hasRows = false;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (isBlankLine(line)) continue; // skip empty lines
+
+                if (slots == null) {
+                    String[] headers = normalizeHeaders(line);
+                    int[] indices = new int[columns.length];
+                    for (int i = 0; i < columns.length; i++) indices[i] = indexOf(headers, columns[i], file);
+                    slots = slotsFor(indices);
+                    continue;
+                }
+
+                if (!project(line, slots, fields)) {
+                    throw malformedRow(file, lineNumber);
+                }
+                hasRows = true;
+                handler.accept(fields);
+            }
+
+            if (slots != null && !hasRows) {
+                throw new IllegalArgumentException(label + " has no data rows after header: " + file.getName());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + file.getAbsolutePath(), e);
+        }
+    }
+
     /**
      * Reads and parses a TSV file containing drug–gene interactions.
      * Expected header columns:
@@ -124,6 +263,7 @@ public class ReadFiles {
      *     <li>interaction_score</li>
      *     <li>drug_concept_id</li>
      * </ul>
+     * All other columns are skipped without being copied.
      *
      * @param file the interactions TSV file
      * @return a list of {@link Interaction} objects
@@ -131,45 +271,10 @@ public class ReadFiles {
      */
     private List<Interaction> readInteractions(File file) {
         validateInputFile(file, "Interactions file");
-        try {
-            List<String> lines = readLines(file);
-            if (lines.isEmpty()) return List.of();
-
-            String[] headers = normalizeHeaders(lines.getFirst());
-            int idxGene  = indexOf(headers, "gene_claim_name", file);
-            int idxType  = indexOf(headers, "interaction_type", file);
-            int idxScore = indexOf(headers, "interaction_score", file);
-            int idxDrug  = indexOf(headers, "drug_concept_id", file);
-
-
-            if (lines.size() < 2) {
-                throw new IllegalArgumentException("Interactions file has no data rows after header: " + file.getName());
-            }
-
-            List<Interaction> result = new ArrayList<>();
-
-
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i);
-                if (line.isBlank()) continue; // skip empty lines
-
-                String[] parts = line.split("\t", -1);
-
-
-                int maxIndex = Math.max(Math.max(idxGene, idxType), Math.max(idxScore, idxDrug));
-                if (maxIndex >= parts.length) {
-                    throw new IllegalArgumentException(
-                            "Malformed row (too few columns) in " + file.getName() + " at line " + (i + 1)
-                    );
-                }
-                result.add(new Interaction(parts[idxGene], parts[idxType], parts[idxScore], parts[idxDrug]));
-            }
-
-            return result;
-
-        } catch (IOException e) {
-            throw new RuntimeException("Error reading file: " + file.getAbsolutePath(), e);
-        }
+        List<Interaction> result = new ArrayList<>();
+        streamRows(file, "Interactions file", INTERACTION_COLUMNS,
+                fields -> result.add(new Interaction(fields[0], fields[1], fields[2], fields[3])));
+        return result;
     }
 
     /**
@@ -186,39 +291,10 @@ public class ReadFiles {
      */
     private List<Drug> readDrugs(File file) {
         validateInputFile(file, "Drugs file");
-        try {
-            List<String> lines = readLines(file);
-            if (lines.isEmpty()) return List.of();
-
-            String[] headers = normalizeHeaders(lines.getFirst());
-            int idxName = indexOf(headers, "drug_claim_name", file);
-            int idxId   = indexOf(headers, "concept_id", file);
-
-            if (lines.size() < 2) {
-                throw new IllegalArgumentException("Drugs file has no data rows after header: " + file.getName());
-            }
-            List<Drug> result = new ArrayList<>();
-
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i);
-                if (line.isBlank()) continue;
-
-                String[] parts = line.split("\t", -1);
-                int maxIndex = Math.max(idxName, idxId);
-
-                if (maxIndex >= parts.length) {
-                    throw new IllegalArgumentException(
-                            "Malformed row (too few columns) in " + file.getName() + " at line " + (i + 1)
-                    );
-                }
-                result.add(new Drug(parts[idxName], parts[idxId]));
-            }
-
-            return result;
-
-        } catch (IOException e) {
-            throw new RuntimeException("Error reading file: " + file.getAbsolutePath(), e);
-        }
+        List<Drug> result = new ArrayList<>();
+        streamRows(file, "Drugs file", DRUG_COLUMNS,
+                fields -> result.add(new Drug(fields[0], fields[1])));
+        return result;
     }
     /**
      * Loads and parses the <code>drug_combinations.tsv</code> file from the classpath.
@@ -0,0 +1,21 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.PairAnalysis;
+
+import java.io.IOException;
+
+/**
+ * Turns the structured result of one pair into an output format. Renderers write
+ * straight to an {@link Appendable}, so the analysis itself never builds text and a
+ * report can be streamed into a file or response as it is rendered.
+ */
+public interface ReportRenderer {
+
+    /**
+     * Writes one pair analysis.
+     *
+     * @param analysis the analysis to render
+     * @param out      where to write
+     */
+    void render(PairAnalysis analysis, Appendable out) throws IOException;
+}
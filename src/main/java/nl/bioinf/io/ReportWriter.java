@@ -0,0 +1,90 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.PairAnalysis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Writes the reports of one or more drug pairs into one output file. Reports are written
+ * one after the other as they come in, so a writer never holds more than the report it
+ * is writing.
+ */
+public interface ReportWriter extends Closeable {
+
+    /**
+     * Starts a new entry with a title, for example one pair of a batch run. Formats whose
+     * records already name the drugs ignore it.
+     *
+     * @param title the title of the entry
+     */
+    void heading(String title) throws IOException;
+
+    /** Writes the report of one analysis. */
+    void write(PairAnalysis analysis) throws IOException;
+
+    /**
+     * Writes a report that a writer from {@link #render} rendered beforehand, for example on
+     * another thread, as if it had been written here.
+     *
+     * @param report the text the rendering writer wrote
+     * @throws UnsupportedOperationException for PDF, which cannot be rendered ahead
+     */
+    void writeRendered(CharSequence report) throws IOException;
+
+    /**
+     * Writes why a pair could not be analysed, in place of its report.
+     *
+     * @param firstDrug  the first drug as given
+     * @param secondDrug the second drug as given
+     * @param message    the error message
+     */
+    void error(String firstDrug, String secondDrug, String message) throws IOException;
+
+    /**
+     * Opens the writer for the extension of the output file: .txt, .pdf, .ndjson or .tsv.
+     *
+     * @param output   the output file
+     * @param renderer renders the text reports of a .txt file
+     * @param append   add to the end of an existing file instead of replacing it; not possible for .pdf
+     * @param perGene  write one .ndjson or .tsv record per overlapping gene instead of one per pair
+     * @throws IllegalArgumentException if the extension is not supported
+     */
+    static ReportWriter open(Path output, ReportRenderer renderer, boolean append, boolean perGene) throws IOException {
+        String fileName = output.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (fileName.endsWith(".txt")) return new TextReportWriter(output, append, renderer);
+        if (fileName.endsWith(".ndjson")) return new NdjsonReportWriter(output, append, perGene);
+        if (fileName.endsWith(".tsv")) return new TsvReportWriter(output, append, perGene);
+        if (fileName.endsWith(".pdf")) {
+            if (append) {
+                throw new IllegalArgumentException("ERROR: Appending is not supported for .pdf output → " + output);
+            }
+            return new PdfReportWriter(output);
+        }
+        throw new IllegalArgumentException("Unsupported output format: " + fileName);
+    }
+
+    /**
+     * Opens a writer of the same format as {@link #open} that writes into {@code out} instead
+     * of the file, and without a header. Reports can so be rendered on any thread and then
+     * passed in order to {@link #writeRendered} of the writer of the file.
+     *
+     * @param out      receives the rendered reports
+     * @param output   the output file the reports are for, which decides the format
+     * @param renderer renders the text reports of a .txt file
+     * @param perGene  write one .ndjson or .tsv record per overlapping gene instead of one per pair
+     * @return the writer, or {@code null} for .pdf, which can only be written to its file
+     * @throws IllegalArgumentException if the extension is not supported
+     */
+    static ReportWriter render(Writer out, Path output, ReportRenderer renderer, boolean perGene) {
+        String fileName = output.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (fileName.endsWith(".txt")) return new TextReportWriter(out, renderer);
+        if (fileName.endsWith(".ndjson")) return new NdjsonReportWriter(out, perGene);
+        if (fileName.endsWith(".tsv")) return new TsvReportWriter(out, perGene);
+        if (fileName.endsWith(".pdf")) return null;
+        throw new IllegalArgumentException("Unsupported output format: " + fileName);
+    }
+}
@@ -0,0 +1,372 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.DrugDictionary;
+import nl.bioinf.logic.InteractionChecker.GeneScore;
+import nl.bioinf.logic.PairAnalysis;
+
+import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Pair analyses kept on disk between runs, so a pair that was analysed before against the
+ * same data is reported without loading the dataset at all.
+ *
+ * <p>Layout of the cache directory:</p>
+ * <ul>
+ *     <li>one subdirectory per dataset, named after the fingerprint of the dataset: CRC32C
+ *     checksums of the contents of the interactions and drugs files (or of the snapshot)
+ *     and of the bundled <code>drug_combinations.tsv</code></li>
+ *     <li>in it one file per drug pair, named after a hash of the two normalized drug names
+ *     in sorted order, so both orders of a pair share one file</li>
+ * </ul>
+ *
+ * <p>A run only looks in the subdirectory of its own dataset, so results of files that
+ * changed are never used. The subdirectories of other datasets are kept, as another job may
+ * still use them. The size limit holds for the entries of all datasets together: when they
+ * take more, the least recently used entries are deleted, whatever their dataset, so the
+ * results of a dataset nobody asks for any more age out. A hit counts as a use.</p>
+ *
+ * <p>The cache only deletes what it wrote itself: entry files in subdirectories that have a
+ * fingerprint as name and hold the {@value #MARKER} file, and such a subdirectory once its
+ * last entry is gone. Other files and directories under the cache directory are left alone,
+ * so pointing {@code --result-cache} at a directory with other contents does no harm.</p>
+ *
+ * <p>Entries are written to a temporary file and moved into place, and are read back with a
+ * checksum, so an interrupted run or a damaged file is a miss rather than a wrong report.</p>
+ */
+public class ResultCache {
+    private static final long MAGIC = 0x4447_4944_4252_4553L; // "DGIDBRES"
+    static final int VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".pair";
+    /** File in every dataset subdirectory that marks it as made by this class. */
+    static final String MARKER = "dgidb-result-cache";
+    /** Name of a dataset subdirectory, see {@link #fingerprint}. */
+    private static final Pattern FINGERPRINT = Pattern.compile("[0-9a-f]{8}(-[0-9a-f]{8})+");
+    private static final int CHECKSUM_BUFFER = 1 << 20;
+
+    private final Path root;
+    private final Path directory;
+    private final long maxBytes;
+
+    private ResultCache(Path root, Path directory, long maxBytes) {
+        this.root = root;
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Opens the cache for a dataset read from TSV files.
+     *
+     * @param root             the cache directory, created if it does not exist
+     * @param maxBytes         the size the entries of all datasets may take on disk
+     * @param interactionsFile the interactions file of the dataset
+     * @param drugsFile        the drugs file of the dataset
+     */
+    public static ResultCache open(Path root, long maxBytes, File interactionsFile, File drugsFile) {
+        return open(root, maxBytes, fingerprint(interactionsFile.toPath(), drugsFile.toPath()));
+    }
+
+    /**
+     * Opens the cache for a dataset read from a compiled snapshot.
+     *
+     * @see #open(Path, long, File, File)
+     */
+    public static ResultCache open(Path root, long maxBytes, File snapshot) {
+        return open(root, maxBytes, fingerprint(snapshot.toPath()));
+    }
+
+    static ResultCache open(Path root, long maxBytes, String fingerprint) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("ERROR: Cache size cannot be negative, got " + maxBytes + ".");
+        }
+        if (Files.exists(root) && !Files.isDirectory(root)) {
+            throw new IllegalArgumentException("ERROR: Result cache is not a directory → " + root);
+        }
+        if (!FINGERPRINT.matcher(fingerprint).matches()) {
+            throw new IllegalArgumentException("Not a dataset fingerprint: " + fingerprint);
+        }
+        Path directory = root.resolve(fingerprint);
+        try {
+            Files.createDirectories(directory);
+            if (!Files.exists(directory.resolve(MARKER))) writeMarker(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening result cache: " + root, e);
+        }
+        return new ResultCache(root, directory, maxBytes);
+    }
+
+    /** The directory that holds the entries of this dataset. */
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * The stored analysis of a pair, under the names and in the order they are given.
+     *
+     * @return the analysis, or {@code null} if the pair is not in the cache
+     */
+    public PairAnalysis get(String firstDrug, String secondDrug) {
+        String first = DrugDictionary.normalize(firstDrug);
+        String second = DrugDictionary.normalize(secondDrug);
+        boolean swap = first.compareTo(second) > 0;
+        Path entry = entry(swap ? second : first, swap ? first : second);
+
+        PairAnalysis stored;
+        try {
+            stored = read(entry, swap ? second : first, swap ? first : second);
+            if (stored == null) return null;
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            return null; // evicted by another run in the meantime
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading result cache: " + entry, e);
+        }
+        return stored.withNames(firstDrug, secondDrug,
+                swap ? stored.secondCandidates() : stored.firstCandidates(),
+                swap ? stored.firstCandidates() : stored.secondCandidates(), swap);
+    }
+
+    /** Stores an analysis and then evicts the least recently used entries above the size limit. */
+    public void put(PairAnalysis analysis) {
+        String first = DrugDictionary.normalize(analysis.firstDrug());
+        String second = DrugDictionary.normalize(analysis.secondDrug());
+        boolean swap = first.compareTo(second) > 0;
+        PairAnalysis sorted = swap
+                ? analysis.withNames(second, first, analysis.secondCandidates(), analysis.firstCandidates(), true)
+                : analysis.withNames(first, second, analysis.firstCandidates(), analysis.secondCandidates(), false);
+
+        Path entry = entry(sorted.firstDrug(), sorted.secondDrug());
+        Path temp = entry.resolveSibling(entry.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            write(temp, sorted);
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            evict();
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing result cache: " + entry, e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // best effort, the temp file is only left behind if the move already failed
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries of all datasets until the rest fit in the size
+     * limit, and the subdirectories of other datasets that have no entries left.
+     */
+    private void evict() throws IOException {
+        record Entry(Path path, long size, FileTime used) {}
+        List<Entry> entries = new ArrayList<>();
+        List<Path> datasets = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> subdirectories = Files.newDirectoryStream(root, ResultCache::isDatasetDirectory)) {
+            for (Path dataset : subdirectories) {
+                datasets.add(dataset);
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dataset, "*" + ENTRY_SUFFIX)) {
+                    for (Path file : files) {
+                        try {
+                            Entry entry = new Entry(file, Files.size(file), Files.getLastModifiedTime(file));
+                            entries.add(entry);
+                            total += entry.size();
+                        } catch (NoSuchFileException e) {
+                            // deleted by another run
+                        }
+                    }
+                } catch (NoSuchFileException e) {
+                    datasets.remove(dataset); // removed by another run
+                }
+            }
+        }
+        if (total <= maxBytes) return;
+        entries.sort(Comparator.comparing(Entry::used));
+        for (Entry entry : entries) {
+            if (total <= maxBytes) break;
+            Files.deleteIfExists(entry.path());
+            total -= entry.size();
+        }
+        for (Path dataset : datasets) {
+            if (!dataset.equals(directory)) deleteIfNoEntries(dataset);
+        }
+    }
+
+    /** Whether a directory is the subdirectory of a dataset that this class made. */
+    private static boolean isDatasetDirectory(Path path) {
+        return Files.isDirectory(path)
+                && FINGERPRINT.matcher(path.getFileName().toString()).matches()
+                && Files.isRegularFile(path.resolve(MARKER));
+    }
+
+    /**
+     * Deletes a dataset subdirectory that holds nothing but its marker. Anything else in
+     * it, such as an entry another run just wrote, keeps it.
+     */
+    private static void deleteIfNoEntries(Path dataset) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dataset)) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().equals(MARKER)) return;
+            }
+        }
+        Files.deleteIfExists(dataset.resolve(MARKER));
+        try {
+            Files.deleteIfExists(dataset);
+        } catch (DirectoryNotEmptyException e) {
+            writeMarker(dataset); // another run stored a result in the meantime
+        }
+    }
+
+    private static void writeMarker(Path dataset) throws IOException {
+        Files.writeString(dataset.resolve(MARKER), "Results of one dataset, written by --result-cache.\n");
+    }
+
+    /** The entry file of a pair of normalized names, the smaller one first. */
+    private Path entry(String first, String second) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(first.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+            sha.update(second.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(sha.digest(), 0, 16) + ENTRY_SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM has SHA-256
+        }
+    }
+
+    private static void write(Path file, PairAnalysis analysis) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            DataOutputStream payload = new DataOutputStream(new CheckedOutputStream(out, crc));
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            payload.writeUTF(analysis.firstDrug());
+            payload.writeUTF(analysis.secondDrug());
+            payload.writeUTF(analysis.firstConceptId());
+            payload.writeUTF(analysis.secondConceptId());
+            writeStrings(payload, analysis.firstCandidates());
+            writeStrings(payload, analysis.secondCandidates());
+            payload.writeInt(analysis.firstGeneCount());
+            payload.writeInt(analysis.secondGeneCount());
+            writeStrings(payload, analysis.overlap());
+            payload.writeUTF(analysis.firstType());
+            payload.writeUTF(analysis.secondType());
+            payload.writeUTF(analysis.combinationResult());
+            payload.writeBoolean(analysis.combinationInTable());
+            payload.writeUTF(analysis.effect().name());
+            payload.writeInt(analysis.geneScores().size());
+            for (GeneScore geneScore : analysis.geneScores()) {
+                payload.writeUTF(geneScore.gene());
+                payload.writeFloat(geneScore.scoreDrug1());
+                payload.writeFloat(geneScore.scoreDrug2());
+            }
+            payload.flush();
+            out.writeLong(crc.getValue());
+        }
+    }
+
+    /**
+     * Reads an entry of the given sorted pair.
+     *
+     * @return the analysis, or {@code null} if the file is damaged, of another version or of another pair
+     */
+    private static PairAnalysis read(Path file, String first, String second) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        int headerSize = Long.BYTES + Integer.BYTES;
+        if (bytes.length < headerSize + Long.BYTES) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getLong() != MAGIC || buffer.getInt() != VERSION) return null;
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, headerSize, bytes.length - headerSize - Long.BYTES);
+        if (crc.getValue() != buffer.getLong(bytes.length - Long.BYTES)) return null;
+
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(bytes, headerSize, bytes.length - headerSize - Long.BYTES))) {
+            String firstDrug = in.readUTF();
+            String secondDrug = in.readUTF();
+            if (!firstDrug.equals(first) || !secondDrug.equals(second)) return null;
+            String firstConceptId = in.readUTF();
+            String secondConceptId = in.readUTF();
+            List<String> firstCandidates = readStrings(in);
+            List<String> secondCandidates = readStrings(in);
+            int firstGeneCount = in.readInt();
+            int secondGeneCount = in.readInt();
+            Set<String> overlap = new LinkedHashSet<>(readStrings(in));
+            String firstType = in.readUTF();
+            String secondType = in.readUTF();
+            String combinationResult = in.readUTF();
+            boolean combinationInTable = in.readBoolean();
+            CombinationScoreEffect effect = CombinationScoreEffect.valueOf(in.readUTF());
+            GeneScore[] geneScores = new GeneScore[in.readInt()];
+            for (int i = 0; i < geneScores.length; i++) {
+                geneScores[i] = new GeneScore(in.readUTF(), in.readFloat(), in.readFloat());
+            }
+            return new PairAnalysis(firstDrug, secondDrug, firstConceptId, secondConceptId,
+                    firstCandidates, secondCandidates, firstGeneCount, secondGeneCount, overlap,
+                    firstType, secondType, combinationResult, combinationInTable, effect, List.of(geneScores));
+        } catch (EOFException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) out.writeUTF(value);
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        String[] values = new String[in.readInt()];
+        for (int i = 0; i < values.length; i++) values[i] = in.readUTF();
+        return List.of(values);
+    }
+
+    /** Name of the cache directory of a dataset: the checksums of its files and of the combinations. */
+    static String fingerprint(Path... sources) {
+        StringBuilder name = new StringBuilder();
+        for (Path source : sources) name.append(String.format("%08x-", checksum(source)));
+        return name.append(String.format("%08x", DatasetSnapshot.combinationsChecksum())).toString();
+    }
+
+    /** CRC32C of the contents of a file, read in large blocks. */
+    static long checksum(Path file) {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER);
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + file, e);
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,165 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionChecker.GeneScore;
+import nl.bioinf.logic.PairAnalysis;
+import nl.bioinf.logic.Scores;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Renders the plain text report of one drug pair. The report has four sections (gene
+ * overlap, combination result, scores per gene and combined scores); each section can
+ * also be written on its own, which {@link nl.bioinf.logic.InteractionChecker} uses for
+ * its step-by-step methods.
+ */
+public class TextReportRenderer implements ReportRenderer {
+
+    @Override
+    public void render(PairAnalysis analysis, Appendable out) throws IOException {
+        overlapSection(out, analysis);
+        combinationSection(out, analysis.firstDrug(), analysis.secondDrug(), analysis.hasOverlap(),
+                analysis.firstType(), analysis.secondType(),
+                analysis.combinationInTable() ? analysis.combinationResult() : null);
+        scoresSection(out, analysis.firstDrug(), analysis.secondDrug(), analysis.geneScores());
+        combinedSection(out, analysis.effect(), analysis.geneScores(), analysis.hasOverlap());
+    }
+
+    /** Inputs, ambiguity notes, gene counts and the overlapping genes. */
+    public void overlapSection(Appendable out, PairAnalysis analysis) throws IOException {
+        out.append("==== Find overlap genes ==== \n");
+        out.append("Drug 1 input: ").append(analysis.firstDrug()).append("\n");
+        out.append("Drug 2 input: ").append(analysis.secondDrug()).append("\n\n");
+        ambiguityNote(out, analysis.firstDrug(), analysis.firstCandidates(), analysis.firstConceptId());
+        ambiguityNote(out, analysis.secondDrug(), analysis.secondCandidates(), analysis.secondConceptId());
+
+        out.append("Number of genes influenced by ").append(analysis.firstDrug()).append(": ")
+                .append(String.valueOf(analysis.firstGeneCount())).append("\n");
+        out.append("Number of genes influenced by ").append(analysis.secondDrug()).append(": ")
+                .append(String.valueOf(analysis.secondGeneCount())).append("\n\n");
+
+        if (!analysis.hasOverlap()) {
+            out.append("No overlap found.\n");
+        } else {
+            out.append("Number of overlapping genes: ").append(String.valueOf(analysis.overlap().size())).append("\n");
+            out.append("Overlapping genes: ").append("\n");
+            for (String gene : analysis.overlap()) out.append(gene).append("\n");
+        }
+        out.append("\n");
+    }
+
+    private static void ambiguityNote(Appendable out, String drug, List<String> candidates, String used) throws IOException {
+        if (candidates.size() > 1) {
+            out.append("Note: ").append(drug).append(" matches several drugs ")
+                    .append(candidates.toString()).append("; using ").append(used).append("\n\n");
+        }
+    }
+
+    /**
+     * The interaction types and the combination result.
+     *
+     * @param result the result from drug_combinations.tsv, or {@code null} if the types are not in the table
+     */
+    public void combinationSection(Appendable out, String firstDrug, String secondDrug, boolean overlapFound,
+                                   String firstType, String secondType, String result) throws IOException {
+        out.append("==== Combination drugs ==== \n");
+        if (!overlapFound) {
+            out.append("No gene overlap found; skipping combination result.").append("\n\n");
+            return;
+        }
+        out.append(firstDrug).append(" type: ").append(firstType).append("\n");
+        out.append(secondDrug).append(" type: ").append(secondType).append("\n\n");
+        if (result != null) {
+            out.append("Combination result: ").append(result).append("\n\n");
+        } else {
+            out.append("Combination result is unknown").append("\n\n");
+        }
+    }
+
+    /** The scores of both drugs per overlapping gene. */
+    public void scoresSection(Appendable out, String firstDrug, String secondDrug, List<GeneScore> geneScores)
+            throws IOException {
+        out.append("==== Interaction scores per overlap genes ====\n");
+        if (geneScores.isEmpty()) {
+            out.append("No overlapping genes with scores found.\n\n");
+        } else {
+            out.append("gene: first drug = first drug score, second drug = second drug score\n\n");
+            for (GeneScore geneScore : geneScores) {
+                out.append(geneScore.gene())
+                        .append("; ").append(firstDrug).append(" = ").append(Scores.format(geneScore.scoreDrug1()))
+                        .append("; ").append(secondDrug).append(" = ").append(Scores.format(geneScore.scoreDrug2()))
+                        .append("\n");
+            }
+        }
+        out.append("\n");
+    }
+
+    /** The combined score per gene as a formula, followed by one explanation line per gene. */
+    public void combinedSection(Appendable out, CombinationScoreEffect effect, List<GeneScore> geneScores,
+                                   boolean overlapFound) throws IOException {
+        out.append("==== Calculating combined interaction scores ====\n");
+        if (!overlapFound) {
+            out.append("No gene overlap found; skipping calculation.").append("\n\n");
+            return;
+        }
+        for (GeneScore geneScore : geneScores) {
+            formulaLine(out, effect, geneScore);
+            out.append("\n");
+        }
+        out.append("\n");
+        out.append("==== Calculation Results ==== \n");
+        for (GeneScore geneScore : geneScores) {
+            explanationLine(out, effect, geneScore);
+            out.append("\n");
+        }
+    }
+
+    private static void formulaLine(Appendable out, CombinationScoreEffect effect, GeneScore score) throws IOException {
+        String gene = score.gene();
+        if (hasMissingScore(score)) {
+            out.append(gene).append(": ").append(Scores.format(score.scoreDrug1())).append(", ")
+                    .append(Scores.format(score.scoreDrug2())).append(" (score missing, not combined)");
+            return;
+        }
+        String first = String.valueOf(score.scoreDrug1());
+        String second = String.valueOf(score.scoreDrug2());
+        String combined = String.valueOf(effect.combine(score.scoreDrug1(), score.scoreDrug2()));
+        switch (effect) {
+            case ENHANCING -> out.append(gene).append(": ").append(first).append(" + ").append(second)
+                    .append(" = ").append(combined);
+            case OPPOSING -> out.append(gene).append(": ").append(first).append(" - ").append(second)
+                    .append(" = ").append(combined);
+            case SYNERGETISCH -> out.append(gene).append(": ").append(first).append(" + ").append(second)
+                    .append("(synergetic) = ").append(combined);
+            case UNKNOWN -> out.append(gene).append(": ").append(first).append(" + ").append(second)
+                    .append(" = ").append(String.valueOf(score.scoreDrug1() + score.scoreDrug2())).append("\n\t ")
+                    .append(first).append(" - ").append(second)
+                    .append(" = ").append(String.valueOf(score.scoreDrug1() - score.scoreDrug2()));
+        }
+    }
+
+    private static void explanationLine(Appendable out, CombinationScoreEffect effect, GeneScore score) throws IOException {
+        String gene = score.gene();
+        if (hasMissingScore(score)) {
+            out.append("The effect on ").append(gene).append(" is unknown, DGIdb has no score for it.");
+            return;
+        }
+        String combined = String.valueOf(effect.combine(score.scoreDrug1(), score.scoreDrug2()));
+        switch (effect) {
+            case ENHANCING -> out.append("The activity of ").append(gene).append(" is increased by ")
+                    .append(combined).append(".");
+            case OPPOSING -> out.append("The activity of ").append(gene).append(" is decreased by ")
+                    .append(combined).append(".");
+            case SYNERGETISCH -> out.append("The activity of ").append(gene).append(" is increased by more than")
+                    .append(combined).append(".");
+            case UNKNOWN -> out.append("The activity of ").append(gene).append(" is increased by ")
+                    .append(String.valueOf(score.scoreDrug1() + score.scoreDrug2())).append(" or decreased by ")
+                    .append(String.valueOf(score.scoreDrug1() - score.scoreDrug2())).append(".");
+        }
+    }
+
+    /** Missing scores are not combined, see {@link Scores}. */
+    private static boolean hasMissingScore(GeneScore geneScore) {
+        return Scores.isMissing(geneScore.scoreDrug1()) || Scores.isMissing(geneScore.scoreDrug2());
+    }
+}
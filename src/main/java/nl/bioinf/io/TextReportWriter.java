@@ -0,0 +1,133 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.PairAnalysis;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams text reports into one file. Reports are rendered straight into a fixed-size
+ * buffer that is flushed to the file when it fills up, so memory use depends on the
+ * buffer size and not on the size or number of the reports.
+ * <p>
+ * Every report ends with a line break, also when the rendered text does not, so reports
+ * written one after the other (or appended by later runs) never run into each other.
+ * Entries started with {@link #heading(String)} are separated by a blank line.
+ */
+public class TextReportWriter implements ReportWriter, Appendable {
+    /** Characters buffered before they are written to the file. */
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CHUNK = 8 * 1024;
+
+    private final Writer writer;
+    private final ReportRenderer renderer;
+    /** Last character written, to know whether the report ended its line. */
+    private char last = '\n';
+    /** Whether the file has content, to know whether a heading needs a blank line before it. */
+    private boolean written;
+
+    /**
+     * Opens the file for writing.
+     *
+     * @param output   the text file
+     * @param append   add to the end of an existing file instead of replacing it
+     * @param renderer renders the analyses passed to {@link #write(PairAnalysis)}
+     */
+    public TextReportWriter(Path output, boolean append, ReportRenderer renderer) throws IOException {
+        this(open(output, append), renderer);
+        this.written = append && Files.size(output) > 0;
+    }
+
+    /** Writes the reports into {@code writer}, see {@link ReportWriter#render}. */
+    TextReportWriter(Writer writer, ReportRenderer renderer) {
+        this.writer = writer;
+        this.renderer = renderer;
+    }
+
+    /**
+     * Opens a UTF-8 file behind a {@link #BUFFER_SIZE} buffer, shared with the other
+     * streaming writers.
+     */
+    static Writer open(Path output, boolean append) throws IOException {
+        OpenOption[] options = append
+                ? new OpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE}
+                : new OpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE};
+        return new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(output, options), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /** Writes the title as a {@code ######## title ########} line. */
+    @Override
+    public void heading(String title) throws IOException {
+        if (written) append('\n');
+        append("######## ").append(title).append(" ########\n");
+    }
+
+    /** Renders one analysis into the file. */
+    @Override
+    public void write(PairAnalysis analysis) throws IOException {
+        renderer.render(analysis, this);
+        endLine();
+    }
+
+    /** Writes already built text as one report. */
+    public void write(CharSequence text) throws IOException {
+        append(text);
+        endLine();
+    }
+
+    /** Writes a report rendered by a writer from {@link ReportWriter#render}. */
+    @Override
+    public void writeRendered(CharSequence report) throws IOException {
+        write(report);
+    }
+
+    /** Writes the message as the report. */
+    @Override
+    public void error(String firstDrug, String secondDrug, String message) throws IOException {
+        write(message);
+    }
+
+    private void endLine() throws IOException {
+        if (last != '\n') append('\n');
+    }
+
+    /** Writes text without ending the report, for example a header before a report. */
+    @Override
+    public TextReportWriter append(CharSequence text) throws IOException {
+        return append(text, 0, text.length());
+    }
+
+    @Override
+    public TextReportWriter append(CharSequence text, int start, int end) throws IOException {
+        // in chunks: Writer.append copies the range into a String, a whole report at once otherwise
+        for (int from = start; from < end; from += CHUNK) {
+            writer.append(text, from, Math.min(end, from + CHUNK));
+        }
+        if (end > start) {
+            last = text.charAt(end - 1);
+            written = true;
+        }
+        return this;
+    }
+
+    @Override
+    public TextReportWriter append(char c) throws IOException {
+        writer.write(c);
+        last = c;
+        written = true;
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,134 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionChecker.GeneScore;
+import nl.bioinf.logic.PairAnalysis;
+import nl.bioinf.logic.Scores;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams analyses as a TSV file with a header line and one row per pair:
+ * <pre>
+ * drug_1  drug_2  concept_id_1  concept_id_2  genes_drug_1  genes_drug_2  overlap
+ * type_drug_1  type_drug_2  combination_result  combination_effect  combined_score  error
+ * </pre>
+ * or, per gene, one row per overlapping gene:
+ * <pre>
+ * drug_1  drug_2  concept_id_1  concept_id_2  gene  score_drug_1  score_drug_2
+ * combination_effect  combined_score  error
+ * </pre>
+ * A missing or unknown score is written as {@code NA}. A pair that could not be analysed
+ * gets one row with only the drugs and the {@code error} column filled in; {@code error}
+ * is empty on all other rows. Tabs and line breaks inside values are replaced by spaces.
+ * When appending to a file that has content, the header is not written again.
+ */
+public class TsvReportWriter implements ReportWriter {
+    static final String PAIR_HEADER = "drug_1\tdrug_2\tconcept_id_1\tconcept_id_2\tgenes_drug_1\tgenes_drug_2\toverlap"
+            + "\ttype_drug_1\ttype_drug_2\tcombination_result\tcombination_effect\tcombined_score\terror\n";
+    static final String GENE_HEADER = "drug_1\tdrug_2\tconcept_id_1\tconcept_id_2\tgene\tscore_drug_1\tscore_drug_2"
+            + "\tcombination_effect\tcombined_score\terror\n";
+
+    private final Writer writer;
+    private final boolean perGene;
+
+    /**
+     * @param output  the .tsv file
+     * @param append  add to the end of an existing file instead of replacing it
+     * @param perGene one row per overlapping gene instead of one per pair
+     */
+    public TsvReportWriter(Path output, boolean append, boolean perGene) throws IOException {
+        this(TextReportWriter.open(output, append), perGene);
+        if (!append || Files.size(output) == 0) {
+            writer.write(perGene ? GENE_HEADER : PAIR_HEADER);
+        }
+    }
+
+    /** Writes the rows, without a header, into {@code writer}, see {@link ReportWriter#render}. */
+    TsvReportWriter(Writer writer, boolean perGene) {
+        this.writer = writer;
+        this.perGene = perGene;
+    }
+
+    /** Rows carry the drug names, so headings are not written. */
+    @Override
+    public void heading(String title) {
+    }
+
+    @Override
+    public void write(PairAnalysis analysis) throws IOException {
+        if (!perGene) {
+            pairColumns(analysis);
+            column(Integer.toString(analysis.firstGeneCount()));
+            column(Integer.toString(analysis.secondGeneCount()));
+            column(Integer.toString(analysis.overlap().size()));
+            column(analysis.firstType());
+            column(analysis.secondType());
+            column(analysis.combinationResult());
+            column(analysis.effect().name());
+            score(analysis.totalCombinedScore());
+            writer.write("\t\n"); // no error
+            return;
+        }
+        for (GeneScore geneScore : analysis.geneScores()) {
+            pairColumns(analysis);
+            column(geneScore.gene());
+            score(geneScore.scoreDrug1());
+            score(geneScore.scoreDrug2());
+            column(analysis.effect().name());
+            score(analysis.combinedScore(geneScore));
+            writer.write("\t\n"); // no error
+        }
+    }
+
+    @Override
+    public void writeRendered(CharSequence rows) throws IOException {
+        writer.append(rows);
+    }
+
+    @Override
+    public void error(String firstDrug, String secondDrug, String message) throws IOException {
+        value(firstDrug);
+        column(secondDrug);
+        int empty = perGene ? 7 : 10;
+        for (int i = 0; i < empty; i++) writer.write('\t');
+        column(message);
+        writer.write('\n');
+    }
+
+    /** The drugs and concept ids, the first four columns of both layouts. */
+    private void pairColumns(PairAnalysis analysis) throws IOException {
+        value(analysis.firstDrug());
+        column(analysis.secondDrug());
+        column(analysis.firstConceptId());
+        column(analysis.secondConceptId());
+    }
+
+    private void score(float score) throws IOException {
+        column(Scores.isMissing(score) ? "NA" : Float.toString(score));
+    }
+
+    private void column(String value) throws IOException {
+        writer.write('\t');
+        value(value);
+    }
+
+    private void value(String value) throws IOException {
+        if (value == null) return;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\t' || c == '\n' || c == '\r') {
+                writer.write(value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' '));
+                return;
+            }
+        }
+        writer.write(value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -2,6 +2,7 @@ package nl.bioinf.io;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Locale;
 
 /**
@@ -13,12 +14,24 @@ public class Validate {
 
     /**
      * Validates that the provided output path points to a writable directory and a
-     * file name ending in .txt or .pdf, and that the file has a non-empty base name.
+     * file name ending in .txt, .pdf, .ndjson or .tsv, and that the file has a non-empty base name.
      *
      * @param output path to the desired output file
      * @throws IllegalArgumentException if the file name or directory is invalid
      */
     public static void validateOutputPath(Path output) {
+        validateOutputPath(output, ".txt", ".pdf", ".ndjson", ".tsv");
+    }
+
+    /**
+     * Validates that the provided output path points to a writable directory and a
+     * file name ending in one of the given extensions, with a non-empty base name.
+     *
+     * @param output     path to the desired output file
+     * @param extensions the accepted extensions, lower case and including the dot
+     * @throws IllegalArgumentException if the file name or directory is invalid
+     */
+    public static void validateOutputPath(Path output, String... extensions) {
         if (output == null) {
             throw new IllegalArgumentException("ERROR: Output path is null.");
         }
@@ -26,9 +39,10 @@ public class Validate {
         String fileName = output.getFileName().toString();
         String fileNameLower = fileName.toLowerCase(Locale.ROOT);
 
-        // 1) Extension must be .txt or .pdf
-        if (!(fileNameLower.endsWith(".txt") || fileNameLower.endsWith(".pdf"))) {
-            throw new IllegalArgumentException("ERROR: Output file must end with '.txt' or '.pdf' → " + output);
+        // 1) Extension must be one of the accepted ones
+        if (Arrays.stream(extensions).noneMatch(fileNameLower::endsWith)) {
+            throw new IllegalArgumentException("ERROR: Output file must end with '"
+                    + String.join("' or '", extensions) + "' → " + output);
         }
 
         // 2) Basename must be non-empty (reject ".txt" or ".pdf")
@@ -73,4 +87,47 @@ public class Validate {
             throw new IllegalArgumentException("ERROR: You entered the same drug twice (" + drug1 + "). Please provide two different drugs.");
         }
     }
+
+    /**
+     * Validates that the requested number of loader threads is at least one.
+     *
+     * @param threads the number of threads
+     * @throws IllegalArgumentException if {@code threads} is smaller than one
+     */
+    public static void validateThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("ERROR: Number of threads must be at least 1, got " + threads + ".");
+        }
+    }
+
+    /**
+     * Validates the output of a batch run: an existing directory (one file per pair)
+     * or a writable .txt, .pdf, .ndjson or .tsv file (one combined output).
+     *
+     * @param output path to the output directory or file
+     * @throws IllegalArgumentException if the path is neither
+     */
+    public static void validateBatchOutput(Path output) {
+        if (output != null && Files.isDirectory(output)) {
+            if (!Files.isWritable(output)) {
+                throw new IllegalArgumentException("ERROR: Output directory is not writable → " + output);
+            }
+            return;
+        }
+        validateOutputPath(output, ".txt", ".pdf", ".ndjson", ".tsv");
+    }
+
+    /**
+     * Validates that reports can be appended to the output: a single .txt, .ndjson or
+     * .tsv file can grow, a PDF or a directory of per-pair files cannot.
+     *
+     * @param output path to the output file
+     * @throws IllegalArgumentException if the output is a PDF or a directory
+     */
+    public static void validateAppend(Path output) {
+        if (output == null || Files.isDirectory(output)
+                || output.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pdf")) {
+            throw new IllegalArgumentException("ERROR: --append does not work with a .pdf output or a directory → " + output);
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package nl.bioinf.logic;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bounded producer/compute/writer pipeline for batch work.
+ * <ul>
+ *     <li>a producer thread takes items from the source and submits them to the workers</li>
+ *     <li>{@code workers} threads compute the results</li>
+ *     <li>the calling thread hands the results to the sink, in source order</li>
+ * </ul>
+ * At most {@code capacity} items are in flight at any time, so memory use does not
+ * grow with the size of the source. {@link #run} returns, or throws, only after the
+ * producer has stopped, so the caller may close the source as soon as it returns.
+ *
+ * @param <T> the input items
+ * @param <R> the computed results
+ */
+public class BatchPipeline<T, R> {
+    private final int workers;
+    private final int capacity;
+
+    public BatchPipeline(int workers, int capacity) {
+        if (workers < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Workers and capacity must be at least 1.");
+        }
+        this.workers = workers;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Runs every item of {@code source} through {@code compute} and passes the results to {@code sink}.
+     *
+     * @return the number of results passed to the sink
+     * @throws RuntimeException if the source, a computation or the sink fails; the run stops at the first failure
+     */
+    public long run(Iterator<T> source, Function<T, R> compute, Consumer<R> sink) {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        BlockingQueue<Future<R>> inFlight = new ArrayBlockingQueue<>(capacity);
+        AtomicReference<RuntimeException> sourceFailure = new AtomicReference<>();
+        Future<R> end = new FutureTask<>(() -> null);
+
+        Thread producer = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted() && source.hasNext()) {
+                    T item = source.next();
+                    inFlight.put(pool.submit(() -> compute.apply(item)));
+                }
+            } catch (InterruptedException e) {
+                return; // the writer stopped, nobody is waiting for the end marker
+            } catch (RuntimeException e) {
+                sourceFailure.set(e);
+            }
+            try {
+                inFlight.put(end);
+            } catch (InterruptedException ignored) {
+                // the writer stopped
+            }
+        }, "batch-producer");
+        producer.start();
+
+        long count = 0;
+        try {
+            for (Future<R> next = inFlight.take(); next != end; next = inFlight.take()) {
+                sink.accept(next.get());
+                count++;
+            }
+            if (sourceFailure.get() != null) throw sourceFailure.get();
+            return count;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch run was interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+        } finally {
+            producer.interrupt();
+            pool.shutdownNow();
+            awaitProducer(producer);
+        }
+    }
+
+    /**
+     * Waits until the producer has stopped. An interrupt does not stop a producer that is
+     * blocked reading the source, such as in {@code BufferedReader.readLine}, so it may take
+     * until that read returns.
+     */
+    private static void awaitProducer(Thread producer) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                producer.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
@@ -0,0 +1,85 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.io.CombinationScoreEffect;
+import nl.bioinf.models.Combination;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The combination table of {@code drug_combinations.tsv} as a symmetric 2D lookup.
+ * Every interaction type in the table gets an ordinal; the result and its
+ * {@link CombinationScoreEffect} for a pair of types are then one array access.
+ *
+ * <p>Types are matched case-insensitively and in either order. When the table lists a
+ * pair more than once, the first row wins. Types that are not in the table share one
+ * extra ordinal, {@link #typeCount()}, whose cells have no result.</p>
+ */
+public final class CombinationTable {
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    /** Number of ordinals including the one for types that are not in the table. */
+    private final int stride;
+    private final String[] results;
+    private final CombinationScoreEffect[] effects;
+
+    public CombinationTable(List<Combination> combinations) {
+        for (Combination combination : combinations) {
+            ordinals.putIfAbsent(key(combination.drugType1()), ordinals.size());
+            ordinals.putIfAbsent(key(combination.drugType2()), ordinals.size());
+        }
+        this.stride = ordinals.size() + 1;
+        this.results = new String[stride * stride];
+        this.effects = new CombinationScoreEffect[stride * stride];
+        Arrays.fill(effects, CombinationScoreEffect.UNKNOWN);
+
+        for (Combination combination : combinations) {
+            int first = ordinals.get(key(combination.drugType1()));
+            int second = ordinals.get(key(combination.drugType2()));
+            if (results[first * stride + second] != null) continue; // first row wins
+            CombinationScoreEffect effect = CombinationScoreEffect.fromResult(combination.resultaat());
+            results[first * stride + second] = combination.resultaat();
+            results[second * stride + first] = combination.resultaat();
+            effects[first * stride + second] = effect;
+            effects[second * stride + first] = effect;
+        }
+    }
+
+    /**
+     * Ordinal of an interaction type.
+     *
+     * @param type the type, in any case
+     * @return its ordinal, or {@link #typeCount()} when the type is not in the table
+     */
+    public int ordinal(String type) {
+        if (type == null) return stride - 1;
+        Integer ordinal = ordinals.get(key(type));
+        return ordinal == null ? stride - 1 : ordinal;
+    }
+
+    /** Number of distinct types in the table. */
+    public int typeCount() {
+        return stride - 1;
+    }
+
+    /** The combination result of two type ordinals, or {@code null} if the pair is not in the table. */
+    public String result(int first, int second) {
+        return results[first * stride + second];
+    }
+
+    /** The effect of two type ordinals, UNKNOWN if the pair is not in the table. */
+    public CombinationScoreEffect effect(int first, int second) {
+        return effects[first * stride + second];
+    }
+
+    /** The combination result of two types, or {@code null} if the pair is not in the table. */
+    public String result(String first, String second) {
+        return result(ordinal(first), ordinal(second));
+    }
+
+    private static String key(String type) {
+        return type.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,26 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.models.Combination;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+
+import java.util.List;
+
+/**
+ * A loaded dataset: the interactions indexed by concept id, the drug name dictionary
+ * and the combination table. It is built once, from the TSV files or from a compiled
+ * snapshot, and shared by every query.
+ */
+public record Dataset(
+        InteractionIndex index,
+        DrugDictionary dictionary,
+        List<Combination> combinations
+) {
+    public Dataset {
+        combinations = List.copyOf(combinations);
+    }
+
+    public static Dataset of(List<Interaction> interactions, List<Drug> drugs, List<Combination> combinations) {
+        return new Dataset(new InteractionIndex(interactions), new DrugDictionary(drugs), combinations);
+    }
+}
@@ -0,0 +1,105 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.models.Drug;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Dictionary from drug names to concept ids, built once from the drugs file.
+ * Names are trimmed and case-folded with {@link Locale#ROOT}, and every
+ * {@code drug_claim_name} alias of a concept maps to its {@code concept_id},
+ * so resolving a name is a single hash lookup.
+ *
+ * <p>A name that is used by more than one concept is <em>ambiguous</em>; it resolves
+ * to the first concept listed in the drugs file.</p>
+ */
+public class DrugDictionary {
+    private final Map<String, String> conceptByName;
+    /** Only names with more than one concept, to keep the common case to a single String. */
+    private final Map<String, List<String>> ambiguousNames;
+    /** The first name of every concept, as written in the drugs file. */
+    private final Map<String, String> nameByConcept;
+
+    public DrugDictionary(List<Drug> drugs) {
+        Map<String, String> first = new HashMap<>();
+        Map<String, List<String>> ambiguous = new HashMap<>();
+        Map<String, String> names = new HashMap<>();
+        for (Drug drug : drugs) {
+            names.putIfAbsent(drug.conceptId(), drug.drugClaimName().trim());
+            String name = normalize(drug.drugClaimName());
+            String conceptId = drug.conceptId();
+            String known = first.putIfAbsent(name, conceptId);
+            if (known != null && !known.equals(conceptId)) {
+                List<String> concepts = ambiguous.computeIfAbsent(name, n -> new ArrayList<>(List.of(known)));
+                if (!concepts.contains(conceptId)) concepts.add(conceptId);
+            }
+        }
+        ambiguous.replaceAll((name, concepts) -> List.copyOf(concepts));
+        this.conceptByName = first;
+        this.ambiguousNames = ambiguous;
+        this.nameByConcept = names;
+    }
+
+    /** Trims and case-folds a drug name the way the dictionary stores it. */
+    public static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Resolves a drug name to its concept id.
+     *
+     * @param name the drug name as typed by the user
+     * @return the concept id, or the first one if the name is ambiguous
+     * @throws IllegalArgumentException if the name is not in the drugs file
+     */
+    public String resolve(String name) {
+        String conceptId = name == null ? null : conceptByName.get(normalize(name));
+        if (conceptId == null) {
+            throw new IllegalArgumentException("Drug not found: " + name);
+        }
+        return conceptId;
+    }
+
+    public boolean contains(String name) {
+        return name != null && conceptByName.containsKey(normalize(name));
+    }
+
+    /** Whether the name maps to more than one concept. */
+    public boolean isAmbiguous(String name) {
+        return name != null && ambiguousNames.containsKey(normalize(name));
+    }
+
+    /**
+     * Returns every concept the name maps to, in the order of the drugs file.
+     *
+     * @param name the drug name
+     * @return the concept ids, or an empty list if the name is unknown
+     */
+    public List<String> conceptIds(String name) {
+        if (name == null) return List.of();
+        String normalized = normalize(name);
+        List<String> concepts = ambiguousNames.get(normalized);
+        if (concepts != null) return concepts;
+        String conceptId = conceptByName.get(normalized);
+        return conceptId == null ? List.of() : List.of(conceptId);
+    }
+
+    /**
+     * Returns a name for a concept: the first one the drugs file lists for it.
+     *
+     * @param conceptId the concept id
+     * @return the name, or {@code null} if the drugs file has no name for the concept
+     */
+    public String name(String conceptId) {
+        return nameByConcept.get(conceptId);
+    }
+
+    /** Number of distinct names in the dictionary. */
+    public int size() {
+        return conceptByName.size();
+    }
+}
@@ -0,0 +1,51 @@
+package nl.bioinf.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary that gives every distinct {@code gene_claim_name} a dense int id,
+ * in the order the genes are first seen. Gene sets are stored as these ids, so
+ * comparing genes of two drugs never hashes a gene name.
+ */
+public class GeneDictionary {
+    private final Map<String, Integer> idByName = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Returns the id of a gene name, giving it the next free id if it is new.
+     * Only used while the index is being built.
+     */
+    int intern(String gene) {
+        Integer id = idByName.get(gene);
+        if (id == null) {
+            id = names.size();
+            idByName.put(gene, id);
+            names.add(gene);
+        }
+        return id;
+    }
+
+    /**
+     * Looks up the id of a gene name.
+     *
+     * @param gene the gene name, matched exactly
+     * @return the id, or -1 if the gene is not in the dictionary
+     */
+    public int id(String gene) {
+        Integer id = idByName.get(gene);
+        return id == null ? -1 : id;
+    }
+
+    /** The gene name of an id. */
+    public String name(int id) {
+        return names.get(id);
+    }
+
+    /** Number of distinct genes. */
+    public int size() {
+        return names.size();
+    }
+}
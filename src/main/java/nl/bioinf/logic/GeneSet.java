@@ -0,0 +1,109 @@
+package nl.bioinf.logic;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of gene ids from a {@link GeneDictionary}, stored as a sorted int array
+ * without duplicates. The overlap of two sets is a merge of the two arrays; when one
+ * set is much larger than the other, the small one is binary-searched into the large one.
+ */
+public final class GeneSet {
+    public static final GeneSet EMPTY = new GeneSet(new int[0]);
+
+    /** Size ratio above which searching beats merging. */
+    private static final int SEARCH_RATIO = 32;
+
+    private final int[] ids;
+
+    private GeneSet(int[] ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Creates a set from gene ids in any order; duplicates are dropped.
+     * The array is sorted in place and not copied.
+     */
+    static GeneSet of(int[] ids, int length) {
+        if (length == 0) return EMPTY;
+        Arrays.sort(ids, 0, length);
+        int distinct = 1;
+        for (int i = 1; i < length; i++) {
+            if (ids[i] != ids[distinct - 1]) ids[distinct++] = ids[i];
+        }
+        return new GeneSet(distinct == ids.length ? ids : Arrays.copyOf(ids, distinct));
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    /** The {@code index}-th smallest gene id. */
+    public int get(int index) {
+        return ids[index];
+    }
+
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    /** Position of a gene id in this set, or a negative number if it is absent. */
+    public int indexOf(int id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    /**
+     * Gene ids that are in both sets, in ascending order.
+     */
+    public int[] intersect(GeneSet other) {
+        int[] small = ids.length <= other.ids.length ? ids : other.ids;
+        int[] large = small == ids ? other.ids : ids;
+        int[] shared = new int[small.length];
+        int count = 0;
+        if (large.length / SEARCH_RATIO > small.length) {
+            int from = 0;
+            for (int id : small) {
+                int found = Arrays.binarySearch(large, from, large.length, id);
+                if (found >= 0) {
+                    shared[count++] = id;
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < small.length && j < large.length) {
+                if (small[i] < large[j]) {
+                    i++;
+                } else if (small[i] > large[j]) {
+                    j++;
+                } else {
+                    shared[count++] = small[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return count == shared.length ? shared : Arrays.copyOf(shared, count);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GeneSet other && Arrays.equals(ids, other.ids);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ids);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(ids);
+    }
+}
@@ -0,0 +1,185 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.io.CombinationScoreEffect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable query engine over one loaded {@link Dataset}. It owns the dataset and the
+ * lookup tables built from it, and answers queries without changing any state, so one
+ * engine can be shared by any number of threads without locking.
+ *
+ * <p>{@link #analyze(String, String)} runs the whole analysis for a pair of drugs and
+ * returns the outcome as a {@link PairAnalysis} value, without building any text.</p>
+ */
+public final class InteractionEngine {
+    private final Dataset dataset;
+    private final CombinationTable combinationTable;
+    /** Ordinal in the combination table of every type id of the interaction store. */
+    private final int[] typeOrdinals;
+
+    public InteractionEngine(Dataset dataset) {
+        this.dataset = dataset;
+        this.combinationTable = new CombinationTable(dataset.combinations());
+        InteractionStore store = dataset.index().store();
+        this.typeOrdinals = new int[store.typeCount()];
+        for (int type = 0; type < typeOrdinals.length; type++) {
+            typeOrdinals[type] = combinationTable.ordinal(store.typeName(type));
+        }
+    }
+
+    public Dataset dataset() {
+        return dataset;
+    }
+
+    public CombinationTable combinationTable() {
+        return combinationTable;
+    }
+
+    /**
+     * Runs the complete analysis for a pair of drugs.
+     *
+     * @param firstDrug  the first drug name
+     * @param secondDrug the second drug name
+     * @return the outcome of the analysis
+     * @throws IllegalArgumentException if one of the drugs is not found
+     */
+    public PairAnalysis analyze(String firstDrug, String secondDrug) {
+        return analyze(firstDrug, secondDrug, Profiler.OFF);
+    }
+
+    /**
+     * Runs the complete analysis for a pair of drugs and measures its steps: resolving the
+     * names, the gene overlap, the combination result and the scores per gene.
+     *
+     * @param profiler records the steps; must not be measuring another phase at the same time
+     * @throws IllegalArgumentException if one of the drugs is not found
+     */
+    public PairAnalysis analyze(String firstDrug, String secondDrug, Profiler profiler) {
+        Profiler.Phase phase = profiler.begin("resolve names");
+        String idDrug1 = conceptId(firstDrug);
+        String idDrug2 = conceptId(secondDrug);
+        List<String> candidates1 = conceptIds(firstDrug);
+        List<String> candidates2 = conceptIds(secondDrug);
+        phase.end();
+
+        return analyzeConcepts(firstDrug, secondDrug, idDrug1, idDrug2, candidates1, candidates2, profiler);
+    }
+
+    /** The analysis of two concepts whose names were already resolved. */
+    PairAnalysis analyzeConcepts(String firstDrug, String secondDrug, String idDrug1, String idDrug2,
+                                 List<String> candidates1, List<String> candidates2, Profiler profiler) {
+        Profiler.Phase phase = profiler.begin("gene overlap");
+        GeneSet genesDrug1 = geneSet(idDrug1);
+        GeneSet genesDrug2 = geneSet(idDrug2);
+        Set<String> overlap = overlap(genesDrug1, genesDrug2);
+        phase.end();
+
+        phase = profiler.begin("combination");
+        String typeDrug1 = interactionType(idDrug1);
+        String typeDrug2 = interactionType(idDrug2);
+        String combinationResult = "unknown";
+        boolean inTable = false;
+        CombinationScoreEffect effect = CombinationScoreEffect.UNKNOWN;
+        if (!overlap.isEmpty()) {
+            int ordinal1 = typeOrdinal(idDrug1);
+            int ordinal2 = typeOrdinal(idDrug2);
+            String found = combinationTable.result(ordinal1, ordinal2);
+            inTable = found != null;
+            combinationResult = inTable ? found : "Unknown";
+            effect = combinationTable.effect(ordinal1, ordinal2);
+        }
+        phase.end();
+
+        phase = profiler.begin("scores");
+        List<InteractionChecker.GeneScore> geneScores = geneScores(overlap, idDrug1, idDrug2);
+        phase.end();
+
+        return new PairAnalysis(firstDrug, secondDrug, idDrug1, idDrug2, candidates1, candidates2,
+                genesDrug1.size(), genesDrug2.size(), overlap, typeDrug1, typeDrug2,
+                combinationResult, inTable, effect, geneScores);
+    }
+
+    /** @throws IllegalArgumentException if the drug is not found */
+    public String conceptId(String drug) {
+        return dataset.dictionary().resolve(drug);
+    }
+
+    public boolean isAmbiguous(String drug) {
+        return dataset.dictionary().isAmbiguous(drug);
+    }
+
+    public List<String> conceptIds(String drug) {
+        return dataset.dictionary().conceptIds(drug);
+    }
+
+    /** Genes that interact with a drug concept, as ids in the gene dictionary. */
+    public GeneSet geneSet(String conceptId) {
+        return dataset.index().geneSet(conceptId);
+    }
+
+    /** Names of the genes in both sets, in gene id order. */
+    public Set<String> overlap(GeneSet genesDrug1, GeneSet genesDrug2) {
+        int[] shared = genesDrug1.intersect(genesDrug2);
+        GeneDictionary genes = dataset.index().genes();
+        Set<String> overlap = new LinkedHashSet<>(shared.length * 2);
+        for (int id : shared) overlap.add(genes.name(id));
+        return overlap;
+    }
+
+    /** Interaction type of the first interaction of a concept, or "Unknown". */
+    public String interactionType(String conceptId) {
+        InteractionStore store = dataset.index().store();
+        int concept = store.concept(conceptId);
+        return concept < 0 ? "Unknown" : store.typeName(store.type(store.start(concept)));
+    }
+
+    /**
+     * Ordinal in the {@link #combinationTable()} of the interaction type of a concept,
+     * the ordinal for "not in the table" when the concept has no interactions.
+     */
+    public int typeOrdinal(String conceptId) {
+        InteractionStore store = dataset.index().store();
+        int concept = store.concept(conceptId);
+        return concept < 0 ? combinationTable.typeCount() : typeOrdinals[store.type(store.start(concept))];
+    }
+
+    /**
+     * Looks up the combination result for two interaction types, in either order.
+     *
+     * @return the result from drug_combinations.tsv, or {@code null} if the pair is not in the table
+     */
+    public String findCombinationResult(String typeDrug1, String typeDrug2) {
+        return combinationTable.result(typeDrug1, typeDrug2);
+    }
+
+    /**
+     * Scores of both drugs for every gene in {@code genes} that both drugs interact with.
+     * When a drug has several interactions with a gene the first score that is not missing is
+     * used; the scores were parsed while loading, and a gene without any score has
+     * {@link Scores#MISSING}.
+     */
+    public List<InteractionChecker.GeneScore> geneScores(Set<String> genes, String idDrug1, String idDrug2) {
+        InteractionIndex index = dataset.index();
+        GeneSet genesDrug1 = index.geneSet(idDrug1);
+        GeneSet genesDrug2 = index.geneSet(idDrug2);
+        float[] scoresDrug1 = index.firstScores(idDrug1);
+        float[] scoresDrug2 = index.firstScores(idDrug2);
+
+        List<InteractionChecker.GeneScore> geneScores = new ArrayList<>(genes.size());
+        for (String gene : genes) {
+            int id = index.genes().id(gene);
+            if (id < 0) continue;
+            int position1 = genesDrug1.indexOf(id);
+            int position2 = genesDrug2.indexOf(id);
+            if (position1 >= 0 && position2 >= 0) {
+                geneScores.add(new InteractionChecker.GeneScore(gene, scoresDrug1[position1], scoresDrug2[position2]));
+            }
+        }
+        return Collections.unmodifiableList(geneScores);
+    }
+}
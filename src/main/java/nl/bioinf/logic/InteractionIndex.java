@@ -0,0 +1,104 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.models.Interaction;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inverted index from a drug concept id to the interactions of that drug.
+ * It is built once after the interactions file has been read, so looking up the
+ * interactions of a drug costs the number of genes it touches instead of a scan
+ * over every row.
+ *
+ * <p>The rows live in a columnar {@link InteractionStore}, grouped per concept and in
+ * file order within one concept. Every gene has a dense int id in a {@link GeneDictionary},
+ * and the genes of every concept are kept as a {@link GeneSet} of those ids.</p>
+ */
+public class InteractionIndex {
+    private final InteractionStore store;
+    /** Gene set per concept number of the store. */
+    private final GeneSet[] geneSets;
+    /** Per concept, the first known score of every gene, at the position of the gene in its gene set. */
+    private final float[][] firstScores;
+
+    public InteractionIndex(List<Interaction> interactions) {
+        this(InteractionStore.of(interactions));
+    }
+
+    public InteractionIndex(InteractionStore store) {
+        this.store = store;
+        this.geneSets = new GeneSet[store.conceptCount()];
+        this.firstScores = new float[store.conceptCount()][];
+        for (int concept = 0; concept < geneSets.length; concept++) {
+            int from = store.start(concept);
+            int[] ids = new int[store.end(concept) - from];
+            for (int i = 0; i < ids.length; i++) ids[i] = store.gene(from + i);
+            GeneSet genes = GeneSet.of(ids, ids.length);
+
+            // when a drug has several interactions with a gene the first score that is not
+            // missing counts, so a row without a score does not hide a later one with a score
+            float[] scores = new float[genes.size()];
+            Arrays.fill(scores, Scores.MISSING);
+            for (int row = from; row < store.end(concept); row++) {
+                int position = genes.indexOf(store.gene(row));
+                if (Scores.isMissing(scores[position])) scores[position] = store.score(row);
+            }
+            geneSets[concept] = genes;
+            firstScores[concept] = scores;
+        }
+    }
+
+    /**
+     * Returns the interactions of one drug concept.
+     *
+     * @param conceptId the drug concept id
+     * @return the interactions in file order, or an empty list if the concept has none
+     */
+    public List<Interaction> forConcept(String conceptId) {
+        return store.forConcept(conceptId);
+    }
+
+    /**
+     * Returns the genes of one drug concept as ids in {@link #genes()}.
+     *
+     * @param conceptId the drug concept id
+     * @return the gene ids, or an empty set if the concept has no interactions
+     */
+    public GeneSet geneSet(String conceptId) {
+        int concept = store.concept(conceptId);
+        return concept < 0 ? GeneSet.EMPTY : geneSets[concept];
+    }
+
+    /**
+     * First score of every gene of a concept, in the order of {@link #geneSet(String)}; when
+     * the first interaction with a gene has no score, the first later one that has a score.
+     * The array is shared and must not be changed.
+     *
+     * @return the scores, {@link Scores#MISSING} where no interaction with the gene had one
+     */
+    float[] firstScores(String conceptId) {
+        int concept = store.concept(conceptId);
+        return concept < 0 ? new float[0] : firstScores[concept];
+    }
+
+    /** The dictionary of every gene in the index. */
+    public GeneDictionary genes() {
+        return store.genes();
+    }
+
+    /** The columns behind the index. */
+    public InteractionStore store() {
+        return store;
+    }
+
+    /** Number of interactions in the index. */
+    public int size() {
+        return store.size();
+    }
+
+    /** Number of distinct drug concepts in the index. */
+    public int conceptCount() {
+        return store.conceptCount();
+    }
+}
@@ -0,0 +1,200 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.io.CombinationScoreEffect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * All-pairs interaction matrix for a list of drugs. For every unordered pair it runs the
+ * same steps as {@link InteractionChecker} (gene overlap, combination result, combined
+ * score) but keeps only the numbers, in primitive arrays over the upper triangle, so no
+ * report text is built per pair.
+ *
+ * <p>Per drug the concept id, interaction type and gene scores are looked up once; the
+ * genes are kept as sorted ids, so the overlap of a pair is a merge of two int arrays.
+ * The pairs are computed on a work-stealing {@link ForkJoinPool}.</p>
+ */
+public class InteractionMatrix {
+    /** Pairs per task below which a task is not split further. */
+    private static final int PAIRS_PER_TASK = 2048;
+    private static final CombinationScoreEffect[] EFFECTS = CombinationScoreEffect.values();
+
+    private final List<String> drugs;
+    private final List<Profile> profiles;
+    private final InteractionEngine engine;
+    private final int[] overlap;
+    private final byte[] effect;
+    private final float[] combinedScore;
+
+    /**
+     * Genes of one drug as sorted ids, the first known score of each gene at the same
+     * position, and the ordinal of its interaction type in the combination table.
+     */
+    private record Profile(GeneSet genes, float[] scores, int type) {}
+
+    /**
+     * Resolves every drug once. The drugs must be known to the dataset and distinct.
+     *
+     * @param engine the engine over the loaded dataset
+     * @param drugs  the drug names
+     */
+    public InteractionMatrix(InteractionEngine engine, List<String> drugs) {
+        this.engine = engine;
+        this.drugs = List.copyOf(drugs);
+        this.profiles = new ArrayList<>(drugs.size());
+        InteractionIndex index = engine.dataset().index();
+        for (String drug : drugs) {
+            String conceptId = engine.conceptId(drug);
+            profiles.add(new Profile(index.geneSet(conceptId), index.firstScores(conceptId),
+                    engine.typeOrdinal(conceptId)));
+        }
+
+        long pairs = (long) drugs.size() * (drugs.size() - 1) / 2;
+        if (pairs > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many drugs for one matrix: " + drugs.size());
+        }
+        this.overlap = new int[(int) pairs];
+        this.effect = new byte[(int) pairs];
+        this.combinedScore = new float[(int) pairs];
+    }
+
+    /**
+     * Computes every unordered pair.
+     *
+     * @param pool the pool to compute on
+     */
+    public void compute(ForkJoinPool pool) {
+        pool.invoke(new Rows(0, drugs.size()));
+    }
+
+    /**
+     * The rows {@code from} up to {@code to}. Row {@code i} holds the {@code n - i - 1} pairs
+     * of drug {@code i} with the drugs after it, so a task is split where half of its pairs
+     * are done, not half of its rows.
+     */
+    private final class Rows extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        Rows(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            long first = rowStart(from);
+            long end = rowStart(to);
+            if (to - from <= 1 || end - first <= PAIRS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    for (int j = i + 1; j < drugs.size(); j++) computePair(i, j);
+                }
+                return;
+            }
+            int middle = splitRow(first + (end - first) / 2);
+            invokeAll(new Rows(from, middle), new Rows(middle, to));
+        }
+
+        /** The row, strictly between {@code from} and {@code to}, that the given pair falls in. */
+        private int splitRow(long pair) {
+            int low = from + 1;
+            int high = to - 1;
+            while (low < high) {
+                int row = (low + high + 1) >>> 1;
+                if (rowStart(row) <= pair) {
+                    low = row;
+                } else {
+                    high = row - 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    private void computePair(int i, int j) {
+        Profile first = profiles.get(i);
+        Profile second = profiles.get(j);
+        int index = index(i, j);
+
+        // merge the two sorted gene id arrays
+        GeneSet genes1 = first.genes();
+        GeneSet genes2 = second.genes();
+        int shared = 0;
+        int scored = 0;
+        float plus = 0;
+        float minus = 0;
+        int a = 0;
+        int b = 0;
+        while (a < genes1.size() && b < genes2.size()) {
+            int gene1 = genes1.get(a);
+            int gene2 = genes2.get(b);
+            if (gene1 < gene2) {
+                a++;
+            } else if (gene1 > gene2) {
+                b++;
+            } else {
+                shared++;
+                float scoreDrug1 = first.scores()[a++];
+                float scoreDrug2 = second.scores()[b++];
+                if (Scores.isMissing(scoreDrug1) || Scores.isMissing(scoreDrug2)) continue;
+                scored++;
+                plus += scoreDrug1 + scoreDrug2;
+                minus += scoreDrug1 - scoreDrug2;
+            }
+        }
+
+        CombinationScoreEffect pairEffect = shared == 0
+                ? CombinationScoreEffect.UNKNOWN
+                : engine.combinationTable().effect(first.type(), second.type());
+        overlap[index] = shared;
+        effect[index] = (byte) pairEffect.ordinal();
+        combinedScore[index] = scored == 0 ? Scores.MISSING : switch (pairEffect) {
+            case ENHANCING, SYNERGETISCH -> plus;
+            case OPPOSING -> minus;
+            case UNKNOWN -> Scores.MISSING;
+        };
+    }
+
+    /** Position of pair (i, j), i &lt; j, in the upper-triangle arrays. */
+    private int index(int i, int j) {
+        return (int) (rowStart(i) + (j - i - 1));
+    }
+
+    /** Position of the first pair of row {@code i}; for {@code i = n} the number of pairs. */
+    private long rowStart(int i) {
+        int n = drugs.size();
+        return (long) i * n - (long) i * (i + 1) / 2;
+    }
+
+    public List<String> drugs() {
+        return drugs;
+    }
+
+    /** Number of overlapping genes of drugs {@code i} and {@code j}. */
+    public int overlap(int i, int j) {
+        return overlap[index(Math.min(i, j), Math.max(i, j))];
+    }
+
+    /** Combination effect of drugs {@code i} and {@code j}, UNKNOWN when there is no overlap. */
+    public CombinationScoreEffect effect(int i, int j) {
+        return EFFECTS[effect[index(Math.min(i, j), Math.max(i, j))]];
+    }
+
+    /**
+     * Sum of the combined scores over the overlapping genes of drugs {@code i} (first drug)
+     * and {@code j} (second drug), or NaN when the effect is unknown or none of the
+     * overlapping genes has a score for both drugs. Genes with a missing score are left
+     * out of the sum. Only an opposing score depends on the order of the drugs; it
+     * changes sign.
+     */
+    public float combinedScore(int i, int j) {
+        if (i < j) return combinedScore[index(i, j)];
+        float score = combinedScore[index(j, i)];
+        return effect(i, j) == CombinationScoreEffect.OPPOSING ? -score : score;
+    }
+}
@@ -0,0 +1,292 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.models.Interaction;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Columnar, dictionary-encoded storage of all interactions. Instead of one
+ * {@link Interaction} object with four strings per row, every row is an int gene id,
+ * an int type id and a float score in parallel primitive arrays. Gene names, interaction
+ * types and concept ids are each stored once, in shared dictionaries.
+ *
+ * <p>Rows are grouped by drug concept, in the order the concepts are first seen; within
+ * a concept the rows keep their order from the file. The concept column is therefore
+ * stored as one start offset per concept instead of one id per row.</p>
+ *
+ * <p>{@link #forConcept(String)} and {@link #interaction(int)} give {@link Interaction}
+ * views on the columns for code that works with records. Scores are parsed once, with
+ * {@link Scores#parse(String)}; a missing score shows as {@code "NaN"} in the view.</p>
+ */
+public final class InteractionStore {
+    private final GeneDictionary genes;
+    private final String[] typeNames;
+    private final String[] conceptIds;
+    private final Map<String, Integer> conceptById;
+    /** Rows of concept {@code c} are {@code conceptStart[c]} up to {@code conceptStart[c + 1]}. */
+    private final int[] conceptStart;
+    private final int[] gene;
+    private final int[] type;
+    private final float[] score;
+
+    private InteractionStore(GeneDictionary genes, String[] typeNames, String[] conceptIds,
+                             Map<String, Integer> conceptById, int[] conceptStart,
+                             int[] gene, int[] type, float[] score) {
+        this.genes = genes;
+        this.typeNames = typeNames;
+        this.conceptIds = conceptIds;
+        this.conceptById = conceptById;
+        this.conceptStart = conceptStart;
+        this.gene = gene;
+        this.type = type;
+        this.score = score;
+    }
+
+    /** Builds a store from parsed interaction records. */
+    public static InteractionStore of(List<Interaction> interactions) {
+        Builder builder = new Builder(interactions.size());
+        for (Interaction interaction : interactions) builder.add(interaction);
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder(1024);
+    }
+
+    /** Number of rows. */
+    public int size() {
+        return gene.length;
+    }
+
+    /** Number of distinct drug concepts. */
+    public int conceptCount() {
+        return conceptIds.length;
+    }
+
+    /**
+     * Looks up the number of a drug concept in this store.
+     *
+     * @param conceptId the drug concept id
+     * @return the concept number, or -1 if the concept has no interactions
+     */
+    public int concept(String conceptId) {
+        Integer concept = conceptById.get(conceptId);
+        return concept == null ? -1 : concept;
+    }
+
+    public String conceptId(int concept) {
+        return conceptIds[concept];
+    }
+
+    /** First row of a concept. */
+    public int start(int concept) {
+        return conceptStart[concept];
+    }
+
+    /** Row after the last row of a concept. */
+    public int end(int concept) {
+        return conceptStart[concept + 1];
+    }
+
+    /** Gene id of a row, see {@link #genes()}. */
+    public int gene(int row) {
+        return gene[row];
+    }
+
+    /** Type id of a row, see {@link #typeName(int)}. */
+    public int type(int row) {
+        return type[row];
+    }
+
+    /** Score of a row, {@link Scores#MISSING} when the file had none. */
+    public float score(int row) {
+        return score[row];
+    }
+
+    public GeneDictionary genes() {
+        return genes;
+    }
+
+    public String typeName(int typeId) {
+        return typeNames[typeId];
+    }
+
+    /** Number of distinct interaction types. */
+    public int typeCount() {
+        return typeNames.length;
+    }
+
+    /** A record view of one row. */
+    public Interaction interaction(int row) {
+        return view(row, conceptOf(row));
+    }
+
+    /**
+     * Returns the interactions of one drug concept as a read-only view on the columns.
+     *
+     * @param conceptId the drug concept id
+     * @return the interactions in file order, or an empty list if the concept has none
+     */
+    public List<Interaction> forConcept(String conceptId) {
+        int concept = concept(conceptId);
+        return concept < 0 ? List.of() : new ConceptRows(concept);
+    }
+
+    private Interaction view(int row, int concept) {
+        return new Interaction(genes.name(gene[row]), typeNames[type[row]],
+                Float.toString(score[row]), conceptIds[concept]);
+    }
+
+    private int conceptOf(int row) {
+        // every concept has at least one row, so the start offsets are strictly increasing
+        int found = Arrays.binarySearch(conceptStart, row);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    private final class ConceptRows extends AbstractList<Interaction> implements RandomAccess {
+        private final int concept;
+        private final int from;
+        private final int size;
+
+        ConceptRows(int concept) {
+            this.concept = concept;
+            this.from = conceptStart[concept];
+            this.size = conceptStart[concept + 1] - from;
+        }
+
+        @Override
+        public Interaction get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+            return view(from + index, concept);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Collects rows in any concept order and groups them by concept on {@link #build()}.
+     */
+    public static final class Builder {
+        private final GeneDictionary genes = new GeneDictionary();
+        private final Map<String, Integer> typeById = new HashMap<>();
+        private final List<String> typeNames = new ArrayList<>();
+        private final Map<String, Integer> conceptById = new HashMap<>();
+        private final List<String> conceptIds = new ArrayList<>();
+        private int[] concept;
+        private int[] gene;
+        private int[] type;
+        private float[] score;
+        private int size;
+
+        private Builder(int capacity) {
+            int initial = Math.max(capacity, 16);
+            concept = new int[initial];
+            gene = new int[initial];
+            type = new int[initial];
+            score = new float[initial];
+        }
+
+        /** Adds a parsed record; the score is parsed with {@link Scores#parse(String)}. */
+        public Builder add(Interaction interaction) {
+            return add(interaction.drugConceptId(), interaction.geneClaimName(),
+                    interaction.interactionType(), Scores.parse(interaction.interactionScore()));
+        }
+
+        public Builder add(String conceptId, String geneName, String typeName, float value) {
+            if (size == gene.length) {
+                int grown = size + (size >> 1);
+                concept = Arrays.copyOf(concept, grown);
+                gene = Arrays.copyOf(gene, grown);
+                type = Arrays.copyOf(type, grown);
+                score = Arrays.copyOf(score, grown);
+            }
+            concept[size] = code(conceptById, conceptIds, conceptId);
+            gene[size] = genes.intern(geneName);
+            type[size] = code(typeById, typeNames, typeName);
+            score[size] = value;
+            size++;
+            return this;
+        }
+
+        /**
+         * Adds the rows of another builder after the rows of this one, in their order. The
+         * other builder's codes are mapped onto this builder's dictionaries once per distinct
+         * value, so builders filled on separate threads merge without going through records.
+         */
+        public Builder addAll(Builder other) {
+            int[] geneCodes = new int[other.genes.size()];
+            for (int id = 0; id < geneCodes.length; id++) geneCodes[id] = genes.intern(other.genes.name(id));
+            int[] typeCodes = codes(other.typeNames, typeById, typeNames);
+            int[] conceptCodes = codes(other.conceptIds, conceptById, conceptIds);
+
+            int needed = size + other.size;
+            if (needed > gene.length) {
+                int grown = Math.max(needed, size + (size >> 1));
+                concept = Arrays.copyOf(concept, grown);
+                gene = Arrays.copyOf(gene, grown);
+                type = Arrays.copyOf(type, grown);
+                score = Arrays.copyOf(score, grown);
+            }
+            for (int row = 0; row < other.size; row++) {
+                concept[size + row] = conceptCodes[other.concept[row]];
+                gene[size + row] = geneCodes[other.gene[row]];
+                type[size + row] = typeCodes[other.type[row]];
+            }
+            System.arraycopy(other.score, 0, score, size, other.size);
+            size = needed;
+            return this;
+        }
+
+        /** Number of rows added so far. */
+        public int size() {
+            return size;
+        }
+
+        /** Groups the rows by concept with a stable counting sort and returns the store. */
+        public InteractionStore build() {
+            int concepts = conceptIds.size();
+            int[] start = new int[concepts + 1];
+            for (int row = 0; row < size; row++) start[concept[row] + 1]++;
+            for (int c = 0; c < concepts; c++) start[c + 1] += start[c];
+
+            int[] next = Arrays.copyOf(start, concepts);
+            int[] sortedGene = new int[size];
+            int[] sortedType = new int[size];
+            float[] sortedScore = new float[size];
+            for (int row = 0; row < size; row++) {
+                int target = next[concept[row]]++;
+                sortedGene[target] = gene[row];
+                sortedType[target] = type[row];
+                sortedScore[target] = score[row];
+            }
+            return new InteractionStore(genes, typeNames.toArray(String[]::new),
+                    conceptIds.toArray(String[]::new), new HashMap<>(conceptById),
+                    start, sortedGene, sortedType, sortedScore);
+        }
+
+        private static int[] codes(List<String> values, Map<String, Integer> codes, List<String> into) {
+            int[] mapped = new int[values.size()];
+            for (int i = 0; i < mapped.length; i++) mapped[i] = code(codes, into, values.get(i));
+            return mapped;
+        }
+
+        private static int code(Map<String, Integer> codes, List<String> values, String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+    }
+}
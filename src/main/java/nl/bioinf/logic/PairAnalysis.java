@@ -0,0 +1,102 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.io.CombinationScoreEffect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Outcome of the analysis of one drug pair, as returned by
+ * {@link InteractionEngine#analyze(String, String)}. It only holds data; text, JSON or
+ * PDF is produced by a renderer when an output asks for it.
+ * <p>
+ * {@code firstCandidates} and {@code secondCandidates} are every concept a drug name
+ * matches; more than one means the name is ambiguous and the first one was used.
+ * {@code combinationResult} is "unknown" when there is no gene overlap and "Unknown"
+ * when the two interaction types are not in drug_combinations.tsv
+ * ({@code combinationInTable} is then false). {@code effect} is UNKNOWN in both cases.
+ */
+public record PairAnalysis(
+        String firstDrug,
+        String secondDrug,
+        String firstConceptId,
+        String secondConceptId,
+        List<String> firstCandidates,
+        List<String> secondCandidates,
+        int firstGeneCount,
+        int secondGeneCount,
+        Set<String> overlap,
+        String firstType,
+        String secondType,
+        String combinationResult,
+        boolean combinationInTable,
+        CombinationScoreEffect effect,
+        List<InteractionChecker.GeneScore> geneScores
+) {
+    public PairAnalysis {
+        // unmodifiable views instead of copies, Set.copyOf would not keep the iteration order
+        overlap = Collections.unmodifiableSet(overlap);
+        geneScores = Collections.unmodifiableList(geneScores);
+        firstCandidates = List.copyOf(firstCandidates);
+        secondCandidates = List.copyOf(secondCandidates);
+    }
+
+    /**
+     * The same analysis under other names for its two concepts, for example aliases or the
+     * names of another query that resolved to the same pair.
+     *
+     * @param swap whether the drugs are asked in the opposite order, so that everything of
+     *             the first drug, including its score per gene, becomes the second
+     */
+    public PairAnalysis withNames(String firstDrug, String secondDrug,
+                                  List<String> firstCandidates, List<String> secondCandidates, boolean swap) {
+        if (!swap) {
+            return new PairAnalysis(firstDrug, secondDrug, firstConceptId, secondConceptId,
+                    firstCandidates, secondCandidates, firstGeneCount, secondGeneCount, overlap,
+                    firstType, secondType, combinationResult, combinationInTable, effect, geneScores);
+        }
+        List<InteractionChecker.GeneScore> swapped = new ArrayList<>(geneScores.size());
+        for (InteractionChecker.GeneScore geneScore : geneScores) {
+            swapped.add(new InteractionChecker.GeneScore(geneScore.gene(), geneScore.scoreDrug2(), geneScore.scoreDrug1()));
+        }
+        return new PairAnalysis(firstDrug, secondDrug, secondConceptId, firstConceptId,
+                firstCandidates, secondCandidates, secondGeneCount, firstGeneCount, overlap,
+                secondType, firstType, combinationResult, combinationInTable, effect, swapped);
+    }
+
+    public boolean hasOverlap() {
+        return !overlap.isEmpty();
+    }
+
+    /**
+     * Combined score of one gene under the effect of this pair.
+     *
+     * @return the score, or {@link Scores#MISSING} when the effect is unknown or a score is missing
+     */
+    public float combinedScore(InteractionChecker.GeneScore geneScore) {
+        if (Scores.isMissing(geneScore.scoreDrug1()) || Scores.isMissing(geneScore.scoreDrug2())) {
+            return Scores.MISSING;
+        }
+        return effect.combine(geneScore.scoreDrug1(), geneScore.scoreDrug2());
+    }
+
+    /**
+     * Sum of the combined scores of all genes that have both scores, the same number as
+     * the all-pairs matrix reports.
+     *
+     * @return the sum, or {@link Scores#MISSING} when the effect is unknown or no gene has both scores
+     */
+    public float totalCombinedScore() {
+        float total = 0;
+        int scored = 0;
+        for (InteractionChecker.GeneScore geneScore : geneScores) {
+            float combined = combinedScore(geneScore);
+            if (Scores.isMissing(combined)) continue;
+            total += combined;
+            scored++;
+        }
+        return scored == 0 ? Scores.MISSING : total;
+    }
+}
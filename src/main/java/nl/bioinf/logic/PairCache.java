@@ -0,0 +1,179 @@
+package nl.bioinf.logic;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Least-recently-used cache of pair analyses in front of one {@link InteractionEngine}.
+ * <p>
+ * Entries are keyed on the unordered pair of concept ids, so aliases of a drug and both
+ * orders of a pair share one entry; a hit is given the names and order of the query. The
+ * cache is bounded by an estimate of the memory its entries take ({@link #weight(PairAnalysis)}),
+ * not by their number, because the analysis of two well-studied drugs can hold thousands of
+ * genes. Queries for the same pair that arrive while it is being analysed wait for that
+ * analysis instead of running their own.
+ * <p>
+ * The cache belongs to the engine it was made for; a new dataset needs a new cache.
+ */
+public class PairCache {
+    private final InteractionEngine engine;
+    private final long maxBytes;
+    /** Analyses a pair of concept ids, the smaller id first. */
+    private final BiFunction<String, String, PairAnalysis> analysis;
+
+    /** Access-ordered, so iteration starts at the least recently used entry. Guarded by {@code this}. */
+    private final LinkedHashMap<Key, PairAnalysis> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<Key, CompletableFuture<PairAnalysis>> running = new ConcurrentHashMap<>();
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long coalesced;
+    private long evictions;
+
+    /** The unordered pair of concept ids, the smaller id first. */
+    private record Key(String first, String second) {
+        static Key of(String a, String b) {
+            return a.compareTo(b) <= 0 ? new Key(a, b) : new Key(b, a);
+        }
+    }
+
+    /**
+     * Counters of the cache since it was made.
+     *
+     * @param hits      queries answered from the cache
+     * @param misses    queries not found in the cache
+     * @param coalesced misses that waited for the analysis of an identical query instead of running one
+     * @param evictions entries dropped to stay under the size limit
+     * @param entries   entries now in the cache
+     * @param bytes     estimated size of those entries
+     * @param maxBytes  the size limit
+     */
+    public record Stats(long hits, long misses, long coalesced, long evictions, int entries, long bytes, long maxBytes) {}
+
+    /**
+     * @param engine   the engine whose analyses are cached
+     * @param maxBytes estimated memory the entries may take; 0 caches nothing but still
+     *                 coalesces identical queries
+     */
+    public PairCache(InteractionEngine engine, long maxBytes) {
+        this(engine, maxBytes, (first, second) -> engine.analyzeConcepts(first, second, first, second,
+                List.of(first), List.of(second), Profiler.OFF));
+    }
+
+    /** With another analysis than the engine's, so tests can watch or hold it. */
+    PairCache(InteractionEngine engine, long maxBytes, BiFunction<String, String, PairAnalysis> analysis) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("ERROR: Cache size cannot be negative, got " + maxBytes + ".");
+        }
+        this.engine = engine;
+        this.maxBytes = maxBytes;
+        this.analysis = analysis;
+    }
+
+    public InteractionEngine engine() {
+        return engine;
+    }
+
+    /**
+     * The analysis of a pair of drugs, from the cache when the pair was asked before.
+     *
+     * @throws IllegalArgumentException if one of the drugs is not found
+     * @see InteractionEngine#analyze(String, String)
+     */
+    public PairAnalysis analyze(String firstDrug, String secondDrug) {
+        String idDrug1 = engine.conceptId(firstDrug);
+        String idDrug2 = engine.conceptId(secondDrug);
+        Key key = Key.of(idDrug1, idDrug2);
+        boolean swap = !key.first().equals(idDrug1);
+
+        PairAnalysis cached = lookup(key);
+        if (cached == null) cached = compute(key);
+        return cached.withNames(firstDrug, secondDrug,
+                engine.conceptIds(firstDrug), engine.conceptIds(secondDrug), swap);
+    }
+
+    private PairAnalysis compute(Key key) {
+        CompletableFuture<PairAnalysis> mine = new CompletableFuture<>();
+        CompletableFuture<PairAnalysis> other = running.putIfAbsent(key, mine);
+        if (other != null) {
+            synchronized (this) {
+                coalesced++;
+            }
+            try {
+                return other.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+
+        try {
+            // another thread may have stored the pair between our lookup and putIfAbsent
+            PairAnalysis result = peek(key);
+            if (result == null) {
+                result = analysis.apply(key.first(), key.second());
+                store(key, result);
+            }
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(key, mine);
+        }
+    }
+
+    private synchronized PairAnalysis lookup(Key key) {
+        PairAnalysis analysis = entries.get(key);
+        if (analysis != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return analysis;
+    }
+
+    private synchronized PairAnalysis peek(Key key) {
+        return entries.get(key);
+    }
+
+    private synchronized void store(Key key, PairAnalysis analysis) {
+        long weight = weight(analysis);
+        if (weight > maxBytes) return;
+        PairAnalysis previous = entries.put(key, analysis);
+        if (previous != null) bytes -= weight(previous);
+        bytes += weight;
+        for (Iterator<PairAnalysis> eldest = entries.values().iterator(); bytes > maxBytes && eldest.hasNext(); ) {
+            bytes -= weight(eldest.next());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /** Drops every entry; the counters are kept. */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, coalesced, evictions, entries.size(), bytes, maxBytes);
+    }
+
+    /**
+     * Rough size of a cached analysis in bytes: a fixed part for the record, its strings
+     * and lists, and per overlapping gene its name, its set entry and its score.
+     */
+    static long weight(PairAnalysis analysis) {
+        long perGene = 0;
+        for (String gene : analysis.overlap()) perGene += 96 + 2L * gene.length();
+        return 512 + perGene;
+    }
+}
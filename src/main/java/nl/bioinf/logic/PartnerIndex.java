@@ -0,0 +1,223 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.io.CombinationScoreEffect;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Reverse index from a gene to the drug concepts that interact with it, for the question
+ * "which drugs share the most genes with this one?".
+ *
+ * <p>The index is built once from an {@link InteractionEngine}: for every gene id the
+ * concepts that touch it, each with its first known score for that gene, in flat arrays. A query
+ * walks only the genes of the asked drug and, per gene, the concepts listed for it, and adds
+ * up shared genes and scores per concept in a sparse accumulator: arrays over all concepts
+ * of which only the touched entries are used and reset. Accumulators are pooled, so a query
+ * does not allocate or clear arrays over all concepts. The top K are then picked with a heap
+ * of size K.</p>
+ *
+ * <p>The index is immutable and can be queried from any number of threads.</p>
+ */
+public class PartnerIndex {
+
+    /** What partners are ranked by; ties go to the partner with more shared genes. */
+    public enum Ranking {
+        /** Number of shared genes. */
+        SHARED_GENES,
+        /** Sum of both interaction scores over the shared genes that have both scores. */
+        SCORE,
+        /**
+         * Total combined score under the combination effect of the pair, as in the report;
+         * partners whose effect is unknown or without scored genes come last.
+         */
+        COMBINED_SCORE;
+
+        /** Parses a ranking name, case-insensitively and with '-' for '_'. */
+        public static Ranking parse(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("ERROR: Unknown ranking '" + name
+                        + "', use shared-genes, score or combined-score.");
+            }
+        }
+    }
+
+    /**
+     * One partner of the asked drug.
+     *
+     * @param conceptId     the partner's concept id
+     * @param name          the partner's first name in the drugs file, {@code null} if it has none
+     * @param sharedGenes   genes both drugs interact with
+     * @param score         sum of both scores over the shared genes that have both, 0 if none
+     * @param effect        combination effect of the asked drug (first) with the partner (second)
+     * @param combinedScore total combined score under that effect, {@link Scores#MISSING} if unknown
+     */
+    public record Partner(String conceptId, String name, int sharedGenes, float score,
+                          CombinationScoreEffect effect, float combinedScore) {}
+
+    private final InteractionEngine engine;
+    private final InteractionStore store;
+    /** Entries of gene {@code g} are {@code geneStart[g]} up to {@code geneStart[g + 1]}. */
+    private final int[] geneStart;
+    private final int[] concepts;
+    private final float[] scores;
+    /** Ordinal in the combination table of the interaction type of every concept. */
+    private final int[] typeOrdinals;
+    private final ConcurrentLinkedQueue<Accumulator> accumulators = new ConcurrentLinkedQueue<>();
+
+    public PartnerIndex(InteractionEngine engine) {
+        this.engine = engine;
+        InteractionIndex index = engine.dataset().index();
+        this.store = index.store();
+        int conceptCount = store.conceptCount();
+
+        this.geneStart = new int[index.genes().size() + 1];
+        this.typeOrdinals = new int[conceptCount];
+        for (int concept = 0; concept < conceptCount; concept++) {
+            GeneSet genes = index.geneSet(store.conceptId(concept));
+            for (int i = 0; i < genes.size(); i++) geneStart[genes.get(i) + 1]++;
+            typeOrdinals[concept] = engine.typeOrdinal(store.conceptId(concept));
+        }
+        for (int gene = 0; gene + 1 < geneStart.length; gene++) geneStart[gene + 1] += geneStart[gene];
+
+        this.concepts = new int[geneStart[geneStart.length - 1]];
+        this.scores = new float[concepts.length];
+        int[] next = geneStart.clone();
+        for (int concept = 0; concept < conceptCount; concept++) {
+            String conceptId = store.conceptId(concept);
+            GeneSet genes = index.geneSet(conceptId);
+            float[] first = index.firstScores(conceptId);
+            for (int i = 0; i < genes.size(); i++) {
+                int slot = next[genes.get(i)]++;
+                concepts[slot] = concept;
+                scores[slot] = first[i];
+            }
+        }
+    }
+
+    /**
+     * The drugs that share the most genes with one drug, best first.
+     *
+     * @param drug    the drug name
+     * @param k       how many partners to return at most
+     * @param ranking what to rank the partners by
+     * @return the partners, fewer than {@code k} if fewer drugs share a gene with it
+     * @throws IllegalArgumentException if the drug is not found or {@code k} is smaller than one
+     */
+    public List<Partner> topPartners(String drug, int k, Ranking ranking) {
+        if (k < 1) {
+            throw new IllegalArgumentException("ERROR: The number of partners must be at least 1, got " + k + ".");
+        }
+        String conceptId = engine.conceptId(drug);
+        int concept = store.concept(conceptId);
+        if (concept < 0) return List.of();
+
+        Accumulator accumulator = accumulators.poll();
+        if (accumulator == null) accumulator = new Accumulator(store.conceptCount());
+        try {
+            InteractionIndex index = engine.dataset().index();
+            GeneSet genes = index.geneSet(conceptId);
+            float[] own = index.firstScores(conceptId);
+            for (int i = 0; i < genes.size(); i++) {
+                int gene = genes.get(i);
+                for (int slot = geneStart[gene]; slot < geneStart[gene + 1]; slot++) {
+                    if (concepts[slot] != concept) accumulator.add(concepts[slot], own[i], scores[slot]);
+                }
+            }
+            return select(accumulator, concept, k, ranking);
+        } finally {
+            accumulator.clear();
+            accumulators.offer(accumulator);
+        }
+    }
+
+    private List<Partner> select(Accumulator accumulator, int concept, int k, Ranking ranking) {
+        Comparator<Partner> better = order(ranking);
+        // min-heap on the ranking, so the weakest of the best k is at the head
+        PriorityQueue<Partner> best = new PriorityQueue<>(better.reversed());
+        for (int t = 0; t < accumulator.touchedCount; t++) {
+            int other = accumulator.touched[t];
+            Partner partner = partner(accumulator, concept, other);
+            if (best.size() < k) {
+                best.add(partner);
+            } else if (better.compare(partner, best.peek()) < 0) {
+                best.poll();
+                best.add(partner);
+            }
+        }
+        List<Partner> result = new ArrayList<>(best);
+        result.sort(better);
+        return result;
+    }
+
+    private Partner partner(Accumulator accumulator, int concept, int other) {
+        int shared = accumulator.shared[other];
+        boolean scored = accumulator.scored[other] > 0;
+        CombinationScoreEffect effect = engine.combinationTable().effect(typeOrdinals[concept], typeOrdinals[other]);
+        float combined = !scored ? Scores.MISSING : switch (effect) {
+            case ENHANCING, SYNERGETISCH -> accumulator.plus[other];
+            case OPPOSING -> accumulator.minus[other];
+            case UNKNOWN -> Scores.MISSING;
+        };
+        String conceptId = store.conceptId(other);
+        return new Partner(conceptId, engine.dataset().dictionary().name(conceptId), shared,
+                scored ? accumulator.plus[other] : 0, effect, combined);
+    }
+
+    /** Best first: the ranking value, then more shared genes, then the concept id. */
+    private static Comparator<Partner> order(Ranking ranking) {
+        Comparator<Partner> byValue = switch (ranking) {
+            case SHARED_GENES -> Comparator.comparingInt(Partner::sharedGenes).reversed();
+            case SCORE -> Comparator.comparingDouble(Partner::score).reversed();
+            // missing scores last
+            case COMBINED_SCORE -> Comparator.comparingDouble((Partner partner) ->
+                    Scores.isMissing(partner.combinedScore()) ? Double.NEGATIVE_INFINITY : partner.combinedScore())
+                    .reversed();
+        };
+        return byValue.thenComparing(Comparator.comparingInt(Partner::sharedGenes).reversed())
+                .thenComparing(Partner::conceptId);
+    }
+
+    /** Per-concept sums of one query; only the entries listed in {@code touched} are in use. */
+    private static final class Accumulator {
+        final int[] shared;
+        final int[] scored;
+        final float[] plus;
+        final float[] minus;
+        final int[] touched;
+        int touchedCount;
+
+        Accumulator(int conceptCount) {
+            shared = new int[conceptCount];
+            scored = new int[conceptCount];
+            plus = new float[conceptCount];
+            minus = new float[conceptCount];
+            touched = new int[conceptCount];
+        }
+
+        void add(int concept, float ownScore, float otherScore) {
+            if (shared[concept]++ == 0) touched[touchedCount++] = concept;
+            if (Scores.isMissing(ownScore) || Scores.isMissing(otherScore)) return;
+            scored[concept]++;
+            plus[concept] += ownScore + otherScore;
+            minus[concept] += ownScore - otherScore;
+        }
+
+        void clear() {
+            for (int t = 0; t < touchedCount; t++) {
+                int concept = touched[t];
+                shared[concept] = 0;
+                scored[concept] = 0;
+                plus[concept] = 0;
+                minus[concept] = 0;
+            }
+            touchedCount = 0;
+        }
+    }
+}
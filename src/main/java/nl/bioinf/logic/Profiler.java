@@ -0,0 +1,158 @@
+package nl.bioinf.logic;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records wall time, CPU time and allocated bytes per phase of a run, for {@code --profile}.
+ * A phase is measured between {@link #begin(String)} and {@link Phase#end()}; a phase that
+ * runs more than once is summed.
+ * <p>
+ * CPU time and allocations are those of the whole process, so that phases that run on
+ * several threads (parallel loading, batch workers) are counted in full. Phases must
+ * therefore not overlap: a phase measured while another one runs would count the other's
+ * work too. CPU time includes the JVM's own threads such as the garbage collector.
+ * When the JVM cannot report CPU time or allocations they are -1.
+ * <p>
+ * {@link #OFF} measures nothing and costs nothing, so code can always be instrumented.
+ */
+public class Profiler {
+    /** A profiler that does not measure. */
+    public static final Profiler OFF = new Profiler(false);
+
+    private static final Phase NOT_MEASURED = new Phase(null, null, 0, 0, 0);
+
+    private final boolean enabled;
+    private final Map<String, Result> results = new LinkedHashMap<>();
+
+    private Profiler(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Profiler() {
+        this(true);
+    }
+
+    /**
+     * Totals of one phase.
+     *
+     * @param name           the phase
+     * @param count          how often the phase ran
+     * @param wallNanos      elapsed time
+     * @param cpuNanos       CPU time of the process, -1 if unknown
+     * @param allocatedBytes bytes allocated by all threads, -1 if unknown
+     * @param items          items processed, such as rows read, 0 if not counted
+     */
+    public record Result(String name, int count, long wallNanos, long cpuNanos, long allocatedBytes, long items) {
+
+        /** Items per second of wall time, 0 if no items were counted. */
+        public double itemsPerSecond() {
+            return items == 0 || wallNanos == 0 ? 0 : items * 1e9 / wallNanos;
+        }
+
+        Result plus(long wall, long cpu, long allocated, long moreItems) {
+            return new Result(name, count + 1, wallNanos + wall,
+                    cpuNanos < 0 || cpu < 0 ? -1 : cpuNanos + cpu,
+                    allocatedBytes < 0 || allocated < 0 ? -1 : allocatedBytes + allocated,
+                    items + moreItems);
+        }
+    }
+
+    /** A running phase. */
+    public static final class Phase {
+        private final Profiler profiler;
+        private final String name;
+        private final long wall;
+        private final long cpu;
+        private final long allocated;
+
+        private Phase(Profiler profiler, String name, long wall, long cpu, long allocated) {
+            this.profiler = profiler;
+            this.name = name;
+            this.wall = wall;
+            this.cpu = cpu;
+            this.allocated = allocated;
+        }
+
+        public void end() {
+            end(0);
+        }
+
+        /** Ends the phase and records how many items, such as rows, it processed. */
+        public void end(long items) {
+            if (profiler == null) return;
+            long cpuNow = cpuNanos();
+            long allocatedNow = allocatedBytes();
+            profiler.record(name, System.nanoTime() - wall,
+                    cpu < 0 || cpuNow < 0 ? -1 : cpuNow - cpu,
+                    allocated < 0 || allocatedNow < 0 ? -1 : allocatedNow - allocated,
+                    items);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Starts measuring a phase. */
+    public Phase begin(String name) {
+        if (!enabled) return NOT_MEASURED;
+        return new Phase(this, name, System.nanoTime(), cpuNanos(), allocatedBytes());
+    }
+
+    private synchronized void record(String name, long wall, long cpu, long allocated, long items) {
+        Result previous = results.get(name);
+        if (previous == null) previous = new Result(name, 0, 0, 0, 0, 0);
+        results.put(name, previous.plus(wall, cpu, allocated, items));
+    }
+
+    /** The phases in the order they first ran. */
+    public synchronized List<Result> results() {
+        return new ArrayList<>(results.values());
+    }
+
+    /** Prints one line per phase and a total. */
+    public void print(PrintStream out) {
+        List<Result> phases = results();
+        out.printf(" %-22s %6s %10s %10s %12s %14s%n", "Phase", "Runs", "Wall ms", "CPU ms", "Alloc MB", "Items/s");
+        long wall = 0;
+        long cpu = 0;
+        long allocated = 0;
+        for (Result phase : phases) {
+            printLine(out, phase.name(), Integer.toString(phase.count()), phase.wallNanos(), phase.cpuNanos(),
+                    phase.allocatedBytes(), phase.itemsPerSecond());
+            wall += phase.wallNanos();
+            cpu = cpu < 0 || phase.cpuNanos() < 0 ? -1 : cpu + phase.cpuNanos();
+            allocated = allocated < 0 || phase.allocatedBytes() < 0 ? -1 : allocated + phase.allocatedBytes();
+        }
+        printLine(out, "total", "", wall, cpu, allocated, 0);
+    }
+
+    private static void printLine(PrintStream out, String name, String runs, long wall, long cpu, long allocated,
+                                  double itemsPerSecond) {
+        out.printf(" %-22s %6s %10.1f %10s %12s %14s%n", name, runs, wall / 1e6,
+                cpu < 0 ? "n/a" : String.format("%.1f", cpu / 1e6),
+                allocated < 0 ? "n/a" : String.format("%.1f", allocated / (1024.0 * 1024.0)),
+                itemsPerSecond == 0 ? "" : String.format("%.0f", itemsPerSecond));
+    }
+
+    private static long cpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    /** Bytes allocated by all threads since the JVM started, including threads that have ended. */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,47 @@
+package nl.bioinf.logic;
+
+/**
+ * Policy for interaction scores. Scores are parsed once, while loading, into a float;
+ * a score that is absent from the file is stored as {@link #MISSING} instead of failing
+ * the run. DGIdb leaves the score blank or writes {@code NULL} for many interactions.
+ *
+ * <ul>
+ *     <li>blank, {@code NULL}, {@code NA}, {@code NaN}, infinite or otherwise unreadable
+ *     values are missing</li>
+ *     <li>a missing score is shown as {@code n/a} in reports and {@code null}/{@code NA}
+ *     in JSON and TSV output</li>
+ *     <li>a gene with a missing score still counts as overlap, but gets no combined score
+ *     and is left out of summed scores</li>
+ * </ul>
+ */
+public final class Scores {
+    /** Sentinel for a missing score. Test with {@link #isMissing(float)}, never with {@code ==}. */
+    public static final float MISSING = Float.NaN;
+
+    private Scores() {}
+
+    /**
+     * Parses a score from the interactions file.
+     *
+     * @param text the score as written in the file, may be null
+     * @return the score, or {@link #MISSING}
+     */
+    public static float parse(String text) {
+        if (text == null || text.isBlank()) return MISSING;
+        try {
+            float score = Float.parseFloat(text.trim());
+            return Float.isFinite(score) ? score : MISSING;
+        } catch (NumberFormatException e) {
+            return MISSING;
+        }
+    }
+
+    public static boolean isMissing(float score) {
+        return Float.isNaN(score);
+    }
+
+    /** The score as text for reports, {@code n/a} when it is missing. */
+    public static String format(float score) {
+        return isMissing(score) ? "n/a" : Float.toString(score);
+    }
+}
@@ -0,0 +1,264 @@
+package nl.bioinf.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Approximate search for drugs with a similar set of genes, by MinHash signatures and
+ * locality-sensitive hashing (LSH), so a query does not compare the drug with every other one.
+ *
+ * <p>Every concept gets a signature of {@code n} MinHash values: per hash function the
+ * smallest hash of its gene ids. Two signatures agree on a value with a probability equal
+ * to the Jaccard similarity of the two gene sets, so the share of equal values estimates it.
+ * The signature is cut into {@code b} bands of {@code r} values; concepts that agree on all
+ * values of at least one band are candidates. Per band the concepts are sorted by the hash
+ * of their band, so finding the concepts of one band is a binary search.</p>
+ *
+ * <p>{@link Settings} holds the wanted error bounds, from which {@code n}, {@code b} and
+ * {@code r} are derived:</p>
+ * <ul>
+ *     <li>{@code n = ⌈ln(2/failureRate) / (2·error²)⌉}, so by Hoeffding's inequality an
+ *     estimate is within {@code error} of the true similarity with probability at least
+ *     {@code 1 - failureRate}</li>
+ *     <li>{@code r} is the largest number of rows per band, with {@code b = ⌊n/r⌋}, for
+ *     which a drug with similarity {@code threshold} becomes a candidate with probability
+ *     {@code 1 - (1 - threshold^r)^b ≥ 1 - failureRate}; more rows per band means fewer
+ *     candidates that are not similar</li>
+ * </ul>
+ *
+ * <p>A query computes the exact Jaccard similarity of the candidates whose estimate is at
+ * least {@code threshold - error}, which is cheap for the few candidates, and returns those
+ * whose exact similarity is at least {@code threshold}, most similar first. The estimate
+ * only decides which candidates are worth checking, so a drug below the threshold is never
+ * returned. The index is immutable and can be queried from any number of threads.</p>
+ */
+public class SimilarityIndex {
+
+    /**
+     * Error bounds of the search.
+     *
+     * @param threshold   the Jaccard similarity from which a drug counts as similar
+     * @param error       the largest error of an estimated similarity that is accepted
+     * @param failureRate the chance that an estimate is off by more than {@code error}, and
+     *                    the chance that a drug with similarity {@code threshold} is missed
+     * @param seed        seed of the hash functions
+     */
+    public record Settings(double threshold, double error, double failureRate, long seed) {
+        public static final Settings DEFAULT = new Settings(0.5, 0.1, 0.05, 42);
+
+        public Settings {
+            if (!(threshold > 0 && threshold <= 1)) {
+                throw new IllegalArgumentException("ERROR: The similarity threshold must be above 0 and at most 1, got " + threshold + ".");
+            }
+            if (!(error > 0 && error < 1) || !(failureRate > 0 && failureRate < 1)) {
+                throw new IllegalArgumentException("ERROR: The error and failure rate must be between 0 and 1.");
+            }
+        }
+
+        /** Number of MinHash values per signature. */
+        public int hashes() {
+            return (int) Math.ceil(Math.log(2 / failureRate) / (2 * error * error));
+        }
+
+        /** Rows per band, see the class comment. */
+        public int rowsPerBand() {
+            int n = hashes();
+            for (int rows = n; rows > 1; rows--) {
+                if (candidateProbability(threshold, rows, n / rows) >= 1 - failureRate) return rows;
+            }
+            return 1;
+        }
+
+        /** Chance that a drug with the given similarity becomes a candidate. */
+        static double candidateProbability(double similarity, int rows, int bands) {
+            return 1 - Math.pow(1 - Math.pow(similarity, rows), bands);
+        }
+    }
+
+    /**
+     * A drug with a similar set of genes.
+     *
+     * @param conceptId the drug's concept id
+     * @param name      the drug's first name in the drugs file, {@code null} if it has none
+     * @param estimate  the similarity estimated from the signatures
+     * @param jaccard   the exact Jaccard similarity of the two gene sets
+     */
+    public record Similar(String conceptId, String name, double estimate, double jaccard) {}
+
+    private final InteractionEngine engine;
+    private final InteractionStore store;
+    private final Settings settings;
+    private final int hashes;
+    private final int rows;
+    private final int bands;
+    private final long[] seeds;
+    /** Signature of concept {@code c} is {@code signatures[c * hashes]} up to {@code (c + 1) * hashes}. */
+    private final int[] signatures;
+    /** Per band the band hashes in ascending order, and the concept of each. */
+    private final long[][] bandKeys;
+    private final int[][] bandConcepts;
+
+    public SimilarityIndex(InteractionEngine engine, Settings settings) {
+        this.engine = engine;
+        this.store = engine.dataset().index().store();
+        this.settings = settings;
+        this.hashes = settings.hashes();
+        this.rows = settings.rowsPerBand();
+        this.bands = hashes / rows;
+        this.seeds = new long[hashes];
+        long seed = settings.seed();
+        for (int i = 0; i < hashes; i++) seeds[i] = seed = mix(seed + 0x9E3779B97F4A7C15L);
+
+        int conceptCount = store.conceptCount();
+        this.signatures = new int[conceptCount * hashes];
+        for (int concept = 0; concept < conceptCount; concept++) {
+            GeneSet genes = engine.geneSet(store.conceptId(concept));
+            int offset = concept * hashes;
+            Arrays.fill(signatures, offset, offset + hashes, Integer.MAX_VALUE);
+            for (int g = 0; g < genes.size(); g++) {
+                int gene = genes.get(g);
+                for (int i = 0; i < hashes; i++) {
+                    int hash = hash(gene, i);
+                    if (hash < signatures[offset + i]) signatures[offset + i] = hash;
+                }
+            }
+        }
+
+        this.bandKeys = new long[bands][];
+        this.bandConcepts = new int[bands][];
+        Integer[] order = new Integer[conceptCount];
+        for (int band = 0; band < bands; band++) {
+            long[] keys = new long[conceptCount];
+            for (int concept = 0; concept < conceptCount; concept++) {
+                keys[concept] = bandKey(concept, band);
+                order[concept] = concept;
+            }
+            Arrays.sort(order, Comparator.comparingLong(concept -> keys[concept]));
+            bandKeys[band] = new long[conceptCount];
+            bandConcepts[band] = new int[conceptCount];
+            for (int i = 0; i < conceptCount; i++) {
+                bandConcepts[band][i] = order[i];
+                bandKeys[band][i] = keys[order[i]];
+            }
+        }
+    }
+
+    public Settings settings() {
+        return settings;
+    }
+
+    /** Number of MinHash values per signature. */
+    public int hashes() {
+        return hashes;
+    }
+
+    public int bands() {
+        return bands;
+    }
+
+    public int rowsPerBand() {
+        return rows;
+    }
+
+    /**
+     * The drugs whose genes are most like those of one drug, most similar first.
+     *
+     * @param drug the drug name
+     * @param k    how many drugs to return at most
+     * @return the drugs with an exact similarity of at least the threshold, without the drug itself
+     * @throws IllegalArgumentException if the drug is not found or {@code k} is smaller than one
+     */
+    public List<Similar> similar(String drug, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("ERROR: The number of drugs must be at least 1, got " + k + ".");
+        }
+        String conceptId = engine.conceptId(drug);
+        int concept = store.concept(conceptId);
+        if (concept < 0) return List.of();
+
+        GeneSet genes = engine.geneSet(conceptId);
+        List<Similar> similar = new ArrayList<>();
+        for (int candidate : candidates(concept)) {
+            double estimate = estimate(concept, candidate);
+            if (estimate < settings.threshold() - settings.error()) continue;
+            String candidateId = store.conceptId(candidate);
+            double jaccard = jaccard(genes, engine.geneSet(candidateId));
+            if (jaccard < settings.threshold()) continue;
+            similar.add(new Similar(candidateId, engine.dataset().dictionary().name(candidateId), estimate, jaccard));
+        }
+        similar.sort(Comparator.comparingDouble(Similar::jaccard).reversed()
+                .thenComparing(Comparator.comparingDouble(Similar::estimate).reversed())
+                .thenComparing(Similar::conceptId));
+        return similar.size() > k ? List.copyOf(similar.subList(0, k)) : similar;
+    }
+
+    /** Concepts that agree with {@code concept} on all values of at least one band. */
+    Set<Integer> candidates(int concept) {
+        Set<Integer> candidates = new HashSet<>();
+        if (engine.geneSet(store.conceptId(concept)).isEmpty()) return candidates;
+        for (int band = 0; band < bands; band++) {
+            long[] keys = bandKeys[band];
+            long key = bandKey(concept, band);
+            int at = Arrays.binarySearch(keys, key);
+            if (at < 0) continue;
+            int from = at;
+            while (from > 0 && keys[from - 1] == key) from--;
+            for (int i = from; i < keys.length && keys[i] == key; i++) {
+                int candidate = bandConcepts[band][i];
+                if (candidate != concept && signaturesAgree(concept, candidate, band)) candidates.add(candidate);
+            }
+        }
+        return candidates;
+    }
+
+    /** Share of equal MinHash values of two concepts. */
+    double estimate(int first, int second) {
+        int equal = 0;
+        for (int i = 0; i < hashes; i++) {
+            if (signatures[first * hashes + i] == signatures[second * hashes + i]) equal++;
+        }
+        return equal / (double) hashes;
+    }
+
+    /** Exact Jaccard similarity of two gene sets, 0 when both are empty. */
+    public static double jaccard(GeneSet first, GeneSet second) {
+        int shared = first.intersect(second).length;
+        int union = first.size() + second.size() - shared;
+        return union == 0 ? 0 : shared / (double) union;
+    }
+
+    /** Rules out band hashes that are equal by chance. */
+    private boolean signaturesAgree(int first, int second, int band) {
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            if (signatures[first * hashes + i] != signatures[second * hashes + i]) return false;
+        }
+        return true;
+    }
+
+    private long bandKey(int concept, int band) {
+        long key = band;
+        for (int i = band * rows; i < (band + 1) * rows; i++) key = mix(key * 31 + signatures[concept * hashes + i]);
+        return key;
+    }
+
+    private int hash(int gene, int function) {
+        return (int) (mix(gene ^ seeds[function]) >>> 33);
+    }
+
+    /** The SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d hashes in %d bands of %d", hashes, bands, rows);
+    }
+}
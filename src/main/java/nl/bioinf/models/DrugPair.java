@@ -0,0 +1,17 @@
+package nl.bioinf.models;
+
+/**
+ * One line of a pairs file.
+ *
+ * @param error why the line is not a pair of drugs, {@code null} when it is one
+ */
+public record DrugPair(
+        long line,
+        String firstDrug,
+        String secondDrug,
+        String error
+) {
+    public DrugPair(long line, String firstDrug, String secondDrug) {
+        this(line, firstDrug, secondDrug, null);
+    }
+}
@@ -89,4 +89,18 @@ class ArgumentParserTest {
         assertEquals("ibuprofen", ap.secondDrugInput);
         assertEquals(out, ap.output);
     }
+
+    @Test
+    void picocli_profileIsOptionallyGivenAFile() {
+        ArgumentParser printed = new ArgumentParser();
+        new CommandLine(printed).parseArgs("--profile", "--drug1", "aspirin");
+        assertEquals("-", printed.profile);
+        assertEquals("aspirin", printed.firstDrugInput);
+
+        ArgumentParser json = new ArgumentParser();
+        new CommandLine(json).parseArgs("--profile=profile.json");
+        assertEquals("profile.json", json.profile);
+
+        assertNull(new ArgumentParser().profile);
+    }
 }
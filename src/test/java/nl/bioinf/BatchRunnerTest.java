@@ -0,0 +1,135 @@
+package nl.bioinf;
+
+import nl.bioinf.io.ReportRenderer;
+import nl.bioinf.io.TextReportRenderer;
+import nl.bioinf.logic.Dataset;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.models.Combination;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final InteractionEngine engine = new InteractionEngine(Dataset.of(
+            List.of(
+                    new Interaction("CYP2C9", "agonist",   "0.1", "D1"),
+                    new Interaction("CYP2D6", "agonist",   "0.2", "D1"),
+                    new Interaction("CYP2C9", "inhibitor", "0.3", "D2"),
+                    new Interaction("CYP2D6", "inhibitor", "0.4", "D3")
+            ),
+            List.of(new Drug("clonidine", "D1"), new Drug("compro", "D2"), new Drug("aspirin", "D3")),
+            List.of(new Combination("agonist", "inhibitor", "Opposing"))
+    ));
+
+    private Path pairsFile() throws IOException {
+        Path pairs = tempDir.resolve("pairs.tsv");
+        Files.writeString(pairs, String.join("\n",
+                "# first\tsecond",
+                "clonidine\tcompro",
+                "",
+                "clonidine\tunknownDrug",
+                "aspirin\tclonidine"
+        ));
+        return pairs;
+    }
+
+    @Test
+    void run_writesAllReportsInOrderToOneFile() throws IOException {
+        Path out = tempDir.resolve("batch.txt");
+
+        long count = new BatchRunner(engine, 3).run(pairsFile().toFile(), out);
+
+        assertEquals(3, count);
+        String text = Files.readString(out);
+        int first = text.indexOf("Line 2: clonidine + compro");
+        int second = text.indexOf("Line 4: clonidine + unknownDrug");
+        int third = text.indexOf("Line 5: aspirin + clonidine");
+        assertTrue(first >= 0 && first < second && second < third, text);
+        assertTrue(text.contains("Drug not found: unknownDrug"));
+        assertTrue(text.contains("Combination result: Opposing"));
+    }
+
+    @Test
+    void run_writesAllReportsToOnePdf() throws IOException {
+        Path out = tempDir.resolve("batch.pdf");
+
+        long count = new BatchRunner(engine, 2).run(pairsFile().toFile(), out);
+
+        assertEquals(3, count);
+        assertTrue(Files.size(out) > 0);
+    }
+
+    @Test
+    void run_writesOneTsvRowPerPair() throws IOException {
+        Path out = tempDir.resolve("batch.tsv");
+
+        new BatchRunner(engine, 2).run(pairsFile().toFile(), out, false, false);
+
+        List<String> lines = Files.readAllLines(out);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("drug_1\tdrug_2\t"));
+        assertTrue(lines.get(1).startsWith("clonidine\tcompro\tD1\tD2\t"));
+        assertTrue(lines.get(2).startsWith("clonidine\tunknownDrug\t"));
+        assertTrue(lines.get(2).endsWith("Drug not found: unknownDrug"), lines.get(2));
+        assertTrue(lines.get(3).startsWith("aspirin\tclonidine\t"));
+    }
+
+    @Test
+    void run_reportsALineWithoutATabAndContinues() throws IOException {
+        Path pairs = tempDir.resolve("pairs.tsv");
+        Files.writeString(pairs, "clonidine\tcompro\nclonidine compro\naspirin\tclonidine\n");
+        Path out = tempDir.resolve("batch.tsv");
+
+        long count = new BatchRunner(engine, 2).run(pairs.toFile(), out, false, false);
+
+        assertEquals(3, count);
+        List<String> lines = Files.readAllLines(out);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(2).startsWith("clonidine compro\t\t"), lines.get(2));
+        assertTrue(lines.get(2).endsWith("Malformed row (too few columns) in pairs.tsv at line 2"), lines.get(2));
+        assertTrue(lines.get(3).startsWith("aspirin\tclonidine\tD3\tD1\t"));
+    }
+
+    @Test
+    void run_rendersTheReportsOnTheWorkers() throws IOException {
+        Path out = tempDir.resolve("batch.txt");
+        Set<Thread> renderers = ConcurrentHashMap.newKeySet();
+        ReportRenderer renderer = (analysis, text) -> {
+            renderers.add(Thread.currentThread());
+            new TextReportRenderer().render(analysis, text);
+        };
+
+        new BatchRunner(engine, 2, renderer).run(pairsFile().toFile(), out);
+
+        assertFalse(renderers.isEmpty());
+        assertFalse(renderers.contains(Thread.currentThread()));
+        assertTrue(Files.readString(out).contains("Combination result: Opposing"));
+    }
+
+    @Test
+    void run_writesOneFilePerPairToDirectory() throws IOException {
+        Path dir = Files.createDirectory(tempDir.resolve("reports"));
+
+        new BatchRunner(engine, 2).run(pairsFile().toFile(), dir);
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(3, files.count());
+        }
+        assertTrue(Files.readString(dir.resolve("2_clonidine_compro.txt")).contains("Number of overlapping genes: 1"));
+    }
+}
@@ -0,0 +1,129 @@
+package nl.bioinf.io;
+
+import nl.bioinf.io.DatasetGenerator.Settings;
+import nl.bioinf.logic.Dataset;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.Scores;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final Settings SMALL = new Settings(7, 5_000, 200, 2_000, 1.0, 0.8, 2.0, 0.1, 0.25, 0.01, 0);
+
+    private Path generate(Settings settings, String name) throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve(name));
+        new DatasetGenerator(settings).write(directory);
+        return directory;
+    }
+
+    private static ReadFiles files(Path directory) {
+        return new ReadFiles(directory.resolve("interactions.tsv").toFile(), directory.resolve("drugs.tsv").toFile());
+    }
+
+    @Test
+    void write_sameSeedGivesTheSameFiles() throws IOException {
+        Path first = generate(SMALL, "first");
+        Path second = generate(SMALL, "second");
+        Path other = generate(SMALL.withSeed(8), "other");
+
+        assertEquals(Files.readString(first.resolve("interactions.tsv")), Files.readString(second.resolve("interactions.tsv")));
+        assertEquals(Files.readString(first.resolve("drugs.tsv")), Files.readString(second.resolve("drugs.tsv")));
+        assertNotEquals(Files.readString(first.resolve("interactions.tsv")), Files.readString(other.resolve("interactions.tsv")));
+    }
+
+    @Test
+    void write_loadsWithTheRequestedShape() throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("data"));
+        DatasetGenerator.Written written = new DatasetGenerator(SMALL).write(directory);
+
+        List<Interaction> interactions = files(directory).processInteractions();
+        List<Drug> drugs = files(directory).processDrugs();
+        assertEquals(SMALL.interactions(), interactions.size());
+        assertEquals(written.interactions(), interactions.size());
+        assertEquals(written.drugNames(), drugs.size());
+
+        Map<String, Set<String>> genesPerDrug = new HashMap<>();
+        int missing = 0;
+        int duplicates = 0;
+        for (Interaction interaction : interactions) {
+            if (Scores.isMissing(Scores.parse(interaction.interactionScore()))) missing++;
+            Set<String> genes = genesPerDrug.computeIfAbsent(interaction.drugConceptId(), id -> new HashSet<>());
+            if (!genes.add(interaction.geneClaimName())) duplicates++;
+        }
+        assertEquals(SMALL.drugs(), genesPerDrug.size(), "every drug has interactions");
+        assertEquals(0.25, missing / (double) interactions.size(), 0.03);
+        assertEquals(0.1, duplicates / (double) interactions.size(), 0.03);
+
+        int most = genesPerDrug.values().stream().mapToInt(Set::size).max().orElseThrow();
+        int fewest = genesPerDrug.values().stream().mapToInt(Set::size).min().orElseThrow();
+        assertTrue(most > 10 * fewest, "genes per drug are skewed: " + fewest + ".." + most);
+
+        // about two aliases per drug besides its own name
+        assertEquals(3.0, drugs.size() / (double) SMALL.drugs(), 0.2);
+        assertEquals(Set.of(DatasetGenerator.conceptId(5)), drugs.stream()
+                .filter(drug -> drug.drugClaimName().equals(DatasetGenerator.drugName(5)))
+                .map(Drug::conceptId).collect(java.util.stream.Collectors.toSet()));
+    }
+
+    @Test
+    void write_givesADatasetTheEngineCanQuery() throws IOException {
+        Path directory = generate(SMALL, "data");
+        ReadFiles files = files(directory);
+        InteractionEngine engine = new InteractionEngine(
+                Dataset.of(files.processInteractions(), files.processDrugs(), files.processCombinations()));
+
+        assertEquals(DatasetGenerator.conceptId(3), engine.conceptId(DatasetGenerator.drugName(3)));
+        assertDoesNotThrow(() -> engine.analyze(DatasetGenerator.drugName(0), DatasetGenerator.drugName(1)));
+    }
+
+    @Test
+    void write_malformedRowsFailTheLoadAtTheFirstOne() throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("malformed"));
+        DatasetGenerator.Written written = new DatasetGenerator(SMALL.withMalformedRowRate(0.01)).write(directory);
+        assertTrue(written.malformedRows() > 0);
+        assertEquals(SMALL.interactions(), written.interactions());
+
+        String expected = "at line " + written.firstMalformedLine();
+        IllegalArgumentException sequential = assertThrows(IllegalArgumentException.class,
+                () -> files(directory).processInteractions());
+        assertTrue(sequential.getMessage().endsWith(expected), sequential.getMessage());
+        IllegalArgumentException parallel = assertThrows(IllegalArgumentException.class,
+                () -> files(directory).processInteractions(4));
+        assertTrue(parallel.getMessage().endsWith(expected), parallel.getMessage());
+    }
+
+    @Test
+    void scaled_multipliesTheCounts() {
+        Settings scaled = Settings.DGIDB.scaled(10);
+
+        assertEquals(10 * Settings.DGIDB.interactions(), scaled.interactions());
+        assertEquals(10 * Settings.DGIDB.drugs(), scaled.drugs());
+        assertEquals(10 * Settings.DGIDB.genes(), scaled.genes());
+        assertEquals(Settings.DGIDB.missingScoreRate(), scaled.missingScoreRate());
+        assertEquals(0.0, scaled.malformedRowRate());
+    }
+
+    @Test
+    void settings_rejectsImpossibleValues() {
+        assertThrows(IllegalArgumentException.class, () -> new Settings(1, 10, 20, 5, 1, 1, 1, 0, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Settings(1, 10, 5, 5, 1, 1, 1, 1.5, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Settings(1, 10, 5, 0, 1, 1, 1, 0, 0, 0, 0));
+    }
+}
@@ -0,0 +1,99 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.Dataset;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetReloaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static InteractionEngine engine(String gene) {
+        return new InteractionEngine(Dataset.of(
+                List.of(new Interaction(gene, "agonist", "0.5", "D1")),
+                List.of(new Drug("clonidine", "D1")),
+                List.of()));
+    }
+
+    @Test
+    void reload_swapsInTheNewEngineAndReportsTheHeap() {
+        AtomicReference<InteractionEngine> current = new AtomicReference<>(engine("OLD"));
+        InteractionEngine fresh = engine("NEW");
+        try (DatasetReloader reloader = new DatasetReloader(() -> fresh, current::set)) {
+            DatasetReloader.Reload reload = reloader.reload().join();
+
+            assertSame(fresh, current.get());
+            assertTrue(reload.peakHeapBytes() >= reload.heapBeforeBytes());
+            assertTrue(reload.heapAfterBytes() > 0);
+        }
+    }
+
+    @Test
+    void reload_keepsTheOldEngineWhenLoadingFails() {
+        InteractionEngine old = engine("OLD");
+        AtomicReference<InteractionEngine> current = new AtomicReference<>(old);
+        try (DatasetReloader reloader = new DatasetReloader(() -> {
+            throw new IllegalArgumentException("Interactions file is empty");
+        }, current::set)) {
+            assertThrows(CompletionException.class, () -> reloader.reload().join());
+            assertSame(old, current.get());
+        }
+    }
+
+    @Test
+    void reload_asksDuringALoadAreMergedIntoOneMoreLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        try (DatasetReloader reloader = new DatasetReloader(() -> {
+            if (loads.incrementAndGet() == 1) {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return engine("NEW");
+        }, engine -> {})) {
+            var first = reloader.reload();
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            var second = reloader.reload();
+            assertSame(second, reloader.reload());
+            release.countDown();
+
+            first.join();
+            second.join();
+            assertEquals(2, loads.get());
+        }
+    }
+
+    @Test
+    void watch_reloadsWhenAFileChanges() throws Exception {
+        Path interactions = Files.writeString(tempDir.resolve("interactions.tsv"), "v1\n");
+        Path drugs = Files.writeString(tempDir.resolve("drugs.tsv"), "v1\n");
+        CountDownLatch reloaded = new CountDownLatch(1);
+        try (DatasetReloader reloader = new DatasetReloader(() -> engine("NEW"), engine -> reloaded.countDown(), 100)) {
+            reloader.watch(List.of(interactions, drugs));
+            Files.writeString(tempDir.resolve("unrelated.txt"), "x\n");
+            Files.writeString(interactions, "v2\n");
+
+            assertTrue(reloaded.await(30, TimeUnit.SECONDS));
+        }
+    }
+}
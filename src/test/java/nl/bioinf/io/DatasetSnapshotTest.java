@@ -0,0 +1,122 @@
+package nl.bioinf.io;
+
+import nl.bioinf.models.Combination;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path interactions;
+    private Path drugs;
+    private ReadFiles reader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        interactions = tempDir.resolve("interactions.tsv");
+        Files.writeString(interactions, String.join("\n",
+                "gene_claim_name\tinteraction_type\tinteraction_score\tdrug_concept_id",
+                "CYP2C9\tagonist\t0.009349657\tD1",
+                "CYP2D6\tNULL\t0.5\tD2",
+                "CYP2D6\tagonist\tNULL\tD1"
+        ));
+        drugs = tempDir.resolve("drugs.tsv");
+        Files.writeString(drugs, "drug_claim_name\tconcept_id\nclonidine\tD1\ncompro\tD2\nCatapres\tD1\n");
+        reader = new ReadFiles(interactions.toFile(), drugs.toFile());
+    }
+
+    private Path compile() {
+        Path snapshot = tempDir.resolve("dgidb.snapshot");
+        DatasetSnapshot.write(snapshot, interactions.toFile(), drugs.toFile(),
+                reader.processInteractions(), reader.processDrugs(), reader.processCombinations());
+        return snapshot;
+    }
+
+    @Test
+    void read_returnsWhatWasCompiled() {
+        DatasetSnapshot.Contents contents = DatasetSnapshot.read(compile());
+
+        List<Interaction> d1 = contents.interactions().forConcept("D1");
+        assertEquals(2, d1.size());
+        assertEquals("CYP2C9", d1.get(0).geneClaimName());
+        assertEquals(0.009349657f, Float.parseFloat(d1.get(0).interactionScore()));
+        assertEquals("NaN", d1.get(1).interactionScore());
+        assertEquals("NULL", contents.interactions().forConcept("D2").get(0).interactionType());
+
+        assertEquals(reader.processDrugs(), contents.drugs());
+        List<Combination> combinations = reader.processCombinations();
+        assertEquals(combinations, contents.combinations());
+        assertEquals(new Drug("Catapres", "D1"), contents.drugs().get(2));
+    }
+
+    @Test
+    void read_rejectsSnapshotWhenSourceFileChanged() throws IOException {
+        Path snapshot = compile();
+        Files.writeString(drugs, "drug_claim_name\tconcept_id\nclonidine\tD1\n");
+        drugs.toFile().setLastModified(drugs.toFile().lastModified() + 2000);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> DatasetSnapshot.read(snapshot));
+        assertTrue(ex.getMessage().contains("out of date"));
+    }
+
+    @Test
+    void read_rejectsCorruptOrForeignFiles() throws IOException {
+        Path snapshot = compile();
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 20] ^= 0x5A;
+        Files.write(snapshot, bytes);
+
+        IllegalArgumentException corrupt = assertThrows(IllegalArgumentException.class,
+                () -> DatasetSnapshot.read(snapshot));
+        assertTrue(corrupt.getMessage().contains("checksum"));
+
+        IllegalArgumentException foreign = assertThrows(IllegalArgumentException.class,
+                () -> DatasetSnapshot.read(interactions));
+        assertTrue(foreign.getMessage().contains("Not a snapshot"));
+    }
+
+    @Test
+    void read_rejectsDamagedHeaderLengthsAsCorrupt() throws IOException {
+        Path snapshot = compile();
+        byte[] compiled = Files.readAllBytes(snapshot);
+        // the length of the interactions file path follows the magic number and the version
+        for (int length : new int[]{-1, Integer.MAX_VALUE, compiled.length}) {
+            byte[] bytes = compiled.clone();
+            ByteBuffer.wrap(bytes).putInt(Long.BYTES + Integer.BYTES, length);
+            Files.write(snapshot, bytes);
+
+            IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                    () -> DatasetSnapshot.read(snapshot));
+            assertTrue(ex.getMessage().contains("corrupt"), ex.getMessage());
+        }
+
+        Files.write(snapshot, Arrays.copyOf(compiled, Long.BYTES + 2 * Integer.BYTES));
+        IllegalArgumentException truncated = assertThrows(IllegalArgumentException.class,
+                () -> DatasetSnapshot.read(snapshot));
+        assertTrue(truncated.getMessage().contains("corrupt"), truncated.getMessage());
+    }
+
+    @Test
+    void read_usesSnapshotWhenSourceFileWasDeleted() throws IOException {
+        Path snapshot = compile();
+        List<Drug> compiled = reader.processDrugs();
+        Files.delete(drugs);
+
+        assertEquals(compiled, DatasetSnapshot.read(snapshot).drugs());
+    }
+}
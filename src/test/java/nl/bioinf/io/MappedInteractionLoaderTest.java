@@ -0,0 +1,166 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionStore;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedInteractionLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeInteractions(String content) throws IOException {
+        Path interactions = tempDir.resolve("interactions.tsv");
+        Files.writeString(interactions, content);
+        Files.writeString(tempDir.resolve("drugs.tsv"), "drug_claim_name\tconcept_id\n");
+        return interactions;
+    }
+
+    private static String rows(int count, String newline) {
+        StringBuilder sb = new StringBuilder("drug_concept_id\tgene_claim_name\tinteraction_type\tinteraction_score")
+                .append(newline);
+        for (int i = 0; i < count; i++) {
+            sb.append("CHEMBL:").append(i % 7).append("\tGENE").append(i).append("\tinhibitor\t0.").append(i).append(newline);
+            if (i % 10 == 0) sb.append(newline); // blank line
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void load_matchesSequentialReader_acrossManySmallChunks() throws IOException {
+        Path interactions = writeInteractions(rows(500, "\n"));
+        List<Interaction> sequential = new ReadFiles(interactions.toFile(), tempDir.resolve("drugs.tsv").toFile())
+                .processInteractions();
+
+        List<Interaction> parallel = new MappedInteractionLoader(interactions.toFile(), 4, 64).load();
+
+        assertEquals(500, parallel.size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void loadStore_holdsTheSameRowsAsTheRecords() throws IOException {
+        Path interactions = writeInteractions(rows(500, "\n"));
+        InteractionStore expected = InteractionStore.of(new MappedInteractionLoader(interactions.toFile(), 4, 64).load());
+
+        InteractionStore store = new MappedInteractionLoader(interactions.toFile(), 4, 64).loadStore();
+
+        assertEquals(500, store.size());
+        for (int row = 0; row < store.size(); row++) assertEquals(expected.interaction(row), store.interaction(row));
+    }
+
+    @Test
+    void load_handlesCrLfLineEndings() throws IOException {
+        Path interactions = writeInteractions(rows(50, "\r\n"));
+
+        List<Interaction> parallel = new MappedInteractionLoader(interactions.toFile(), 3, 32).load();
+
+        assertEquals(50, parallel.size());
+        assertEquals(new Interaction("GENE49", "inhibitor", "0.49", "CHEMBL:0"), parallel.get(49));
+    }
+
+    @Test
+    void load_reportsSameMalformedLineAsSequentialReader() throws IOException {
+        String content = rows(300, "\n") + "BROKEN\trow\n" + rows(1, "\n");
+        Path interactions = writeInteractions(content);
+        ReadFiles rf = new ReadFiles(interactions.toFile(), tempDir.resolve("drugs.tsv").toFile());
+
+        IllegalArgumentException sequential = assertThrows(IllegalArgumentException.class, rf::processInteractions);
+        IllegalArgumentException parallel = assertThrows(IllegalArgumentException.class,
+                () -> new MappedInteractionLoader(interactions.toFile(), 4, 64).load());
+
+        assertTrue(parallel.getMessage().contains("Malformed row"));
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+    }
+
+    @Test
+    void load_skipsTheSameWhitespaceLinesAsSequentialReader() throws IOException {
+        // an em space, a unit separator (0x1F) and an ideographic space are blank to
+        // String.isBlank; they must be skipped by both loaders
+        String content = rows(20, "\n") + "\u2003\n\u001F\t\n \u3000 \n" + rows(20, "\n").lines().skip(1)
+                .map(line -> line + "\n").reduce("", String::concat);
+        Path interactions = writeInteractions(content);
+        ReadFiles rf = new ReadFiles(interactions.toFile(), tempDir.resolve("drugs.tsv").toFile());
+
+        List<Interaction> sequential = rf.processInteractions();
+
+        assertEquals(40, sequential.size());
+        assertEquals(sequential, new MappedInteractionLoader(interactions.toFile(), 4, 64).load());
+        assertEquals(sequential, rf.processInteractions(4));
+    }
+
+    @Test
+    void load_rejectsTheSameNonBlankLineAsSequentialReader() throws IOException {
+        // a no-break space is not whitespace to String.isBlank, so the line is a malformed row
+        Path interactions = writeInteractions(rows(20, "\n") + "\u00A0\n" + rows(1, "\n"));
+        ReadFiles rf = new ReadFiles(interactions.toFile(), tempDir.resolve("drugs.tsv").toFile());
+
+        IllegalArgumentException sequential = assertThrows(IllegalArgumentException.class, rf::processInteractions);
+        IllegalArgumentException parallel = assertThrows(IllegalArgumentException.class,
+                () -> new MappedInteractionLoader(interactions.toFile(), 4, 64).load());
+
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+    }
+
+    @Test
+    void load_endsLinesAtTheSameBytesAsSequentialReader() throws IOException {
+        // lone \r ends a line too, \r\n is one line end, \r\r is an empty line
+        String content = rows(30, "\r") + rows(30, "\r\n").lines().skip(1).map(line -> line + "\r\r").reduce("", String::concat)
+                + rows(30, "\n").lines().skip(1).map(line -> line + "\n").reduce("", String::concat) + "LAST\tGENE\tagonist\t1";
+        Path interactions = writeInteractions(content);
+        ReadFiles rf = new ReadFiles(interactions.toFile(), tempDir.resolve("drugs.tsv").toFile());
+
+        List<Interaction> sequential = rf.processInteractions();
+
+        assertEquals(91, sequential.size());
+        assertEquals(sequential, new MappedInteractionLoader(interactions.toFile(), 4, 64).load());
+
+        Files.writeString(interactions, content.replace("GENE15\t", "GENE15\r"));
+        IllegalArgumentException expected = assertThrows(IllegalArgumentException.class, rf::processInteractions);
+        IllegalArgumentException parallel = assertThrows(IllegalArgumentException.class,
+                () -> new MappedInteractionLoader(interactions.toFile(), 4, 64).load());
+        assertTrue(expected.getMessage().contains("Malformed row"), expected.getMessage());
+        assertEquals(expected.getMessage(), parallel.getMessage());
+    }
+
+    @Test
+    void load_failsOnTheSameInvalidUtf8AsSequentialReader() throws IOException {
+        byte[] invalid = {'G', (byte) 0xFF, '\t', 'a', '\t', '1', '\t', 'C', '\n'};
+        Path interactions = writeInteractions("");
+        ReadFiles rf = new ReadFiles(interactions.toFile(), tempDir.resolve("drugs.tsv").toFile());
+
+        // invalid bytes after valid rows fail both loaders with the same error
+        Files.write(interactions, concat(rows(300, "\n").getBytes(StandardCharsets.UTF_8), invalid));
+        RuntimeException sequential = assertThrows(RuntimeException.class, rf::processInteractions);
+        RuntimeException parallel = assertThrows(RuntimeException.class,
+                () -> new MappedInteractionLoader(interactions.toFile(), 4, 64).load());
+        assertInstanceOf(CharacterCodingException.class, sequential.getCause());
+        assertInstanceOf(CharacterCodingException.class, parallel.getCause());
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+
+        // a malformed row a few lines before the invalid bytes is the first error for both
+        Files.write(interactions, concat((rows(300, "\n") + "BROKEN\n").getBytes(StandardCharsets.UTF_8), invalid));
+        IllegalArgumentException malformed = assertThrows(IllegalArgumentException.class, rf::processInteractions);
+        IllegalArgumentException malformedParallel = assertThrows(IllegalArgumentException.class,
+                () -> new MappedInteractionLoader(interactions.toFile(), 4, 64).load());
+        assertTrue(malformed.getMessage().contains("Malformed row"), malformed.getMessage());
+        assertEquals(malformed.getMessage(), malformedParallel.getMessage());
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] both = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        return both;
+    }
+}
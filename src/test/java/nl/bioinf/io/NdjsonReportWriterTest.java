@@ -0,0 +1,59 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.TestEngines;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonReportWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final InteractionEngine engine = TestEngines.small(
+            List.of(
+                    new Interaction("CYP2D6", "agonist",   "NULL", "D1"),
+                    new Interaction("CYP2D6", "inhibitor", "0.25", "D2")
+            ),
+            List.of());
+
+    @Test
+    void write_oneObjectPerPairAndLine() throws Exception {
+        Path out = tempDir.resolve("pairs.ndjson");
+        try (NdjsonReportWriter writer = new NdjsonReportWriter(out, false, false)) {
+            writer.heading("ignored");
+            writer.write(engine.analyze("clonidine", "compro"));
+            writer.error("clonidine", "unknown", "Drug not found: \"unknown\"");
+        }
+
+        StringBuilder expected = new StringBuilder();
+        JsonFormat.writeAnalysis(expected, engine.analyze("clonidine", "compro"));
+        assertEquals(List.of(
+                expected.toString(),
+                "{\"drug1\":\"clonidine\",\"drug2\":\"unknown\",\"error\":\"Drug not found: \\\"unknown\\\"\"}"
+        ), Files.readAllLines(out));
+    }
+
+    @Test
+    void write_oneObjectPerOverlappingGene() throws Exception {
+        Path out = tempDir.resolve("genes.ndjson");
+        try (NdjsonReportWriter writer = new NdjsonReportWriter(out, false, true)) {
+            writer.write(engine.analyze("clonidine", "compro"));
+        }
+
+        assertEquals(List.of(
+                "{\"drug1\":\"clonidine\",\"drug2\":\"compro\",\"conceptId1\":\"D1\",\"conceptId2\":\"D2\","
+                        + "\"gene\":\"CYP2C9\",\"scoreDrug1\":0.5,\"scoreDrug2\":0.125,\"effect\":\"OPPOSING\",\"combinedScore\":0.375}",
+                "{\"drug1\":\"clonidine\",\"drug2\":\"compro\",\"conceptId1\":\"D1\",\"conceptId2\":\"D2\","
+                        + "\"gene\":\"CYP2D6\",\"scoreDrug1\":null,\"scoreDrug2\":0.25,\"effect\":\"OPPOSING\",\"combinedScore\":null}"
+        ), Files.readAllLines(out));
+    }
+}
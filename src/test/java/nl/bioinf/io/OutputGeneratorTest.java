@@ -55,6 +55,16 @@ class OutputGeneratorTest {
             boolean ok = (size == 0) || (lines.size() == 1 && lines.get(0).isEmpty());
             assertTrue(ok, "Empty output should result in an empty file or a single empty line");
         }
+
+        @Test
+        @DisplayName("appends to an existing .txt when append is set")
+        void appendsToExistingFile() throws IOException {
+            Path out = tempDir.resolve("appended.txt");
+            new OutputGenerator(out).generateOutput(new StringBuilder("first"));
+            new OutputGenerator(out, new TextReportRenderer(), true).generateOutput(new StringBuilder("second"));
+
+            assertEquals(List.of("first", "second"), Files.readAllLines(out));
+        }
     }
 
     @Nested
@@ -92,6 +102,16 @@ class OutputGeneratorTest {
                     "Message should indicate unsupported output format");
         }
 
+        @Test
+        @DisplayName("throws IllegalArgumentException when appending to a .pdf")
+        void throwsForAppendToPdf() {
+            Path out = tempDir.resolve("output.pdf");
+            OutputGenerator gen = new OutputGenerator(out, new TextReportRenderer(), true);
+
+            assertThrows(IllegalArgumentException.class, () -> gen.generateOutput(new StringBuilder("x")));
+            assertFalse(Files.exists(out), "Nothing should be written");
+        }
+
         @Test
         @DisplayName("throws RuntimeException for invalid path")
         void throwsRuntimeException_OnInvalidPath() {
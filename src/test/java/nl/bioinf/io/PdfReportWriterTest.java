@@ -0,0 +1,67 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.Dataset;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.models.Combination;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfReportWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** Two drugs sharing more genes than fit in one block of table rows. */
+    private static InteractionEngine engine(int sharedGenes) {
+        List<Interaction> interactions = new ArrayList<>();
+        for (int i = 0; i < sharedGenes; i++) {
+            interactions.add(new Interaction("GENE_" + i, "agonist", "0.5", "D1"));
+            interactions.add(new Interaction("GENE_" + i, "inhibitor", i % 7 == 0 ? "NULL" : "0.25", "D2"));
+        }
+        interactions.add(new Interaction("OTHER", "agonist", "1.0", "D3"));
+        return new InteractionEngine(Dataset.of(interactions,
+                List.of(new Drug("clonidine", "D1"), new Drug("compro", "D2"), new Drug("aspirin", "D3")),
+                List.of(new Combination("inhibitor", "agonist", "Opposing"))));
+    }
+
+    private static void assertPdf(Path file) throws Exception {
+        byte[] bytes = Files.readAllBytes(file);
+        assertTrue(bytes.length > 0, "PDF should not be empty");
+        assertEquals("%PDF", new String(bytes, 0, 4), "File should start with the PDF header");
+    }
+
+    @Test
+    void write_streamsManyPairsIntoOnePdf() throws Exception {
+        InteractionEngine engine = engine(3 * PdfReportWriter.ROWS_PER_BLOCK + 1);
+        Path out = tempDir.resolve("batch.pdf");
+
+        try (PdfReportWriter writer = new PdfReportWriter(out)) {
+            for (int i = 0; i < 20; i++) {
+                writer.heading("Line " + i + ": clonidine + compro");
+                writer.write(engine.analyze("clonidine", "compro"));
+                writer.write(engine.analyze("clonidine", "aspirin"));
+            }
+            writer.heading("Line 21: clonidine + unknown");
+            writer.error("clonidine", "unknown", "ERROR: Drug not found: unknown");
+        }
+        assertPdf(out);
+    }
+
+    @Test
+    void close_withoutReportsStillWritesAPdf() throws Exception {
+        Path out = tempDir.resolve("empty.pdf");
+
+        new PdfReportWriter(out).close();
+
+        assertPdf(out);
+    }
+}
@@ -0,0 +1,166 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.Dataset;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.TestEngines;
+import nl.bioinf.models.Combination;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryServerTest {
+
+    /** compro is also called {@code compro "x"}, to check that names are escaped. */
+    private final InteractionEngine engine = TestEngines.small(List.of(), List.of(new Drug("compro \"x\"", "D2")));
+
+    private QueryServer server;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = new QueryServer(new InetSocketAddress("127.0.0.1", 0), Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void ready_isUnavailableUntilTheEngineIsLoaded() throws Exception {
+        assertEquals(503, get("/ready").status());
+        assertEquals(503, get("/analyze?drug1=clonidine&drug2=compro").status());
+        assertEquals(200, get("/health").status());
+
+        server.ready(engine);
+
+        assertEquals(200, get("/ready").status());
+    }
+
+    @Test
+    void analyze_returnsJson() throws Exception {
+        server.ready(engine);
+
+        Response response = get("/analyze?drug1=Clonidine&drug2=compro%20%22x%22");
+
+        assertEquals(200, response.status());
+        assertTrue(response.body().contains("\"drug2\":\"compro \\\"x\\\"\""), response.body());
+        assertTrue(response.body().contains("\"overlap\":[\"CYP2C9\"]"), response.body());
+        assertTrue(response.body().contains("\"effect\":\"OPPOSING\",\"totalCombinedScore\":0.375"), response.body());
+        assertTrue(response.body().contains("{\"gene\":\"CYP2C9\",\"scoreDrug1\":0.5,\"scoreDrug2\":0.125,\"combinedScore\":0.375}"), response.body());
+    }
+
+    @Test
+    void analyze_reportsBadRequests() throws Exception {
+        server.ready(engine);
+
+        assertEquals(400, get("/analyze?drug1=clonidine").status());
+        assertEquals(404, get("/analyze?drug1=clonidine&drug2=nope").status());
+        assertTrue(get("/analyze?drug1=clonidine&drug2=nope").body().contains("Drug not found: nope"));
+    }
+
+    @Test
+    void analyze_answersRepeatedPairsFromTheCache() throws Exception {
+        server.ready(engine);
+
+        get("/analyze?drug1=clonidine&drug2=compro%20%22x%22");
+        Response swapped = get("/analyze?drug1=compro%20%22x%22&drug2=clonidine");
+
+        assertTrue(swapped.body().contains("\"conceptId1\":\"D2\""), swapped.body());
+        assertTrue(swapped.body().contains("\"scoreDrug1\":0.125,\"scoreDrug2\":0.5"), swapped.body());
+        Response stats = get("/stats");
+        assertEquals(200, stats.status());
+        assertTrue(stats.body().startsWith("{\"hits\":1,\"misses\":1,"), stats.body());
+    }
+
+    @Test
+    void partners_returnsTheTopPartnersAsJson() throws Exception {
+        server.ready(engine);
+
+        Response response = get("/partners?drug=clonidine&k=5&rank=combined-score");
+
+        assertEquals(200, response.status());
+        assertTrue(response.body().startsWith("{\"drug\":\"clonidine\",\"rank\":\"COMBINED_SCORE\",\"partners\":["), response.body());
+        assertTrue(response.body().contains("{\"conceptId\":\"D2\",\"name\":\"compro\",\"sharedGenes\":1,"), response.body());
+        assertEquals(404, get("/partners?drug=nope").status());
+        assertEquals(400, get("/partners?drug=clonidine&k=0").status());
+        assertEquals(400, get("/partners?drug=clonidine&rank=best").status());
+    }
+
+    @Test
+    void similar_returnsDrugsWithSimilarGenesAsJson() throws Exception {
+        server.ready(engine);
+
+        Response response = get("/similar?drug=clonidine");
+
+        assertEquals(200, response.status());
+        assertTrue(response.body().startsWith("{\"drug\":\"clonidine\",\"threshold\":0.5,\"error\":0.1,"), response.body());
+        assertTrue(response.body().contains("{\"conceptId\":\"D2\",\"name\":\"compro\",\"estimate\":1.0,\"jaccard\":1.0}"),
+                response.body());
+        assertEquals(404, get("/similar?drug=nope").status());
+        assertEquals(400, get("/similar?drug=clonidine&k=0").status());
+        assertEquals(400, get("/similar").status());
+    }
+
+    @Test
+    void reload_swapsInTheNewDataset() throws Exception {
+        server.ready(engine);
+        assertEquals(404, post("/reload").status());
+
+        InteractionEngine reloaded = new InteractionEngine(Dataset.of(
+                List.of(new Interaction("DRD2", "agonist", "0.5", "D1"), new Interaction("DRD2", "inhibitor", "1.5", "D2")),
+                List.of(new Drug("clonidine", "D1"), new Drug("compro", "D2")),
+                List.of(new Combination("inhibitor", "agonist", "Opposing"))));
+        try (DatasetReloader reloader = new DatasetReloader(() -> reloaded, server::ready)) {
+            server.reloadWith(reloader);
+
+            Response response = post("/reload?wait=true");
+
+            assertEquals(200, response.status());
+            assertTrue(response.body().contains("\"peakHeapBytes\":"), response.body());
+            assertTrue(get("/analyze?drug1=clonidine&drug2=compro").body().contains("\"overlap\":[\"DRD2\"]"));
+            assertEquals(405, get("/reload").status());
+        }
+    }
+
+    @Test
+    void close_stopsTheServer() throws Exception {
+        server.close();
+        server.awaitTermination();
+        assertThrows(java.io.IOException.class, () -> get("/health"));
+    }
+
+    private record Response(int status, String body) {}
+
+    private Response get(String path) throws Exception {
+        return request("GET", path);
+    }
+
+    private Response post(String path) throws Exception {
+        return request("POST", path);
+    }
+
+    private Response request(String method, String path) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection)
+                URI.create("http://127.0.0.1:" + server.port() + path).toURL().openConnection();
+        connection.setRequestMethod(method);
+        try {
+            int status = connection.getResponseCode();
+            var stream = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            return new Response(status, new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package nl.bioinf.io;
 
+import nl.bioinf.logic.InteractionStore;
 import nl.bioinf.models.Combination;
 import nl.bioinf.models.Drug;
 import nl.bioinf.models.Interaction;
@@ -57,6 +58,28 @@ class ReadFilesTest {
         assertEquals("CHEMBL:123", list.getFirst().drugConceptId());
     }
 
+    @Test
+    void processInteractionStore_holdsTheRowsOfTheRecordList() throws IOException {
+        Path interactions = tempDir.resolve("interactions.tsv");
+        Files.writeString(interactions, String.join("\n",
+                "gene_claim_name\tinteraction_type\tinteraction_score\tdrug_concept_id",
+                "TP53\tinhibitor\t0.87\tCHEMBL:123",
+                "EGFR\tactivator\tNULL\tCHEMBL:999",
+                "",
+                "EGFR\tinhibitor\t0.5\tCHEMBL:123"
+        ));
+        Path drugs = tempDir.resolve("drugs.tsv");
+        Files.writeString(drugs, "drug_claim_name\tconcept_id\n");
+        ReadFiles rf = new ReadFiles(interactions.toFile(), drugs.toFile());
+        InteractionStore expected = InteractionStore.of(rf.processInteractions());
+
+        InteractionStore store = rf.processInteractionStore(1);
+
+        assertEquals(3, store.size());
+        for (int row = 0; row < store.size(); row++) assertEquals(expected.interaction(row), store.interaction(row));
+        assertTrue(Float.isNaN(store.score(store.start(store.concept("CHEMBL:999")))));
+    }
+
     @Test
     void processDrugs_readsValidRows() throws IOException {
         Path interactions = tempDir.resolve("interactions.tsv");
@@ -120,7 +143,60 @@ class ReadFilesTest {
         assertTrue(thrown.getMessage().contains("Malformed row"),
                 "Foutmelding moet 'Malformed row' vermelden om duidelijk te zijn voor de gebruiker");
     }
-}
 
+    @Test
+    void processInteractions_keepsOnlyProjectedColumns() throws IOException {
+        Path interactions = tempDir.resolve("interactions.tsv");
+        String content = String.join("\n",
+                "gene_name\tgene_claim_name\tinteraction_score\tinteraction_type\tdrug_claim_name\tdrug_concept_id\textra",
+                "TP53\tp53\t0.87\tinhibitor\tImatinib\tCHEMBL:123\tx",
+                "EGFR\tegfr\t0.45\tactivator\tGefitinib\tCHEMBL:999"
+        );
+        Files.writeString(interactions, content);
+        Path drugs = tempDir.resolve("drugs.tsv");
+        Files.writeString(drugs, "drug_claim_name\tconcept_id\n");
+
+        List<Interaction> list = new ReadFiles(interactions.toFile(), drugs.toFile()).processInteractions();
 
+        assertEquals(2, list.size());
+        assertEquals(new Interaction("p53", "inhibitor", "0.87", "CHEMBL:123"), list.get(0));
+        assertEquals(new Interaction("egfr", "activator", "0.45", "CHEMBL:999"), list.get(1));
+    }
 
+    @Test
+    void processInteractions_reportsLineNumberOfMalformedRow() throws IOException {
+        Path interactions = tempDir.resolve("interactions.tsv");
+        String content = String.join("\n",
+                "gene_claim_name\tinteraction_type\tinteraction_score\tdrug_concept_id",
+                "TP53\tinhibitor\t0.87\tCHEMBL:123",
+                "",
+                "EGFR\tactivator"
+        );
+        Files.writeString(interactions, content);
+        Path drugs = tempDir.resolve("drugs.tsv");
+        Files.writeString(drugs, "drug_claim_name\tconcept_id\n");
+
+        ReadFiles rf = new ReadFiles(interactions.toFile(), drugs.toFile());
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, rf::processInteractions);
+
+        assertTrue(thrown.getMessage().contains("at line 4"), thrown.getMessage());
+    }
+
+    @Test
+    void processDrugs_throwsOnMissingHeaderOrNoRows() throws IOException {
+        Path interactions = tempDir.resolve("interactions.tsv");
+        Files.writeString(interactions, "gene_claim_name\tinteraction_type\tinteraction_score\tdrug_concept_id\n");
+
+        Path noId = tempDir.resolve("drugs.tsv");
+        Files.writeString(noId, "drug_claim_name\tname\nImatinib\tx\n");
+        IllegalArgumentException missing = assertThrows(IllegalArgumentException.class,
+                new ReadFiles(interactions.toFile(), noId.toFile())::processDrugs);
+        assertTrue(missing.getMessage().contains("Header not found: 'concept_id'"));
+
+        Path headerOnly = tempDir.resolve("drugs_header.tsv");
+        Files.writeString(headerOnly, "drug_claim_name\tconcept_id\n");
+        IllegalArgumentException empty = assertThrows(IllegalArgumentException.class,
+                new ReadFiles(interactions.toFile(), headerOnly.toFile())::processDrugs);
+        assertTrue(empty.getMessage().contains("no data rows"));
+    }
+}
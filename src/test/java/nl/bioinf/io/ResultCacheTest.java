@@ -0,0 +1,158 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.PairAnalysis;
+import nl.bioinf.logic.TestEngines;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+    private static final String DATASET = "0000000a-0000000b-0000000c";
+    private static final String OTHER_DATASET = "0000000d-0000000e-0000000c";
+
+    @TempDir
+    Path tempDir;
+
+    private final InteractionEngine engine = TestEngines.small(
+            List.of(
+                    new Interaction("ADRA2A", "agonist",   "",     "D1"),
+                    new Interaction("ADRA2A", "inhibitor", "0.25", "D2"),
+                    new Interaction("CYP2C9", "agonist",   "1.0",  "D3")
+            ),
+            List.of(new Drug("aspirin", "D3")));
+
+    @Test
+    void get_returnsTheStoredAnalysis() {
+        ResultCache cache = ResultCache.open(tempDir, 1 << 20, DATASET);
+        PairAnalysis analysis = engine.analyze("clonidine", "compro");
+
+        assertNull(cache.get("clonidine", "compro"));
+        cache.put(analysis);
+
+        assertEquals(analysis, cache.get("clonidine", "compro"));
+    }
+
+    @Test
+    void get_findsThePairInEitherOrderAndCase() {
+        ResultCache cache = ResultCache.open(tempDir, 1 << 20, DATASET);
+        cache.put(engine.analyze("compro", "clonidine"));
+
+        assertEquals(engine.analyze("Clonidine", "compro"), cache.get("Clonidine", "compro"));
+        assertEquals(engine.analyze("COMPRO", "clonidine"), cache.get("COMPRO", "clonidine"));
+    }
+
+    @Test
+    void open_keepsTheResultsOfOtherDatasets() {
+        ResultCache.open(tempDir, 1 << 20, OTHER_DATASET).put(engine.analyze("clonidine", "compro"));
+
+        ResultCache cache = ResultCache.open(tempDir, 1 << 20, DATASET);
+
+        assertNull(cache.get("clonidine", "compro"));
+        assertNotNull(ResultCache.open(tempDir, 1 << 20, OTHER_DATASET).get("clonidine", "compro"));
+    }
+
+    @Test
+    void open_leavesFilesItDidNotWriteAlone() throws IOException {
+        Path chapter = tempDir.resolve("Documents/thesis/chapter1.txt");
+        Files.createDirectories(chapter.getParent());
+        Files.writeString(chapter, "Introduction");
+        // named like a dataset, but without the marker
+        Path lookalike = tempDir.resolve(OTHER_DATASET).resolve("0123.pair");
+        Files.createDirectories(lookalike.getParent());
+        Files.writeString(lookalike, "not a result");
+
+        ResultCache cache = ResultCache.open(tempDir, 0, DATASET);
+        cache.put(engine.analyze("clonidine", "compro"));
+
+        assertEquals("Introduction", Files.readString(chapter));
+        assertEquals("not a result", Files.readString(lookalike));
+        assertThrows(IllegalArgumentException.class, () -> ResultCache.open(tempDir, 1 << 20, "Documents"));
+    }
+
+    @Test
+    void put_evictsTheLeastRecentlyUsedResultsOfEveryDataset() throws IOException {
+        ResultCache old = ResultCache.open(tempDir, 1 << 20, OTHER_DATASET);
+        old.put(engine.analyze("clonidine", "compro"));
+        long entrySize = entrySizes(old.directory());
+        age(old.directory());
+
+        ResultCache cache = ResultCache.open(tempDir, entrySize + entrySize / 2, DATASET);
+        cache.put(engine.analyze("clonidine", "compro"));
+
+        assertNotNull(cache.get("clonidine", "compro"));
+        assertFalse(Files.exists(old.directory()));
+    }
+
+    @Test
+    void fingerprint_changesWithTheContentsOfTheFiles() throws IOException {
+        Path interactions = tempDir.resolve("interactions.tsv");
+        Path drugs = tempDir.resolve("drugs.tsv");
+        Files.writeString(interactions, "a\tb\n");
+        Files.writeString(drugs, "c\td\n");
+        String before = ResultCache.fingerprint(interactions, drugs);
+
+        assertEquals(before, ResultCache.fingerprint(interactions, drugs));
+        Files.writeString(interactions, "a\tc\n");
+        assertNotEquals(before, ResultCache.fingerprint(interactions, drugs));
+    }
+
+    @Test
+    void put_evictsTheLeastRecentlyUsedResults() throws IOException {
+        ResultCache probe = ResultCache.open(tempDir.resolve("probe"), 1 << 20, DATASET);
+        probe.put(engine.analyze("clonidine", "compro"));
+        long entrySize = entrySizes(probe.directory());
+
+        ResultCache cache = ResultCache.open(tempDir.resolve("cache"), entrySize * 2 + entrySize / 2, DATASET);
+        cache.put(engine.analyze("clonidine", "compro"));
+        age(cache.directory());
+        cache.put(engine.analyze("clonidine", "aspirin"));
+        age(cache.directory());
+        cache.put(engine.analyze("compro", "aspirin"));
+
+        assertNull(cache.get("clonidine", "compro"));
+        assertNotNull(cache.get("compro", "aspirin"));
+        assertTrue(entrySizes(cache.directory()) <= entrySize * 2 + entrySize / 2);
+    }
+
+    @Test
+    void get_treatsADamagedEntryAsMissing() throws IOException {
+        ResultCache cache = ResultCache.open(tempDir, 1 << 20, DATASET);
+        cache.put(engine.analyze("clonidine", "compro"));
+        try (Stream<Path> entries = Files.list(cache.directory())) {
+            Path entry = entries.filter(path -> path.toString().endsWith(".pair")).findFirst().orElseThrow();
+            byte[] bytes = Files.readAllBytes(entry);
+            bytes[bytes.length / 2] ^= 0x55;
+            Files.write(entry, bytes);
+        }
+
+        assertNull(cache.get("clonidine", "compro"));
+    }
+
+    /** Makes the entries so far an hour older, so their order of use does not depend on the clock resolution. */
+    private static void age(Path directory) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                long modified = Files.getLastModifiedTime(entry).toMillis();
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(modified - 3_600_000));
+            }
+        }
+    }
+
+    private static long entrySizes(Path directory) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            return entries.filter(path -> path.toString().endsWith(".pair")).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionChecker;
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.PairAnalysis;
+import nl.bioinf.logic.TestEngines;
+import nl.bioinf.models.Combination;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextReportRendererTest {
+
+    private final InteractionEngine engine = TestEngines.small(
+            List.of(
+                    new Interaction("CYP2D6", "agonist",   "NULL", "D1"),
+                    new Interaction("CYP2D6", "inhibitor", "0.25", "D2"),
+                    new Interaction("CYP2C9", "vaccine",   "1.0",  "D3"),
+                    new Interaction("GENE_X", "agonist",   "1.0",  "D4")
+            ),
+            List.of(new Drug("shot", "D3"), new Drug("aspirin", "D4"), new Drug("compro", "D9")));
+
+    private String render(String drug1, String drug2) throws Exception {
+        StringBuilder out = new StringBuilder();
+        new TextReportRenderer().render(engine.analyze(drug1, drug2), out);
+        return out.toString();
+    }
+
+    @Test
+    void render_writesTheFullReport() throws Exception {
+        String expected = """
+                ==== Find overlap genes ====\s
+                Drug 1 input: clonidine
+                Drug 2 input: compro
+
+                Note: compro matches several drugs [D2, D9]; using D2
+
+                Number of genes influenced by clonidine: 2
+                Number of genes influenced by compro: 2
+
+                Number of overlapping genes: 2
+                Overlapping genes:\s
+                CYP2C9
+                CYP2D6
+
+                ==== Combination drugs ====\s
+                clonidine type: agonist
+                compro type: inhibitor
+
+                Combination result: Opposing
+
+                ==== Interaction scores per overlap genes ====
+                gene: first drug = first drug score, second drug = second drug score
+
+                CYP2C9; clonidine = 0.5; compro = 0.125
+                CYP2D6; clonidine = n/a; compro = 0.25
+
+                ==== Calculating combined interaction scores ====
+                CYP2C9: 0.5 - 0.125 = 0.375
+                CYP2D6: n/a, 0.25 (score missing, not combined)
+
+                ==== Calculation Results ====\s
+                The activity of CYP2C9 is decreased by 0.375.
+                The effect on CYP2D6 is unknown, DGIdb has no score for it.
+                """;
+        assertEquals(expected, render("clonidine", "compro"));
+    }
+
+    @Test
+    void render_matchesTheStepByStepCheckerOutput() throws Exception {
+        String[][] pairs = {{"clonidine", "compro"}, {"clonidine", "shot"}, {"clonidine", "aspirin"}, {"compro", "shot"}};
+        for (String[] pair : pairs) {
+            InteractionChecker checker = new InteractionChecker(engine, pair[0], pair[1]);
+            Set<String> overlap = checker.geneOverlap();
+            String result = checker.getCombinationResult(overlap);
+            List<InteractionChecker.GeneScore> scores = checker.getInteractionScorePerGene(overlap);
+            checker.compareInteractionScore(result, scores, overlap);
+
+            assertEquals(checker.getOutputSB().toString(), render(pair[0], pair[1]), pair[0] + " + " + pair[1]);
+        }
+    }
+
+    @Test
+    void analysis_carriesTheCombinedScores() {
+        PairAnalysis analysis = engine.analyze("clonidine", "compro");
+
+        assertEquals(CombinationScoreEffect.OPPOSING, analysis.effect());
+        assertTrue(analysis.combinationInTable());
+        assertEquals(0.375f, analysis.combinedScore(analysis.geneScores().get(0)));
+        assertEquals(0.375f, analysis.totalCombinedScore());
+
+        PairAnalysis notInTable = engine.analyze("compro", "shot");
+        assertFalse(notInTable.combinationInTable());
+        assertEquals("Unknown", notInTable.combinationResult());
+        assertEquals(CombinationScoreEffect.UNKNOWN, notInTable.effect());
+        assertTrue(Float.isNaN(notInTable.totalCombinedScore()));
+    }
+}
@@ -0,0 +1,97 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.TestEngines;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextReportWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final InteractionEngine engine = TestEngines.small();
+
+    @Test
+    void write_rendersTheSameTextAsTheRenderer() throws Exception {
+        Path out = tempDir.resolve("report.txt");
+        try (TextReportWriter writer = new TextReportWriter(out, false, new TextReportRenderer())) {
+            writer.write(engine.analyze("clonidine", "compro"));
+        }
+
+        StringBuilder expected = new StringBuilder();
+        new TextReportRenderer().render(engine.analyze("clonidine", "compro"), expected);
+        assertEquals(expected.toString(), Files.readString(out));
+    }
+
+    @Test
+    void write_endsEveryReportWithALineBreak() throws Exception {
+        Path out = tempDir.resolve("report.txt");
+        try (TextReportWriter writer = new TextReportWriter(out, false, new TextReportRenderer())) {
+            writer.write("first");
+            writer.write("second\n");
+        }
+        assertEquals("first\nsecond\n", Files.readString(out));
+    }
+
+    @Test
+    void append_keepsTheExistingReportsAndOverwriteReplacesThem() throws Exception {
+        Path out = tempDir.resolve("report.txt");
+        try (TextReportWriter writer = new TextReportWriter(out, false, new TextReportRenderer())) {
+            writer.write("run 1");
+        }
+        try (TextReportWriter writer = new TextReportWriter(out, true, new TextReportRenderer())) {
+            writer.write("run 2");
+        }
+        assertEquals("run 1\nrun 2\n", Files.readString(out));
+
+        try (TextReportWriter writer = new TextReportWriter(out, false, new TextReportRenderer())) {
+            writer.write("run 3");
+        }
+        assertEquals("run 3\n", Files.readString(out));
+    }
+
+    @Test
+    void heading_separatesEntriesWithABlankLine() throws Exception {
+        Path out = tempDir.resolve("report.txt");
+        try (TextReportWriter writer = new TextReportWriter(out, false, new TextReportRenderer())) {
+            writer.heading("Line 1");
+            writer.write("first");
+            writer.heading("Line 2");
+            writer.write("second");
+        }
+        try (TextReportWriter writer = new TextReportWriter(out, true, new TextReportRenderer())) {
+            writer.heading("Line 3");
+            writer.write("third");
+        }
+        assertEquals("######## Line 1 ########\nfirst\n\n######## Line 2 ########\nsecond\n\n"
+                + "######## Line 3 ########\nthird\n", Files.readString(out));
+    }
+
+    @Test
+    void append_createsAMissingFile() throws Exception {
+        Path out = tempDir.resolve("new.txt");
+        try (TextReportWriter writer = new TextReportWriter(out, true, new TextReportRenderer())) {
+            writer.write("only");
+        }
+        assertEquals("only\n", Files.readString(out));
+    }
+
+    @Test
+    void write_streamsReportsLargerThanTheBuffer() throws Exception {
+        Path out = tempDir.resolve("large.txt");
+        StringBuilder large = new StringBuilder();
+        while (large.length() < 3 * TextReportWriter.BUFFER_SIZE) large.append("GENE_").append(large.length()).append('\n');
+
+        try (TextReportWriter writer = new TextReportWriter(out, false, new TextReportRenderer())) {
+            writer.write(large);
+        }
+        assertEquals(large.toString(), Files.readString(out));
+    }
+}
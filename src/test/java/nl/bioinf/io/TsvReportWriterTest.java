@@ -0,0 +1,81 @@
+package nl.bioinf.io;
+
+import nl.bioinf.logic.InteractionEngine;
+import nl.bioinf.logic.TestEngines;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TsvReportWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final InteractionEngine engine = TestEngines.small(
+            List.of(
+                    new Interaction("CYP2D6", "agonist",   "NULL", "D1"),
+                    new Interaction("CYP2D6", "inhibitor", "0.25", "D2"),
+                    new Interaction("GENE_X", "agonist",   "1.0",  "D3")
+            ),
+            List.of(new Drug("aspirin", "D3")));
+
+    @Test
+    void write_oneRowPerPair() throws Exception {
+        Path out = tempDir.resolve("pairs.tsv");
+        try (TsvReportWriter writer = new TsvReportWriter(out, false, false)) {
+            writer.write(engine.analyze("clonidine", "compro"));
+            writer.write(engine.analyze("clonidine", "aspirin"));
+            writer.error("clonidine", "unknown", "ERROR: Drug not found:\tunknown");
+        }
+
+        List<String> lines = Files.readAllLines(out);
+        assertEquals(List.of(
+                TsvReportWriter.PAIR_HEADER.strip(),
+                "clonidine\tcompro\tD1\tD2\t2\t2\t2\tagonist\tinhibitor\tOpposing\tOPPOSING\t0.375\t",
+                "clonidine\taspirin\tD1\tD3\t2\t1\t0\tagonist\tagonist\tunknown\tUNKNOWN\tNA\t",
+                "clonidine\tunknown\t\t\t\t\t\t\t\t\t\t\tERROR: Drug not found: unknown"
+        ), lines);
+        for (String line : lines) assertEquals(13, line.split("\t", -1).length, line);
+    }
+
+    @Test
+    void write_oneRowPerOverlappingGene() throws Exception {
+        Path out = tempDir.resolve("genes.tsv");
+        try (TsvReportWriter writer = new TsvReportWriter(out, false, true)) {
+            writer.write(engine.analyze("clonidine", "compro"));
+            writer.write(engine.analyze("clonidine", "aspirin"));
+            writer.error("clonidine", "unknown", "not found");
+        }
+
+        List<String> lines = Files.readAllLines(out);
+        assertEquals(List.of(
+                TsvReportWriter.GENE_HEADER.strip(),
+                "clonidine\tcompro\tD1\tD2\tCYP2C9\t0.5\t0.125\tOPPOSING\t0.375\t",
+                "clonidine\tcompro\tD1\tD2\tCYP2D6\tNA\t0.25\tOPPOSING\tNA\t",
+                "clonidine\tunknown\t\t\t\t\t\t\t\tnot found"
+        ), lines);
+        for (String line : lines) assertEquals(10, line.split("\t", -1).length, line);
+    }
+
+    @Test
+    void append_writesTheHeaderOnce() throws Exception {
+        Path out = tempDir.resolve("pairs.tsv");
+        for (int run = 0; run < 2; run++) {
+            try (TsvReportWriter writer = new TsvReportWriter(out, true, false)) {
+                writer.write(engine.analyze("clonidine", "compro"));
+            }
+        }
+
+        List<String> lines = Files.readAllLines(out);
+        assertEquals(3, lines.size());
+        assertEquals(TsvReportWriter.PAIR_HEADER.strip(), lines.get(0));
+        assertEquals(lines.get(1), lines.get(2));
+    }
+}
@@ -0,0 +1,89 @@
+package nl.bioinf.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchPipelineTest {
+
+    @Test
+    void run_keepsSourceOrderWithSeveralWorkers() {
+        List<Integer> source = IntStream.range(0, 500).boxed().toList();
+        List<Integer> results = new ArrayList<>();
+
+        long count = new BatchPipeline<Integer, Integer>(4, 8).run(source.iterator(), i -> {
+            if (i % 7 == 0) Thread.yield();
+            return i * 2;
+        }, results::add);
+
+        assertEquals(500, count);
+        assertEquals(IntStream.range(0, 500).map(i -> i * 2).boxed().toList(), results);
+    }
+
+    @Test
+    void run_boundsItemsInFlight() {
+        AtomicInteger computed = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+
+        new BatchPipeline<Integer, Integer>(2, 3).run(IntStream.range(0, 200).boxed().iterator(), i -> {
+            int ahead = computed.incrementAndGet() - written.get();
+            maxAhead.accumulateAndGet(ahead, Math::max);
+            return i;
+        }, i -> written.incrementAndGet());
+
+        // capacity 3 in the queue, plus one submitted by the producer while the queue is full
+        // and one taken by the writer
+        assertTrue(maxAhead.get() <= 5, "too many items in flight: " + maxAhead.get());
+    }
+
+    @Test
+    void run_stopsAtFirstFailure() {
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () ->
+                new BatchPipeline<Integer, Integer>(2, 4).run(IntStream.range(0, 100).boxed().iterator(), i -> {
+                    if (i == 10) throw new IllegalStateException("boom");
+                    return i;
+                }, i -> {}));
+        assertEquals("boom", ex.getMessage());
+    }
+
+    @Test
+    void run_returnsOnlyAfterTheProducerStoppedReading() throws InterruptedException {
+        AtomicBoolean returned = new AtomicBoolean();
+        AtomicBoolean readAfterReturn = new AtomicBoolean();
+        Iterator<Integer> slowSource = new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                // a blocking read that, like readLine, does not notice an interrupt
+                long until = System.nanoTime() + 20_000_000;
+                while (System.nanoTime() < until) Thread.onSpinWait();
+                if (returned.get()) readAfterReturn.set(true);
+                return next < 100;
+            }
+
+            @Override
+            public Integer next() {
+                return next++;
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () ->
+                new BatchPipeline<Integer, Integer>(2, 4).run(slowSource, i -> i, i -> {
+                    throw new IllegalStateException("disk full");
+                }));
+        returned.set(true);
+        // long enough for a producer that was still reading to finish that read
+        Thread.sleep(100);
+
+        assertFalse(readAfterReturn.get(), "the source was read after run returned");
+    }
+}
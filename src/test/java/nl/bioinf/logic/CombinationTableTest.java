@@ -0,0 +1,58 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.io.CombinationScoreEffect;
+import nl.bioinf.io.ReadFiles;
+import nl.bioinf.models.Combination;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CombinationTableTest {
+
+    private final CombinationTable table = new CombinationTable(List.of(
+            new Combination("agonist", "Inhibitor", "Opposing"),
+            new Combination("inhibitor", "agonist", "Enhancing"), // same pair again, first row wins
+            new Combination("agonist", "agonist", "Enhancing"),
+            new Combination("activator", "agonist", "synergetisch")
+    ));
+
+    @Test
+    void result_isSymmetricAndCaseInsensitive() {
+        assertEquals("Opposing", table.result("AGONIST", "inhibitor"));
+        assertEquals("Opposing", table.result("inhibitor", "agonist"));
+        assertEquals("Enhancing", table.result("agonist", "agonist"));
+
+        int agonist = table.ordinal("Agonist");
+        int activator = table.ordinal("activator");
+        assertEquals(CombinationScoreEffect.SYNERGETISCH, table.effect(agonist, activator));
+        assertEquals(CombinationScoreEffect.SYNERGETISCH, table.effect(activator, agonist));
+    }
+
+    @Test
+    void unknownTypesShareOneOrdinalWithoutResult() {
+        assertEquals(3, table.typeCount());
+        assertEquals(table.typeCount(), table.ordinal("vaccine"));
+        assertEquals(table.typeCount(), table.ordinal(null));
+        assertNull(table.result("vaccine", "agonist"));
+        assertNull(table.result("activator", "activator"));
+        assertEquals(CombinationScoreEffect.UNKNOWN, table.effect(table.ordinal("vaccine"), table.ordinal("agonist")));
+    }
+
+    @Test
+    void bundledTable_everyRowResolvesInBothOrders() {
+        List<Combination> combinations = new ReadFiles(new File("unused"), new File("unused")).processCombinations();
+        CombinationTable bundled = new CombinationTable(combinations);
+
+        for (Combination combination : combinations) {
+            String expected = combinations.stream()
+                    .filter(c -> (c.drugType1().equalsIgnoreCase(combination.drugType1()) && c.drugType2().equalsIgnoreCase(combination.drugType2()))
+                            || (c.drugType1().equalsIgnoreCase(combination.drugType2()) && c.drugType2().equalsIgnoreCase(combination.drugType1())))
+                    .findFirst().orElseThrow().resultaat();
+            assertEquals(expected, bundled.result(combination.drugType1(), combination.drugType2()));
+            assertEquals(expected, bundled.result(combination.drugType2(), combination.drugType1()));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.models.Drug;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DrugDictionaryTest {
+
+    private final DrugDictionary dictionary = new DrugDictionary(List.of(
+            new Drug("Imatinib",  "CHEMBL:941"),
+            new Drug("GLEEVEC",   "CHEMBL:941"),
+            new Drug("imatinib",  "CHEMBL:941"),   // same concept again, not ambiguous
+            new Drug("Aspirin",   "CHEMBL:25"),
+            new Drug("aspirin ",  "CHEMBL:9999")   // different concept → ambiguous
+    ));
+
+    @Test
+    void resolve_foldsCaseAndTrimsWhitespace() {
+        assertEquals("CHEMBL:941", dictionary.resolve("  gleevec "));
+        assertEquals("CHEMBL:941", dictionary.resolve("IMATINIB"));
+        assertTrue(dictionary.contains("Gleevec"));
+    }
+
+    @Test
+    void resolve_throwsForUnknownName() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> dictionary.resolve("doesNotExist"));
+        assertTrue(ex.getMessage().contains("Drug not found"));
+    }
+
+    @Test
+    void isAmbiguous_onlyForNamesWithSeveralConcepts() {
+        assertFalse(dictionary.isAmbiguous("imatinib"));
+        assertTrue(dictionary.isAmbiguous("ASPIRIN"));
+
+        assertEquals("CHEMBL:25", dictionary.resolve("aspirin"));
+        assertEquals(List.of("CHEMBL:25", "CHEMBL:9999"), dictionary.conceptIds("aspirin"));
+        assertEquals(List.of("CHEMBL:941"), dictionary.conceptIds("gleevec"));
+        assertTrue(dictionary.conceptIds("unknown").isEmpty());
+    }
+
+    @Test
+    void name_isTheFirstNameOfTheConcept() {
+        assertEquals("Imatinib", dictionary.name("CHEMBL:941"));
+        assertEquals("aspirin", dictionary.name("CHEMBL:9999"));
+        assertNull(dictionary.name("CHEMBL:1"));
+    }
+}
@@ -0,0 +1,51 @@
+package nl.bioinf.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneSetTest {
+
+    @Test
+    void of_sortsAndDropsDuplicates() {
+        GeneSet set = GeneSet.of(new int[]{7, 3, 7, 1, 3}, 5);
+
+        assertEquals(3, set.size());
+        assertEquals(1, set.get(0));
+        assertEquals(7, set.get(2));
+        assertTrue(set.contains(3));
+        assertFalse(set.contains(4));
+        assertSame(GeneSet.EMPTY, GeneSet.of(new int[0], 0));
+    }
+
+    @Test
+    void intersect_mergesSimilarSizes() {
+        GeneSet a = GeneSet.of(new int[]{1, 4, 6, 9, 12}, 5);
+        GeneSet b = GeneSet.of(new int[]{2, 4, 9, 13}, 4);
+
+        assertArrayEquals(new int[]{4, 9}, a.intersect(b));
+        assertArrayEquals(new int[]{4, 9}, b.intersect(a));
+        assertArrayEquals(new int[0], a.intersect(GeneSet.EMPTY));
+    }
+
+    @Test
+    void intersect_matchesSetIntersectionWhenOneSetIsMuchLarger() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int[] small = random.ints(1 + random.nextInt(5), 0, 10_000).toArray();
+            int[] large = random.ints(2_000, 0, 10_000).toArray();
+
+            Set<Integer> expected = new TreeSet<>();
+            Arrays.stream(small).forEach(expected::add);
+            expected.retainAll(Arrays.stream(large).boxed().toList());
+
+            int[] actual = GeneSet.of(small.clone(), small.length).intersect(GeneSet.of(large.clone(), large.length));
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), actual);
+        }
+    }
+}
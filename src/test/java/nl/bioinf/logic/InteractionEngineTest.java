@@ -0,0 +1,101 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.models.Combination;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InteractionEngineTest {
+
+    private final InteractionEngine engine = TestEngines.small(
+            List.of(
+                    new Interaction("CYP2D6", "agonist",   "0.25", "D1"),
+                    new Interaction("CYP2C9", "agonist",   "0.9",  "D1"), // duplicate gene, first score counts
+                    new Interaction("GENE_X", "inhibitor", "1.0",  "D2"),
+                    new Interaction("GENE_Y", "activator", "1.0",  "D3")
+            ),
+            List.of(new Drug("aspirin", "D3")));
+
+    @Test
+    void analyze_returnsStructuredResult() {
+        PairAnalysis analysis = engine.analyze("Clonidine", "compro");
+
+        assertEquals("D1", analysis.firstConceptId());
+        assertEquals("D2", analysis.secondConceptId());
+        assertEquals(2, analysis.firstGeneCount());
+        assertEquals(2, analysis.secondGeneCount());
+        assertEquals(Set.of("CYP2C9"), analysis.overlap());
+        assertEquals("agonist", analysis.firstType());
+        assertEquals("inhibitor", analysis.secondType());
+        assertEquals("Opposing", analysis.combinationResult());
+        assertEquals(List.of(new InteractionChecker.GeneScore("CYP2C9", 0.5f, 0.125f)), analysis.geneScores());
+    }
+
+    @Test
+    void analyze_recordsItsStepsWhenProfiled() {
+        Profiler profiler = new Profiler();
+        PairAnalysis analysis = engine.analyze("Clonidine", "compro", profiler);
+
+        assertEquals(engine.analyze("Clonidine", "compro"), analysis);
+        assertEquals(List.of("resolve names", "gene overlap", "combination", "scores"),
+                profiler.results().stream().map(Profiler.Result::name).toList());
+    }
+
+    @Test
+    void analyze_usesUnknownWithoutOverlapOrTableMatch() {
+        assertEquals("unknown", engine.analyze("clonidine", "aspirin").combinationResult());
+        assertNull(engine.findCombinationResult("agonist", "activator"));
+        assertThrows(IllegalArgumentException.class, () -> engine.analyze("clonidine", "nope"));
+    }
+
+    @Test
+    void analyze_canBeCalledFromManyThreadsAtOnce() throws Exception {
+        PairAnalysis expected = engine.analyze("clonidine", "compro");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<PairAnalysis>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(pool.submit(() -> engine.analyze("clonidine", "compro")));
+            }
+            for (Future<PairAnalysis> future : futures) {
+                assertEquals(expected, future.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void analyze_missingScoresDoNotStopTheRun() {
+        InteractionEngine withNulls = new InteractionEngine(Dataset.of(
+                List.of(
+                        new Interaction("CYP2C9", "agonist",   "NULL", "D1"),
+                        new Interaction("CYP2D6", "agonist",   "",     "D1"),
+                        new Interaction("CYP2C9", "inhibitor", "0.5",  "D2"),
+                        new Interaction("CYP2D6", "inhibitor", "0.25", "D2")
+                ),
+                List.of(new Drug("clonidine", "D1"), new Drug("compro", "D2")),
+                List.of(new Combination("inhibitor", "agonist", "Opposing"))
+        ));
+
+        PairAnalysis analysis = withNulls.analyze("clonidine", "compro");
+
+        assertEquals(2, analysis.overlap().size());
+        assertEquals(2, analysis.geneScores().size());
+        assertTrue(Scores.isMissing(analysis.geneScores().get(0).scoreDrug1()));
+        assertEquals(0.5f, analysis.geneScores().get(0).scoreDrug2());
+
+        String report = new InteractionChecker(withNulls, "clonidine", "compro").runAnalysis().toString();
+        assertTrue(report.contains("CYP2C9; clonidine = n/a; compro = 0.5"), report);
+        assertTrue(report.contains("The effect on CYP2C9 is unknown, DGIdb has no score for it."), report);
+    }
+}
@@ -0,0 +1,75 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InteractionIndexTest {
+
+    private final List<Interaction> interactions = List.of(
+            new Interaction("CYP2C9", "agonist", "0.1", "D1"),
+            new Interaction("CYP2D6", "NULL",    "0.2", "D2"),
+            new Interaction("CYP2D6", "agonist", "0.3", "D1"),
+            new Interaction("GENE_A", "inhibitor", "0.4", "D1")
+    );
+
+    @Test
+    void forConcept_returnsSliceInFileOrder() {
+        InteractionIndex index = new InteractionIndex(interactions);
+
+        List<Interaction> d1 = index.forConcept("D1");
+        assertEquals(3, d1.size());
+        assertEquals("CYP2C9", d1.get(0).geneClaimName());
+        assertEquals("CYP2D6", d1.get(1).geneClaimName());
+        assertEquals("GENE_A", d1.get(2).geneClaimName());
+
+        assertEquals(4, index.size());
+        assertEquals(2, index.conceptCount());
+    }
+
+    @Test
+    void forConcept_unknownConceptIsEmptyAndSlicesAreReadOnly() {
+        InteractionIndex index = new InteractionIndex(interactions);
+
+        assertTrue(index.forConcept("D3").isEmpty());
+        assertThrows(UnsupportedOperationException.class,
+                () -> index.forConcept("D2").add(interactions.get(0)));
+    }
+
+    @Test
+    void geneSet_usesDenseIdsInFileOrder() {
+        InteractionIndex index = new InteractionIndex(interactions);
+
+        assertEquals(3, index.genes().size());
+        assertEquals(0, index.genes().id("CYP2C9"));
+        assertEquals(1, index.genes().id("CYP2D6"));
+        assertEquals("GENE_A", index.genes().name(2));
+        assertEquals(-1, index.genes().id("NOPE"));
+
+        GeneSet d1 = index.geneSet("D1");
+        assertEquals(3, d1.size());
+        assertArrayEquals(new int[]{1}, d1.intersect(index.geneSet("D2")));
+        assertTrue(index.geneSet("D3").isEmpty());
+    }
+
+    @Test
+    void firstScores_skipMissingScoresOfRepeatedGenes() {
+        InteractionIndex index = new InteractionIndex(List.of(
+                new Interaction("CYP2C9", "agonist", "NULL", "D1"),
+                new Interaction("CYP2D6", "agonist", "0.2",  "D1"),
+                new Interaction("CYP2C9", "agonist", "0.7",  "D1"),
+                new Interaction("CYP2D6", "agonist", "0.9",  "D1"),
+                new Interaction("GENE_A", "agonist", "NULL", "D1"),
+                new Interaction("GENE_A", "agonist", "",     "D1")
+        ));
+
+        float[] scores = index.firstScores("D1");
+        GeneSet genes = index.geneSet("D1");
+        assertEquals(0.7f, scores[genes.indexOf(index.genes().id("CYP2C9"))]);
+        assertEquals(0.2f, scores[genes.indexOf(index.genes().id("CYP2D6"))]);
+        assertTrue(Scores.isMissing(scores[genes.indexOf(index.genes().id("GENE_A"))]));
+    }
+}
@@ -0,0 +1,115 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.io.CombinationScoreEffect;
+import nl.bioinf.models.Combination;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InteractionMatrixTest {
+
+    private final List<Interaction> interactions = List.of(
+            new Interaction("CYP2C9", "agonist",   "0.5",  "D1"),
+            new Interaction("CYP2D6", "agonist",   "0.25", "D1"),
+            new Interaction("CYP2C9", "inhibitor", "0.125", "D2"),
+            new Interaction("CYP2D6", "inhibitor", "0.5",  "D2"),
+            new Interaction("GENE_X", "agonist",   "1.0",  "D3"),
+            new Interaction("CYP2C9", "activator", "2.0",  "D4")
+    );
+    private final List<Drug> drugs = List.of(
+            new Drug("clonidine", "D1"), new Drug("compro", "D2"),
+            new Drug("aspirin", "D3"), new Drug("other", "D4"));
+    private final List<Combination> combinations = List.of(
+            new Combination("agonist", "inhibitor", "Opposing"),
+            new Combination("activator", "agonist", "Enhancing"));
+    private final Dataset dataset = Dataset.of(interactions, drugs, combinations);
+
+    private InteractionMatrix computed() {
+        InteractionMatrix matrix = new InteractionMatrix(new InteractionEngine(dataset), List.of("clonidine", "compro", "aspirin", "other"));
+        matrix.compute(new ForkJoinPool(2));
+        return matrix;
+    }
+
+    @Test
+    void compute_matchesInteractionCheckerForEveryPair() {
+        InteractionMatrix matrix = computed();
+        List<String> names = matrix.drugs();
+
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = i + 1; j < names.size(); j++) {
+                InteractionChecker checker = new InteractionChecker(interactions, drugs, combinations, names.get(i), names.get(j));
+                Set<String> overlap = checker.geneOverlap();
+                String result = checker.getCombinationResult(overlap);
+                CombinationScoreEffect expected = overlap.isEmpty()
+                        ? CombinationScoreEffect.UNKNOWN : CombinationScoreEffect.fromResult(result);
+
+                assertEquals(overlap.size(), matrix.overlap(i, j), names.get(i) + "/" + names.get(j));
+                assertEquals(overlap.size(), matrix.overlap(j, i));
+                assertEquals(expected, matrix.effect(i, j));
+            }
+        }
+    }
+
+    @Test
+    void combinedScore_followsTheEffect() {
+        InteractionMatrix matrix = computed();
+
+        // clonidine (agonist) + compro (inhibitor) → Opposing: (0.5 - 0.125) + (0.25 - 0.5)
+        assertEquals(0.125f, matrix.combinedScore(0, 1), 1e-6f);
+        assertEquals(-0.125f, matrix.combinedScore(1, 0), 1e-6f);
+        // clonidine (agonist) + other (activator) → Enhancing: 0.5 + 2.0
+        assertEquals(2.5f, matrix.combinedScore(0, 3), 1e-6f);
+        // clonidine + aspirin: no overlap → unknown
+        assertTrue(Float.isNaN(matrix.combinedScore(0, 2)));
+    }
+
+    @Test
+    void combinedScore_leavesOutGenesWithoutScore() {
+        Dataset withNull = Dataset.of(
+                List.of(
+                        new Interaction("CYP2C9", "agonist",   "NULL", "D1"),
+                        new Interaction("CYP2D6", "agonist",   "0.25", "D1"),
+                        new Interaction("CYP2C9", "activator", "2.0",  "D4"),
+                        new Interaction("CYP2D6", "activator", "1.0",  "D4")
+                ),
+                drugs, combinations);
+        InteractionMatrix matrix = new InteractionMatrix(new InteractionEngine(withNull), List.of("clonidine", "other"));
+        matrix.compute(new ForkJoinPool(1));
+
+        assertEquals(2, matrix.overlap(0, 1));
+        assertEquals(1.25f, matrix.combinedScore(0, 1), 1e-6f);
+    }
+
+    @Test
+    void compute_splitsALargeListAndFillsEveryPair() {
+        Random random = new Random(3);
+        List<Interaction> many = new ArrayList<>();
+        List<Drug> manyDrugs = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int d = 0; d < 150; d++) {
+            manyDrugs.add(new Drug("drug" + d, "C" + d));
+            names.add("drug" + d);
+            for (int g = 0; g < 1 + random.nextInt(20); g++) {
+                many.add(new Interaction("G" + random.nextInt(60), "agonist", "1.0", "C" + d));
+            }
+        }
+        InteractionEngine engine = new InteractionEngine(Dataset.of(many, manyDrugs, combinations));
+        InteractionMatrix matrix = new InteractionMatrix(engine, names);
+        matrix.compute(new ForkJoinPool(4));
+
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = i + 1; j < names.size(); j++) {
+                assertEquals(engine.analyze(names.get(i), names.get(j)).overlap().size(), matrix.overlap(i, j),
+                        names.get(i) + "/" + names.get(j));
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InteractionStoreTest {
+
+    private final List<Interaction> interactions = List.of(
+            new Interaction("CYP2C9", "agonist",   "0.5",  "D1"),
+            new Interaction("CYP2D6", "inhibitor", "NULL", "D2"),
+            new Interaction("CYP2D6", "agonist",   "0.25", "D1"),
+            new Interaction("CYP2C9", "inhibitor", "1",    "D2"),
+            new Interaction("GENE_A", "agonist",   "",     "D1")
+    );
+
+    @Test
+    void of_groupsRowsByConceptInFileOrder() {
+        InteractionStore store = InteractionStore.of(interactions);
+
+        assertEquals(5, store.size());
+        assertEquals(2, store.conceptCount());
+        int d1 = store.concept("D1");
+        assertEquals(0, store.start(d1));
+        assertEquals(3, store.end(d1));
+        assertEquals("D2", store.conceptId(store.concept("D2")));
+        assertEquals(-1, store.concept("D3"));
+
+        assertEquals(List.of("CYP2C9", "CYP2D6", "GENE_A"),
+                store.forConcept("D1").stream().map(Interaction::geneClaimName).toList());
+        assertEquals(new Interaction("CYP2C9", "inhibitor", "1.0", "D2"), store.forConcept("D2").get(1));
+        assertEquals(store.forConcept("D2").get(1), store.interaction(4));
+        assertTrue(store.forConcept("D3").isEmpty());
+    }
+
+    @Test
+    void addAll_givesTheSameStoreAsAddingEveryRowToOneBuilder() {
+        InteractionStore.Builder first = InteractionStore.builder();
+        InteractionStore.Builder second = InteractionStore.builder();
+        for (int i = 0; i < interactions.size(); i++) (i < 2 ? first : second).add(interactions.get(i));
+
+        InteractionStore merged = first.addAll(second).build();
+        InteractionStore expected = InteractionStore.of(interactions);
+
+        assertEquals(expected.size(), merged.size());
+        for (int row = 0; row < expected.size(); row++) assertEquals(expected.interaction(row), merged.interaction(row));
+    }
+
+    @Test
+    void of_encodesGenesTypesAndScoresInColumns() {
+        InteractionStore store = InteractionStore.of(interactions);
+
+        assertEquals(3, store.genes().size());
+        assertEquals(2, store.typeCount());
+        // rows 0..2 are D1, 3..4 are D2
+        assertEquals(store.gene(0), store.gene(4));
+        assertEquals("agonist", store.typeName(store.type(1)));
+        assertEquals(0.25f, store.score(1));
+        assertTrue(Float.isNaN(store.score(2)));
+        assertTrue(Float.isNaN(store.score(3)));
+        assertEquals("NaN", store.forConcept("D1").get(2).interactionScore());
+    }
+
+    @Test
+    void builder_growsPastItsInitialCapacity() {
+        InteractionStore.Builder builder = InteractionStore.builder();
+        for (int i = 0; i < 5_000; i++) builder.add("D" + (i % 7), "G" + (i % 300), "agonist", i);
+
+        InteractionStore store = builder.build();
+
+        assertEquals(5_000, store.size());
+        assertEquals(7, store.conceptCount());
+        assertEquals(300, store.genes().size());
+        assertEquals(1, store.typeCount());
+        int d3 = store.concept("D3");
+        assertEquals(3f, store.score(store.start(d3)));
+        assertEquals(10f, store.score(store.start(d3) + 1));
+    }
+}
@@ -0,0 +1,132 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PairCacheTest {
+
+    private final InteractionEngine engine = TestEngines.small(
+            List.of(
+                    new Interaction("ADRA2A", "agonist",   "0.75", "D1"),
+                    new Interaction("DRD2",   "inhibitor", "0.25", "D2"),
+                    new Interaction("CYP2C9", "agonist",   "1.0",  "D3")
+            ),
+            List.of(new Drug("catapres", "D1"), new Drug("aspirin", "D3")));
+
+    @Test
+    void analyze_givesTheSameResultAsTheEngine() {
+        PairCache cache = new PairCache(engine, 1 << 20);
+
+        assertEquals(engine.analyze("clonidine", "compro"), cache.analyze("clonidine", "compro"));
+        assertEquals(engine.analyze("compro", "clonidine"), cache.analyze("compro", "clonidine"));
+        assertEquals(engine.analyze("Catapres", "compro"), cache.analyze("Catapres", "compro"));
+    }
+
+    @Test
+    void aliasesAndBothOrdersShareOneEntry() {
+        PairCache cache = new PairCache(engine, 1 << 20);
+
+        cache.analyze("clonidine", "compro");
+        cache.analyze("compro", "clonidine");
+        cache.analyze("catapres", "COMPRO");
+
+        PairCache.Stats stats = cache.stats();
+        assertEquals(1, stats.misses());
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.entries());
+        assertTrue(stats.bytes() > 0);
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenFull() {
+        PairAnalysis one = engine.analyze("clonidine", "compro");
+        PairCache cache = new PairCache(engine, 2 * PairCache.weight(one));
+
+        cache.analyze("clonidine", "compro");
+        cache.analyze("clonidine", "aspirin");
+        cache.analyze("clonidine", "compro");   // now the most recent
+        cache.analyze("compro", "aspirin");     // evicts clonidine + aspirin
+        cache.analyze("clonidine", "compro");
+
+        PairCache.Stats stats = cache.stats();
+        assertEquals(1, stats.evictions());
+        assertEquals(2, stats.entries());
+        assertEquals(2, stats.hits());
+        assertTrue(stats.bytes() <= stats.maxBytes());
+    }
+
+    @Test
+    void sizeZero_cachesNothing() {
+        PairCache cache = new PairCache(engine, 0);
+
+        cache.analyze("clonidine", "compro");
+        cache.analyze("clonidine", "compro");
+
+        assertEquals(0, cache.stats().hits());
+        assertEquals(0, cache.stats().entries());
+        assertThrows(IllegalArgumentException.class, () -> new PairCache(engine, -1));
+    }
+
+    @Test
+    void unknownDrugsAreNotCached() {
+        PairCache cache = new PairCache(engine, 1 << 20);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.analyze("clonidine", "nope"));
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    void identicalQueriesAtTheSameTimeShareOneAnalysis() throws Exception {
+        int threads = 8;
+        AtomicInteger analyses = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        PairCache cache = new PairCache(engine, 1 << 20, (first, second) -> {
+            analyses.incrementAndGet();
+            try {
+                // hold the analysis until every other query waits for it
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return engine.analyze("clonidine", "compro");
+        });
+        PairAnalysis expected = engine.analyze("clonidine", "compro");
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<PairAnalysis>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String drug = i % 2 == 0 ? "clonidine" : "catapres";
+                futures.add(pool.submit(() -> cache.analyze(drug, "compro")));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (cache.stats().coalesced() < threads - 1 && System.nanoTime() < deadline) Thread.sleep(1);
+            release.countDown();
+            for (Future<PairAnalysis> future : futures) {
+                PairAnalysis answer = future.get(10, TimeUnit.SECONDS);
+                assertEquals(expected.overlap(), answer.overlap());
+                assertEquals(expected.totalCombinedScore(), answer.totalCombinedScore());
+            }
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+
+        PairCache.Stats stats = cache.stats();
+        assertEquals(1, analyses.get());
+        assertEquals(threads, stats.misses());
+        assertEquals(threads - 1, stats.coalesced());
+        assertEquals(1, stats.entries());
+    }
+}
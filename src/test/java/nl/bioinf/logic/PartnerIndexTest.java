@@ -0,0 +1,108 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.io.CombinationScoreEffect;
+import nl.bioinf.models.Combination;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartnerIndexTest {
+
+    private final InteractionEngine engine = TestEngines.small(
+            List.of(
+                    new Interaction("ADRA2A", "agonist",   "0.25", "D1"),
+                    new Interaction("DRD2",   "agonist",   "",     "D1"),
+                    new Interaction("ADRA2A", "inhibitor", "2.0",  "D2"),
+                    new Interaction("DRD2",   "agonist",   "4.0",  "D3"),
+                    new Interaction("CYP2C9", "agonist",   "",     "D4"),
+                    new Interaction("HTR2A",  "agonist",   "1.0",  "D5")
+            ),
+            List.of(new Drug("haloperidol", "D3"), new Drug("aspirin", "D4"), new Drug("Aspirin", "D4"),
+                    new Drug("lsd", "D5")),
+            List.of(new Combination("agonist", "agonist", "Enhancing")));
+    private final PartnerIndex index = new PartnerIndex(engine);
+
+    @Test
+    void topPartners_ranksBySharedGenes() {
+        List<PartnerIndex.Partner> partners = index.topPartners("clonidine", 10, PartnerIndex.Ranking.SHARED_GENES);
+
+        assertEquals(List.of("D2", "D3", "D4"), partners.stream().map(PartnerIndex.Partner::conceptId).toList());
+        PartnerIndex.Partner compro = partners.get(0);
+        assertEquals("compro", compro.name());
+        assertEquals(2, compro.sharedGenes());
+        assertEquals(2.875f, compro.score());
+        assertEquals(CombinationScoreEffect.OPPOSING, compro.effect());
+        assertEquals(-1.375f, compro.combinedScore());
+        assertEquals("aspirin", partners.get(2).name());
+    }
+
+    @Test
+    void topPartners_ranksByScoreAndCombinedScore() {
+        assertEquals(List.of("D2", "D3", "D4"), ids(index.topPartners("clonidine", 10, PartnerIndex.Ranking.SCORE)));
+        // neither D3 nor D4 has a shared gene with both scores: both come last, in concept id order
+        assertEquals(List.of("D2", "D3", "D4"),
+                ids(index.topPartners("clonidine", 10, PartnerIndex.Ranking.COMBINED_SCORE)));
+        assertEquals(List.of("D1"), ids(index.topPartners("haloperidol", 10, PartnerIndex.Ranking.COMBINED_SCORE)));
+    }
+
+    @Test
+    void topPartners_returnsAtMostK() {
+        assertEquals(List.of("D2"), ids(index.topPartners("clonidine", 1, PartnerIndex.Ranking.SHARED_GENES)));
+        assertTrue(index.topPartners("lsd", 5, PartnerIndex.Ranking.SHARED_GENES).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> index.topPartners("clonidine", 0, PartnerIndex.Ranking.SCORE));
+        assertThrows(IllegalArgumentException.class, () -> index.topPartners("nope", 5, PartnerIndex.Ranking.SCORE));
+    }
+
+    @Test
+    void topPartners_matchesThePairAnalysisOfEveryDrug() {
+        Random random = new Random(7);
+        List<Interaction> interactions = new ArrayList<>();
+        List<Drug> drugs = new ArrayList<>();
+        String[] types = {"agonist", "inhibitor", "antagonist"};
+        for (int d = 0; d < 60; d++) {
+            drugs.add(new Drug("drug" + d, "C" + d));
+            String type = types[random.nextInt(types.length)];
+            for (int g = 0; g < 1 + random.nextInt(30); g++) {
+                String score = random.nextInt(5) == 0 ? "" : Float.toString(random.nextInt(100) / 10f);
+                interactions.add(new Interaction("G" + random.nextInt(80), type, score, "C" + d));
+            }
+        }
+        InteractionEngine random60 = new InteractionEngine(Dataset.of(interactions, drugs,
+                List.of(new Combination("inhibitor", "agonist", "Opposing"),
+                        new Combination("agonist", "agonist", "Enhancing"))));
+        PartnerIndex partners = new PartnerIndex(random60);
+
+        for (Drug drug : drugs) {
+            List<PartnerIndex.Partner> top = partners.topPartners(drug.drugClaimName(), 5, PartnerIndex.Ranking.SHARED_GENES);
+
+            List<PairAnalysis> expected = new ArrayList<>();
+            for (Drug other : drugs) {
+                if (other == drug) continue;
+                PairAnalysis analysis = random60.analyze(drug.drugClaimName(), other.drugClaimName());
+                if (analysis.hasOverlap()) expected.add(analysis);
+            }
+            expected.sort(Comparator.comparingInt((PairAnalysis a) -> a.overlap().size()).reversed()
+                    .thenComparing(PairAnalysis::secondConceptId));
+            expected = expected.subList(0, Math.min(5, expected.size()));
+
+            assertEquals(expected.stream().map(PairAnalysis::secondConceptId).toList(), ids(top), drug.drugClaimName());
+            for (int i = 0; i < top.size(); i++) {
+                PairAnalysis analysis = expected.get(i);
+                assertEquals(analysis.overlap().size(), top.get(i).sharedGenes());
+                assertEquals(analysis.effect(), top.get(i).effect());
+                assertEquals(analysis.totalCombinedScore(), top.get(i).combinedScore(), 1e-3f);
+            }
+        }
+    }
+
+    private static List<String> ids(List<PartnerIndex.Partner> partners) {
+        return partners.stream().map(PartnerIndex.Partner::conceptId).toList();
+    }
+}
@@ -0,0 +1,60 @@
+package nl.bioinf.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfilerTest {
+
+    @Test
+    void phasesAreRecordedInOrderAndSummed() {
+        Profiler profiler = new Profiler();
+        profiler.begin("read").end(10);
+        profiler.begin("index").end();
+        profiler.begin("read").end(5);
+
+        List<Profiler.Result> results = profiler.results();
+        assertEquals(2, results.size());
+        assertEquals("read", results.get(0).name());
+        assertEquals(2, results.get(0).count());
+        assertEquals(15, results.get(0).items());
+        assertEquals("index", results.get(1).name());
+        assertEquals(1, results.get(1).count());
+        assertTrue(results.get(0).wallNanos() >= 0);
+    }
+
+    @Test
+    void off_recordsNothing() {
+        Profiler.OFF.begin("read").end(10);
+
+        assertFalse(Profiler.OFF.isEnabled());
+        assertTrue(Profiler.OFF.results().isEmpty());
+    }
+
+    @Test
+    void itemsPerSecond_usesWallTime() {
+        assertEquals(2000.0, new Profiler.Result("read", 1, 500_000_000L, -1, -1, 1000).itemsPerSecond(), 1e-9);
+        assertEquals(0.0, new Profiler.Result("index", 1, 500_000_000L, -1, -1, 0).itemsPerSecond());
+    }
+
+    @Test
+    void print_showsEveryPhaseAndTotal() {
+        Profiler profiler = new Profiler();
+        profiler.begin("read interactions").end(3);
+        profiler.begin("build engine").end();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        profiler.print(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        String table = bytes.toString(StandardCharsets.UTF_8);
+
+        assertTrue(table.contains("Wall ms"));
+        assertTrue(table.contains("read interactions"));
+        assertTrue(table.contains("build engine"));
+        assertTrue(table.contains("total"));
+    }
+}
@@ -0,0 +1,28 @@
+package nl.bioinf.logic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoresTest {
+
+    @Test
+    void parse_readsNumbers() {
+        assertEquals(0.009349657f, Scores.parse("0.009349657"));
+        assertEquals(2f, Scores.parse(" 2 "));
+        assertEquals(-1.5f, Scores.parse("-1.5e0"));
+    }
+
+    @Test
+    void parse_treatsEverythingElseAsMissing() {
+        for (String text : new String[]{null, "", "  ", "NULL", "NA", "NaN", "Infinity", "abc", "0.5.1"}) {
+            assertTrue(Scores.isMissing(Scores.parse(text)), "expected missing for '" + text + "'");
+        }
+    }
+
+    @Test
+    void format_showsMissingAsNotAvailable() {
+        assertEquals("0.25", Scores.format(0.25f));
+        assertEquals("n/a", Scores.format(Scores.MISSING));
+    }
+}
@@ -0,0 +1,125 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.models.Combination;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityIndexTest {
+
+    private static final List<Combination> COMBINATIONS = List.of(new Combination("agonist", "agonist", "Enhancing"));
+
+    @Test
+    void settings_deriveHashesAndBandsFromTheErrorBounds() {
+        SimilarityIndex.Settings settings = SimilarityIndex.Settings.DEFAULT;
+
+        // ln(2 / 0.05) / (2 * 0.1²) = 184.4
+        assertEquals(185, settings.hashes());
+        int rows = settings.rowsPerBand();
+        assertEquals(3, rows);
+        assertTrue(SimilarityIndex.Settings.candidateProbability(0.5, rows, 185 / rows) >= 0.95);
+        assertTrue(SimilarityIndex.Settings.candidateProbability(0.5, rows + 1, 185 / (rows + 1)) < 0.95);
+
+        assertTrue(new SimilarityIndex.Settings(0.5, 0.05, 0.05, 1).hashes() > settings.hashes());
+        assertThrows(IllegalArgumentException.class, () -> new SimilarityIndex.Settings(0, 0.1, 0.05, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SimilarityIndex.Settings(0.5, 0, 0.05, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SimilarityIndex.Settings(0.5, 0.1, 1, 1));
+    }
+
+    @Test
+    void similar_findsIdenticalAndOverlappingGeneSets() {
+        InteractionEngine engine = new InteractionEngine(Dataset.of(
+                List.of(
+                        new Interaction("CYP2C9", "agonist", "0.5", "D1"),
+                        new Interaction("ADRA2A", "agonist", "0.5", "D1"),
+                        new Interaction("DRD2",   "agonist", "0.5", "D1"),
+                        new Interaction("CYP2C9", "agonist", "1.0", "D2"),
+                        new Interaction("ADRA2A", "agonist", "1.0", "D2"),
+                        new Interaction("DRD2",   "agonist", "1.0", "D2"),
+                        new Interaction("HTR2A",  "agonist", "1.0", "D3")
+                ),
+                List.of(new Drug("clonidine", "D1"), new Drug("compro", "D2"), new Drug("lsd", "D3"),
+                        new Drug("nothing", "D4")),
+                COMBINATIONS));
+        SimilarityIndex index = new SimilarityIndex(engine, SimilarityIndex.Settings.DEFAULT);
+
+        List<SimilarityIndex.Similar> similar = index.similar("clonidine", 10);
+        assertEquals(List.of(new SimilarityIndex.Similar("D2", "compro", 1.0, 1.0)), similar);
+        assertTrue(index.similar("lsd", 10).isEmpty());
+        assertTrue(index.similar("nothing", 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> index.similar("clonidine", 0));
+        assertThrows(IllegalArgumentException.class, () -> index.similar("nope", 5));
+    }
+
+    @Test
+    void similar_staysWithinTheErrorBoundsOfTheExactOverlap() {
+        // groups of drugs whose gene sets are mutations of one base set, with similarities
+        // spread from far below to far above the threshold
+        Random random = new Random(11);
+        List<Interaction> interactions = new ArrayList<>();
+        List<Drug> drugs = new ArrayList<>();
+        for (int group = 0; group < 30; group++) {
+            Set<Integer> base = randomGenes(random, 20 + random.nextInt(40));
+            for (int member = 0; member < 5; member++) {
+                String conceptId = "C" + group + "_" + member;
+                drugs.add(new Drug("drug" + group + "_" + member, conceptId));
+                double keep = 0.3 + 0.7 * random.nextDouble();
+                Set<Integer> genes = new HashSet<>();
+                for (int gene : base) genes.add(random.nextDouble() < keep ? gene : random.nextInt(5_000));
+                for (int gene : genes) interactions.add(new Interaction("G" + gene, "agonist", "1.0", conceptId));
+            }
+        }
+        InteractionEngine engine = new InteractionEngine(Dataset.of(interactions, drugs, COMBINATIONS));
+        SimilarityIndex.Settings settings = SimilarityIndex.Settings.DEFAULT;
+        SimilarityIndex index = new SimilarityIndex(engine, settings);
+
+        int similarPairs = 0;
+        int found = 0;
+        int estimates = 0;
+        int offByMoreThanError = 0;
+        for (Drug drug : drugs) {
+            GeneSet genes = engine.geneSet(drug.conceptId());
+            List<SimilarityIndex.Similar> result = index.similar(drug.drugClaimName(), drugs.size());
+            Set<String> returned = new HashSet<>();
+            for (SimilarityIndex.Similar similar : result) {
+                returned.add(similar.conceptId());
+                GeneSet other = engine.geneSet(similar.conceptId());
+                int shared = engine.overlap(genes, other).size();
+                assertEquals(shared / (double) (genes.size() + other.size() - shared), similar.jaccard(), 1e-12);
+                assertTrue(similar.jaccard() >= settings.threshold(), similar + " is below the threshold");
+                estimates++;
+                if (Math.abs(similar.estimate() - similar.jaccard()) > settings.error()) offByMoreThanError++;
+            }
+            for (int i = 1; i < result.size(); i++) {
+                assertTrue(result.get(i - 1).jaccard() >= result.get(i).jaccard());
+            }
+
+            for (Drug other : drugs) {
+                if (other == drug) continue;
+                double exact = SimilarityIndex.jaccard(genes, engine.geneSet(other.conceptId()));
+                if (exact < settings.threshold()) continue;
+                similarPairs++;
+                if (returned.contains(other.conceptId())) found++;
+            }
+        }
+
+        assertTrue(similarPairs > 50, "too few similar pairs to test: " + similarPairs);
+        assertTrue(found >= (1 - settings.failureRate()) * similarPairs, found + " of " + similarPairs + " found");
+        assertTrue(offByMoreThanError <= settings.failureRate() * estimates,
+                offByMoreThanError + " of " + estimates + " estimates off by more than the error");
+    }
+
+    private static Set<Integer> randomGenes(Random random, int count) {
+        Set<Integer> genes = new HashSet<>();
+        while (genes.size() < count) genes.add(random.nextInt(5_000));
+        return genes;
+    }
+}
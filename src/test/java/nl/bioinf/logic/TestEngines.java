@@ -0,0 +1,49 @@
+package nl.bioinf.logic;
+
+import nl.bioinf.models.Combination;
+import nl.bioinf.models.Drug;
+import nl.bioinf.models.Interaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The small engine most tests start from: clonidine (D1) is an agonist of CYP2C9 with
+ * score 0.5 and compro (D2) an inhibitor of it with score 0.125, and an inhibitor with an
+ * agonist is {@code Opposing}. Tests that need more add their own rows and drugs after
+ * these. Public because the tests of {@code nl.bioinf.io} use it as well.
+ */
+public final class TestEngines {
+    public static final List<Interaction> INTERACTIONS = List.of(
+            new Interaction("CYP2C9", "agonist",   "0.5",   "D1"),
+            new Interaction("CYP2C9", "inhibitor", "0.125", "D2")
+    );
+    public static final List<Drug> DRUGS = List.of(new Drug("clonidine", "D1"), new Drug("compro", "D2"));
+    public static final List<Combination> COMBINATIONS = List.of(new Combination("inhibitor", "agonist", "Opposing"));
+
+    private TestEngines() {
+    }
+
+    /** Just clonidine and compro. */
+    public static InteractionEngine small() {
+        return small(List.of(), List.of());
+    }
+
+    /** Clonidine and compro, followed by more rows and drugs. */
+    public static InteractionEngine small(List<Interaction> interactions, List<Drug> drugs) {
+        return small(interactions, drugs, List.of());
+    }
+
+    /** Clonidine and compro, followed by more rows, drugs and combinations. */
+    public static InteractionEngine small(List<Interaction> interactions, List<Drug> drugs,
+                                          List<Combination> combinations) {
+        return new InteractionEngine(Dataset.of(concat(INTERACTIONS, interactions), concat(DRUGS, drugs),
+                concat(COMBINATIONS, combinations)));
+    }
+
+    private static <T> List<T> concat(List<T> first, List<T> second) {
+        List<T> all = new ArrayList<>(first);
+        all.addAll(second);
+        return all;
+    }
+}